@@ -0,0 +1,151 @@
+package cn.myth.mybatis.benchmark;
+
+import cn.myth.mybatis.datasource.pooled.PooledDataSource;
+import cn.myth.mybatis.test.jdbc.FakeDatabase;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 借出连接的委托开销：具体委托类 ProxyConnection 与原先的 JDK 动态代理对比
+ * jdkProxy* 使用与原 PooledConnection.ConnectionHandle 相同的分派逻辑（检查有效性、本地状态读取、Method.invoke 委托），
+ * raw* 直接调用假驱动连接作为基线。假驱动本身也是 JDK 动态代理，看差值而不是绝对值。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProxyConnectionBenchmark {
+
+    private static final String SQL = "select id from activity where id = ?";
+
+    private PooledDataSource dataSource;
+    private Connection raw;
+    private Connection pooled;
+    private Connection jdkProxy;
+
+    @Setup
+    public void setUp() throws SQLException {
+        FakeDatabase database = FakeDatabase.create("benchmark-proxy");
+        dataSource = new PooledDataSource();
+        dataSource.setUrl(database.getUrl());
+        raw = java.sql.DriverManager.getConnection(database.getUrl());
+        pooled = dataSource.getConnection();
+        jdkProxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, new LegacyHandler(raw));
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        pooled.close();
+        raw.close();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public int rawGetHoldability() throws SQLException {
+        return raw.getHoldability();
+    }
+
+    @Benchmark
+    public int proxyConnectionGetHoldability() throws SQLException {
+        return pooled.getHoldability();
+    }
+
+    @Benchmark
+    public int jdkProxyGetHoldability() throws SQLException {
+        return jdkProxy.getHoldability();
+    }
+
+    @Benchmark
+    public boolean proxyConnectionGetAutoCommit() throws SQLException {
+        return pooled.getAutoCommit();
+    }
+
+    @Benchmark
+    public boolean jdkProxyGetAutoCommit() throws SQLException {
+        return jdkProxy.getAutoCommit();
+    }
+
+    @Benchmark
+    public void rawPrepareExecuteClose() throws SQLException {
+        prepareExecuteClose(raw);
+    }
+
+    @Benchmark
+    public void proxyConnectionPrepareExecuteClose() throws SQLException {
+        prepareExecuteClose(pooled);
+    }
+
+    @Benchmark
+    public void jdkProxyPrepareExecuteClose() throws SQLException {
+        prepareExecuteClose(jdkProxy);
+    }
+
+    private static void prepareExecuteClose(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(SQL)) {
+            ps.setLong(1, 1L);
+            ps.execute();
+        }
+    }
+
+    /**
+     * 原 JDK 动态代理实现的调用路径，省略了归还连接池和语句缓存
+     */
+    private static final class LegacyHandler implements InvocationHandler {
+
+        private final Connection realConnection;
+        private volatile boolean closed;
+        private boolean autoCommit = true;
+        private boolean dirty;
+
+        LegacyHandler(Connection realConnection) {
+            this.realConnection = realConnection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            if ("close".equals(methodName) && method.getParameterTypes().length == 0) {
+                closed = true;
+                return null;
+            }
+            if (!Object.class.equals(method.getDeclaringClass()) && closed) {
+                throw new SQLException("Error accessing PooledConnection. Connection is invalid.");
+            }
+            try {
+                switch (methodName) {
+                    case "getAutoCommit":
+                        return autoCommit;
+                    case "prepareStatement":
+                    case "createStatement":
+                        if (!autoCommit) {
+                            dirty = true;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+                return method.invoke(realConnection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ProxyConnectionBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,136 @@
+package cn.myth.mybatis.benchmark;
+
+import cn.myth.mybatis.builder.xml.XMLConfigBuilder;
+import cn.myth.mybatis.datasource.pooled.PooledDataSource;
+import cn.myth.mybatis.executor.resulset.ResultSetWrapper;
+import cn.myth.mybatis.executor.resulset.RowMappingPlan;
+import cn.myth.mybatis.io.Resources;
+import cn.myth.mybatis.mapping.ResultMap;
+import cn.myth.mybatis.mapping.ResultMapping;
+import cn.myth.mybatis.reflection.MetaObject;
+import cn.myth.mybatis.reflection.factory.ObjectFactory;
+import cn.myth.mybatis.session.Configuration;
+import cn.myth.mybatis.test.jdbc.FakeDatabase;
+import cn.myth.mybatis.type.TypeHandler;
+import cn.myth.mybatis.type.TypeHandlerRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行映射计划与 MetaObject 通用流程的对比
+ * 两个基准读取同一个假驱动结果集（7 列：ResultMap 映射、基本类型和包装类型自动映射、嵌套属性），
+ * metaObject 按 DefaultResultSetHandler 中 applyAutomaticMapping、applyPropertyMappings 的逻辑逐行映射，即映射计划之前的做法。
+ * 假驱动基于 JDK 动态代理，两边开销相同，只看相对差异。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RowMappingBenchmark {
+
+    private static final String SQL = "SELECT id, name_col, stock, takeCount, rate, remark, activity_desc FROM activity_stat";
+
+    @Param({"100", "1000"})
+    private int rows;
+
+    private Configuration configuration;
+    private ObjectFactory objectFactory;
+    private ResultMap resultMap;
+    private Connection connection;
+    private PreparedStatement statement;
+
+    @Setup
+    public void setUp() throws Exception {
+        FakeDatabase database = FakeDatabase.create("session");
+        Object[][] data = new Object[rows][];
+        for (int i = 0; i < rows; i++) {
+            data[i] = i % 10 == 0 ? new Object[]{(long) i, null, null, null, null, null, null}
+                    : new Object[]{(long) i, "name" + i, i, i * 10L, i / 100.0, "remark" + i, "desc" + i};
+        }
+        database.addResult(SQL, new String[]{"id", "name_col", "stock", "takeCount", "rate", "remark", "activity_desc"},
+                new int[]{Types.BIGINT, Types.VARCHAR, Types.INTEGER, Types.BIGINT, Types.DOUBLE, Types.VARCHAR, Types.VARCHAR}, data);
+        try (Reader reader = Resources.getResourceAsReader("mybatis-config-fake.xml")) {
+            configuration = new XMLConfigBuilder(reader).parse();
+        }
+        objectFactory = configuration.getObjectFactory();
+        resultMap = configuration.getResultMap("cn.myth.mybatis.test.dao.IActivityDao.activityStatMap");
+        connection = configuration.getEnvironment().getDataSource().getConnection();
+        statement = connection.prepareStatement(SQL);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        statement.close();
+        connection.close();
+        ((PooledDataSource) configuration.getEnvironment().getDataSource()).close();
+    }
+
+    @Benchmark
+    public void rowMappingPlan(Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            ResultSetWrapper rsw = new ResultSetWrapper(rs, configuration);
+            RowMappingPlan plan = rsw.getRowMappingPlan(resultMap);
+            while (rs.next()) {
+                blackhole.consume(plan.map(rs, objectFactory, configuration));
+            }
+        }
+    }
+
+    @Benchmark
+    public void metaObject(Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            ResultSetWrapper rsw = new ResultSetWrapper(rs, configuration);
+            TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+            List<String> unmappedColumnNames = rsw.getUnMappedColumnNamesMap(resultMap, null);
+            Set<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, null);
+            while (rs.next()) {
+                Object rowValue = objectFactory.create(resultMap.getType());
+                MetaObject metaObject = configuration.newMetaObject(rowValue);
+                for (String columnName : unmappedColumnNames) {
+                    String property = metaObject.findProperty(columnName, false);
+                    if (property == null || !metaObject.hasSetter(property)) {
+                        continue;
+                    }
+                    Class<?> propertyType = metaObject.getSetterType(property);
+                    if (typeHandlerRegistry.hasTypeHandler(propertyType)) {
+                        TypeHandler<?> typeHandler = rsw.getTypeHandler(propertyType, columnName);
+                        Object value = typeHandler.getResult(rs, rsw.getColumnIndex(columnName));
+                        if (value != null || !propertyType.isPrimitive()) {
+                            metaObject.setValue(property, value);
+                        }
+                    }
+                }
+                for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+                    String upperColumn = propertyMapping.getUpperColumn();
+                    if (upperColumn != null && mappedColumnNames.contains(upperColumn)) {
+                        Object value = propertyMapping.getTypeHandler().getResult(rs, rsw.getColumnIndex(upperColumn));
+                        if (value != null && propertyMapping.getProperty() != null) {
+                            metaObject.setValue(propertyMapping.getProperty(), value);
+                        }
+                    }
+                }
+                blackhole.consume(rowValue);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RowMappingBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,21 @@
+package cn.myth.mybatis.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 键集分页注解，标注在返回 KeysetIterator 的查询方法上
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Keyset {
+
+    /** 排序键属性 */
+    String property();
+
+    /** 每页行数 */
+    int pageSize() default 1000;
+
+}
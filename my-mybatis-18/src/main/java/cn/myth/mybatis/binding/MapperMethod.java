@@ -1,12 +1,21 @@
 package cn.myth.mybatis.binding;
 
+import cn.myth.mybatis.annotations.Keyset;
+import cn.myth.mybatis.cursor.Cursor;
+import cn.myth.mybatis.cursor.KeysetIterator;
 import cn.myth.mybatis.mapping.MappedStatement;
 import cn.myth.mybatis.mapping.SqlCommandType;
 import cn.myth.mybatis.session.Configuration;
+import cn.myth.mybatis.session.ResultHandler;
+import cn.myth.mybatis.session.RowBounds;
 import cn.myth.mybatis.session.SqlSession;
 
+import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 映射器方法
@@ -22,6 +31,9 @@ public class MapperMethod {
     }
 
     public Object execute(SqlSession sqlSession, Object[] args) {
+        if (method.returnsFuture) {
+            return executeAsync(sqlSession, args);
+        }
         Object result = null;
         switch (command.getType()) {
             case INSERT: {
@@ -41,8 +53,16 @@ public class MapperMethod {
             }
             case SELECT: {
                 Object param = method.convertArgsToSqlCommandParam(args);
-                if (method.returnMany) {
-                    result = sqlSession.selectList(command.getName(), param);
+                if (method.returnsVoid && method.hasResultHandler()) {
+                    // 方法参数带 ResultHandler 且无返回值，结果逐行交给处理器
+                    sqlSession.select(command.getName(), param, method.extractRowBounds(args), method.extractResultHandler(args));
+                    result = null;
+                } else if (method.keyset != null) {
+                    result = sqlSession.selectKeyset(command.getName(), param, method.keyset.property(), method.keyset.pageSize());
+                } else if (method.returnsCursor) {
+                    result = sqlSession.selectCursor(command.getName(), param, method.extractRowBounds(args));
+                } else if (method.returnMany) {
+                    result = sqlSession.selectList(command.getName(), param, method.extractRowBounds(args));
                 } else {
                     result = sqlSession.selectOne(command.getName(), param);
                 }
@@ -54,6 +74,28 @@ public class MapperMethod {
         return result;
     }
 
+    /**
+     * 返回 CompletableFuture 的映射器方法，语句提交到会话的异步队列执行
+     */
+    private Object executeAsync(SqlSession sqlSession, Object[] args) {
+        Object param = method.convertArgsToSqlCommandParam(args);
+        switch (command.getType()) {
+            case INSERT:
+                return sqlSession.insertAsync(command.getName(), param);
+            case DELETE:
+                return sqlSession.deleteAsync(command.getName(), param);
+            case UPDATE:
+                return sqlSession.updateAsync(command.getName(), param);
+            case SELECT:
+                if (method.futureReturnsMany) {
+                    return sqlSession.selectListAsync(command.getName(), param, method.extractRowBounds(args));
+                }
+                return sqlSession.selectOneAsync(command.getName(), param);
+            default:
+                throw new RuntimeException("Unknown execution method for: " + command.getName());
+        }
+    }
+
     /**
      * SQL 指令
      */
@@ -85,12 +127,32 @@ public class MapperMethod {
     public static class MethodSignature {
 
         private final boolean returnMany;
+        private final boolean returnsCursor;
+        private final boolean returnsVoid;
+        // 返回 CompletableFuture<T>，以及 T 是否为集合
+        private final boolean returnsFuture;
+        private final boolean futureReturnsMany;
+        // 返回 KeysetIterator 时的键集分页配置
+        private final Keyset keyset;
+        // RowBounds、ResultHandler 参数的下标，不作为SQL参数
+        private final Integer rowBoundsIndex;
+        private final Integer resultHandlerIndex;
         private final Class<?> returnType;
         private final SortedMap<Integer, String> params;
 
         public MethodSignature(Configuration configuration, Method method) {
             this.returnType = method.getReturnType();
             this.returnMany = (configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray());
+            this.returnsCursor = Cursor.class.equals(this.returnType);
+            this.returnsVoid = void.class.equals(this.returnType);
+            this.returnsFuture = CompletableFuture.class.equals(this.returnType);
+            this.futureReturnsMany = this.returnsFuture && isFutureOfMany(configuration, method);
+            this.keyset = KeysetIterator.class.equals(this.returnType) ? method.getAnnotation(Keyset.class) : null;
+            if (KeysetIterator.class.equals(this.returnType) && this.keyset == null) {
+                throw new RuntimeException("Mapper method " + method.getName() + " returns KeysetIterator but is not annotated with @Keyset");
+            }
+            this.rowBoundsIndex = getUniqueParamIndex(method, RowBounds.class);
+            this.resultHandlerIndex = getUniqueParamIndex(method, ResultHandler.class);
             this.params = Collections.unmodifiableSortedMap(getParams(method));
         }
 
@@ -129,6 +191,9 @@ public class MapperMethod {
             final SortedMap<Integer, String> params = new TreeMap<>();
             final Class<?>[] argTypes = method.getParameterTypes();
             for (int i = 0; i < argTypes.length; i++) {
+                if (RowBounds.class.isAssignableFrom(argTypes[i]) || ResultHandler.class.isAssignableFrom(argTypes[i])) {
+                    continue;
+                }
                 String paramName = String.valueOf(params.size());
                 // 不做 Param 的实现，这部分不处理。如果扩展学习，需要添加 Param 注解并做扩展实现
                 params.put(i, paramName);
@@ -136,10 +201,73 @@ public class MapperMethod {
             return params;
         }
 
+        // 解析 CompletableFuture 的泛型参数，List<E>、Set<E>、数组按多条记录查询
+        private boolean isFutureOfMany(Configuration configuration, Method method) {
+            Type genericReturnType = method.getGenericReturnType();
+            if (!(genericReturnType instanceof ParameterizedType)) {
+                return false;
+            }
+            Type actualType = ((ParameterizedType) genericReturnType).getActualTypeArguments()[0];
+            if (actualType instanceof ParameterizedType) {
+                actualType = ((ParameterizedType) actualType).getRawType();
+            }
+            if (actualType instanceof GenericArrayType) {
+                return true;
+            }
+            if (actualType instanceof Class) {
+                Class<?> actualClass = (Class<?>) actualType;
+                return configuration.getObjectFactory().isCollection(actualClass) || actualClass.isArray();
+            }
+            return false;
+        }
+
+        private Integer getUniqueParamIndex(Method method, Class<?> paramType) {
+            Integer index = null;
+            final Class<?>[] argTypes = method.getParameterTypes();
+            for (int i = 0; i < argTypes.length; i++) {
+                if (paramType.isAssignableFrom(argTypes[i])) {
+                    if (index == null) {
+                        index = i;
+                    } else {
+                        throw new RuntimeException(method.getName() + " cannot have multiple " + paramType.getSimpleName() + " parameters");
+                    }
+                }
+            }
+            return index;
+        }
+
+        public boolean hasRowBounds() {
+            return rowBoundsIndex != null;
+        }
+
+        public RowBounds extractRowBounds(Object[] args) {
+            return hasRowBounds() ? (RowBounds) args[rowBoundsIndex] : RowBounds.DEFAULT;
+        }
+
+        public boolean hasResultHandler() {
+            return resultHandlerIndex != null;
+        }
+
+        public ResultHandler extractResultHandler(Object[] args) {
+            return hasResultHandler() ? (ResultHandler) args[resultHandlerIndex] : null;
+        }
+
+        public boolean returnsVoid() {
+            return returnsVoid;
+        }
+
         public boolean returnsMany() {
             return returnMany;
         }
 
+        public boolean returnsFuture() {
+            return returnsFuture;
+        }
+
+        public boolean returnsCursor() {
+            return returnsCursor;
+        }
+
     }
 
     /**
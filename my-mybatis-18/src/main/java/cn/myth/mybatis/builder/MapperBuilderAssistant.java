@@ -70,7 +70,31 @@ public class MapperBuilderAssistant extends BaseBuilder {
             KeyGenerator keyGenerator,
             String keyProperty,
             LanguageDriver lang
+    ) {
+        return addMappedStatement(id, sqlSource, sqlCommandType, parameterType, resultMap, resultType,
+                flushCache, useCache, keyGenerator, keyProperty, lang, null, false);
+    }
 
+    /**
+     * 添加映射器语句
+     *
+     * @param coalesce 是否合并相同查询，null 时使用全局配置 coalesceQueries
+     * @param readOnly 结果是否只读，合并时只读结果直接共享给等待方
+     */
+    public MappedStatement addMappedStatement(
+            String id,
+            SqlSource sqlSource,
+            SqlCommandType sqlCommandType,
+            Class<?> parameterType,
+            String resultMap,
+            Class<?> resultType,
+            boolean flushCache,
+            boolean useCache,
+            KeyGenerator keyGenerator,
+            String keyProperty,
+            LanguageDriver lang,
+            Boolean coalesce,
+            boolean readOnly
     ) {
         // 给id加上namespace前缀：cn.myth.mybatis.test.dao.IUserDao.queryUserInfoById
         id = applyCurrentNamespace(id, false);// cn.myth.mybatis.test.dao.IActivityDao.insert!selectKey
@@ -85,6 +109,8 @@ public class MapperBuilderAssistant extends BaseBuilder {
         // 结果映射，给 MappedStatement#resultMaps
         setStatementResultMap(resultMap, resultType, statementBuilder);
         setStatementCache(isSelect, flushCache, useCache, currentCache, statementBuilder);
+        statementBuilder.coalesce(isSelect && (coalesce == null ? configuration.isCoalesceQueries() : coalesce));
+        statementBuilder.readOnly(readOnly);
 
         MappedStatement statement = statementBuilder.build();
         // 映射语句信息，建造完存放到配置项中
@@ -160,13 +186,35 @@ public class MapperBuilderAssistant extends BaseBuilder {
             String column,
             List<ResultFlag> flags
     ) {
-        // 获取resultType里属性当前SET方法的参数类型
-        Class<?> javaTypeClass = resolveResultJavaType(resultType, property, null);
+        return buildResultMapping(resultType, property, column, null, flags);
+    }
+
+    public ResultMapping buildResultMapping(
+            Class<?> resultType,
+            String property,
+            String column,
+            Class<?> javaType,
+            List<ResultFlag> flags
+    ) {
+        return buildResultMapping(resultType, property, column, javaType, false, flags);
+    }
+
+    public ResultMapping buildResultMapping(
+            Class<?> resultType,
+            String property,
+            String column,
+            Class<?> javaType,
+            boolean intern,
+            List<ResultFlag> flags
+    ) {
+        // 未指定 javaType 时，获取resultType里属性当前SET方法的参数类型
+        Class<?> javaTypeClass = resolveResultJavaType(resultType, property, javaType);
         TypeHandler<?> typeHandlerInstance = resolveTypeHandler(javaTypeClass, null);
 
         // 构建ResultMapping
         ResultMapping.Builder builder = new ResultMapping.Builder(configuration, property, column, javaTypeClass);
         builder.typeHandler(typeHandlerInstance);
+        builder.intern(intern);
         builder.flags(flags);
 
         return builder.build();
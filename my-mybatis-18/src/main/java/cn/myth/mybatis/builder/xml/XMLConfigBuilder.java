@@ -6,6 +6,7 @@ import cn.myth.mybatis.io.Resources;
 import cn.myth.mybatis.mapping.Environment;
 import cn.myth.mybatis.plugin.Interceptor;
 import cn.myth.mybatis.session.Configuration;
+import cn.myth.mybatis.session.ExecutorType;
 import cn.myth.mybatis.session.LocalCacheScope;
 import cn.myth.mybatis.transaction.TransactionFactory;
 import org.dom4j.Document;
@@ -55,6 +56,8 @@ public class XMLConfigBuilder extends BaseBuilder {
             environmentsElement(root.element("environments"));
             // 解析映射器
             mapperElement(root.element("mappers"));
+            // 配置完成，之后类型处理器的注册走写时复制
+            configuration.getTypeHandlerRegistry().freeze();
         } catch (Exception e) {
             throw new RuntimeException("Error parsing SQL Mapper Configuration. Cause: " + e, e);
         }
@@ -96,6 +99,22 @@ public class XMLConfigBuilder extends BaseBuilder {
      *     <setting name="cacheEnabled" value="true"/>
      *     <!--缓存级别：SESSION/STATEMENT-->
      *     <setting name="localCacheScope" value="STATEMENT"/>
+     *     <!--执行器类型：SIMPLE/REUSE/BATCH-->
+     *     <setting name="defaultExecutorType" value="BATCH"/>
+     *     <!--批量执行器的批次阈值-->
+     *     <setting name="batchSize" value="1000"/>
+     *     <!--游标查询的fetchSize-->
+     *     <setting name="cursorFetchSize" value="1000"/>
+     *     <!--分页方言：MYSQL/H2/POSTGRESQL，不配置时自动识别-->
+     *     <setting name="dialect" value="MYSQL"/>
+     *     <!--异步语句线程池大小，不配置时 JDK 21+ 使用虚拟线程-->
+     *     <setting name="asyncPoolSize" value="16"/>
+     *     <!--合并相同的并发查询，语句上可用 coalesce 属性单独配置-->
+     *     <setting name="coalesceQueries" value="false"/>
+     *     <!--自动映射计划缓存容量，0 表示不缓存-->
+     *     <setting name="autoMappingPlanCacheSize" value="1024"/>
+     *     <!--字符串去重表容量，映射上配置 intern="true" 的列各自一张表-->
+     *     <setting name="stringInternTableSize" value="4096"/>
      * </settings>
      */
     private void settingsElement(Element context) {
@@ -109,6 +128,25 @@ public class XMLConfigBuilder extends BaseBuilder {
         configuration.setCacheEnabled(booleanValueOf(props.getProperty("cacheEnabled"), true));
         // 设置缓存级别
         configuration.setLocalCacheScope(LocalCacheScope.valueOf(props.getProperty("localCacheScope")));
+        // 设置执行器类型
+        configuration.setDefaultExecutorType(ExecutorType.valueOf(props.getProperty("defaultExecutorType", "SIMPLE")));
+        // 设置批次阈值
+        configuration.setBatchSize(Integer.parseInt(props.getProperty("batchSize", "1000")));
+        // 设置游标fetchSize
+        configuration.setCursorFetchSize(Integer.parseInt(props.getProperty("cursorFetchSize", "1000")));
+        // 设置异步线程池大小
+        configuration.setAsyncPoolSize(Integer.parseInt(props.getProperty("asyncPoolSize", "0")));
+        // 设置查询合并
+        configuration.setCoalesceQueries(booleanValueOf(props.getProperty("coalesceQueries"), false));
+        // 设置自动映射计划缓存容量
+        configuration.setAutoMappingPlanCacheSize(Integer.parseInt(props.getProperty("autoMappingPlanCacheSize", "1024")));
+        // 设置字符串去重表容量
+        configuration.setStringInternTableSize(Integer.parseInt(props.getProperty("stringInternTableSize", "4096")));
+        // 设置分页方言
+        String dialect = props.getProperty("dialect");
+        if (dialect != null) {
+            configuration.setDialect(configuration.getDialectRegistry().getDialect(dialect));
+        }
     }
 
     /**
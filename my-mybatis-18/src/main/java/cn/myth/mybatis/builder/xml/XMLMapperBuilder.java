@@ -130,6 +130,12 @@ public class XMLMapperBuilder extends BaseBuilder {
      * <result column="create_time" property="createTime"/>
      * <result column="update_time" property="updateTime"/>
      * </resultMap>
+     *
+     * 不可变对象通过构造函数映射：
+     * <constructor>
+     *     <idArg column="id" javaType="_long" name="id"/>
+     *     <arg column="activity_name" javaType="string" name="activityName"/>
+     * </constructor>
      */
     private ResultMap resultMapElements(Element resultMapNode, List<ResultMapping> additionalResultMappings) throws Exception {
         String id = resultMapNode.attributeValue("id");
@@ -141,6 +147,10 @@ public class XMLMapperBuilder extends BaseBuilder {
 
         List<Element> resultChildren = resultMapNode.elements();
         for (Element resultChild : resultChildren) {
+            if ("constructor".equals(resultChild.getName())) {
+                processConstructorElement(resultChild, typeClass, resultMappings);
+                continue;
+            }
             List<ResultFlag> flags = new ArrayList<>();
             if ("id".equals(resultChild.getName())) {
                 flags.add(ResultFlag.ID);
@@ -154,14 +164,39 @@ public class XMLMapperBuilder extends BaseBuilder {
         return resultMapResolver.resolve();
     }
 
+    /**
+     * <constructor> 下的 <idArg>、<arg>，按出现顺序对应构造函数参数
+     */
+    private void processConstructorElement(Element resultChild, Class<?> resultType, List<ResultMapping> resultMappings) throws Exception {
+        List<Element> argChildren = resultChild.elements();
+        for (Element argChild : argChildren) {
+            List<ResultFlag> flags = new ArrayList<>();
+            flags.add(ResultFlag.CONSTRUCTOR);
+            if ("idArg".equals(argChild.getName())) {
+                flags.add(ResultFlag.ID);
+            }
+            resultMappings.add(buildResultMappingFromContext(argChild, resultType, flags));
+        }
+    }
+
     /**
      * <id column="id" property="id"/>
      * <result column="activity_id" property="activityId"/>
+     * <arg column="activity_id" javaType="_long" name="activityId"/>
+     * <result column="status" property="status" intern="true"/> 低基数的字符串列去重
      */
     private ResultMapping buildResultMappingFromContext(Element context, Class<?> resultType, List<ResultFlag> flags) throws Exception {
-        String column = context.attributeValue("column");// 需要被映射的属性，如：activityId
-        String property = context.attributeValue("property");// 原列，如activity_id
-        return builderAssistant.buildResultMapping(resultType, property, column, flags);
+        String property;
+        if (flags.contains(ResultFlag.CONSTRUCTOR)) {
+            // 构造函数参数名，可选
+            property = context.attributeValue("name");
+        } else {
+            property = context.attributeValue("property");// 需要被映射的属性，如：activityId
+        }
+        String column = context.attributeValue("column");// 原列，如activity_id
+        Class<?> javaType = resolveClass(context.attributeValue("javaType"));
+        boolean intern = Boolean.parseBoolean(context.attributeValue("intern"));
+        return builderAssistant.buildResultMapping(resultType, property, column, javaType, intern, flags);
     }
 
     // 配置select|insert|update|delete
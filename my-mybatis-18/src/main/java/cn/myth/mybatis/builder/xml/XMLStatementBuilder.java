@@ -40,6 +40,8 @@ public class XMLStatementBuilder extends BaseBuilder {
     //  resultMap="personResultMap"
     //  flushCache="false"
     //  useCache="true"
+    //  coalesce="true"
+    //  readOnly="true"
     //  timeout="10000"
     //  fetchSize="256"
     //  statementType="PREPARED"
@@ -63,6 +65,10 @@ public class XMLStatementBuilder extends BaseBuilder {
         boolean isSelect = sqlCommandType == SqlCommandType.SELECT;
         boolean flushCache = Boolean.parseBoolean(element.attributeValue("flushCache", String.valueOf(!isSelect)));
         boolean useCache = Boolean.parseBoolean(element.attributeValue("useCache", String.valueOf(isSelect)));
+        // 相同查询合并，不配置时使用全局设置
+        String coalesceAttr = element.attributeValue("coalesce");
+        Boolean coalesce = coalesceAttr == null ? null : Boolean.valueOf(coalesceAttr);
+        boolean readOnly = Boolean.parseBoolean(element.attributeValue("readOnly", "false"));
 
         // 获取默认语言驱动器
         Class<?> langClass = configuration.getLanguageRegistry().getDefaultDriverClass();
@@ -99,7 +105,9 @@ public class XMLStatementBuilder extends BaseBuilder {
                 useCache,
                 keyGenerator,
                 keyProperty,
-                langDriver);
+                langDriver,
+                coalesce,
+                readOnly);
     }
 
     /**
@@ -0,0 +1,27 @@
+package cn.myth.mybatis.cursor;
+
+import java.io.Closeable;
+
+/**
+ * 游标
+ * 查询结果不再一次性放入List，而是在迭代时每次从 ResultSet 中读取并映射一行，适合导出等大数据量的场景。
+ * 游标持有打开的 ResultSet 和 Statement，使用完毕需要关闭（或者迭代到最后一行自动关闭）。
+ * @param <T> 行对象类型
+ */
+public interface Cursor<T> extends Closeable, Iterable<T> {
+
+    /**
+     * 游标已开始从数据库读取数据
+     */
+    boolean isOpen();
+
+    /**
+     * 游标中的数据已全部读取完毕
+     */
+    boolean isConsumed();
+
+    /**
+     * 当前读到的行下标，从0开始；还没有读取时返回-1
+     */
+    int getCurrentIndex();
+}
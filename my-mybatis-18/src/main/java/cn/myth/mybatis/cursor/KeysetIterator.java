@@ -0,0 +1,163 @@
+package cn.myth.mybatis.cursor;
+
+import cn.myth.mybatis.executor.Executor;
+import cn.myth.mybatis.executor.async.SerialTaskQueue;
+import cn.myth.mybatis.mapping.MappedStatement;
+import cn.myth.mybatis.mapping.ResultMap;
+import cn.myth.mybatis.mapping.ResultMapping;
+import cn.myth.mybatis.session.Configuration;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 键集（seek）分页迭代器
+ * 以排序键代替 OFFSET 翻页：每页语句都带上 WHERE key > 上一页最后一行的键值，深度翻页时数据库不需要再扫描并丢弃前面的行。
+ * 使用方消费当前页时，下一页的查询已经提交到会话的异步任务队列，在共享的异步线程池中执行。
+ * 预读与会话上的其他异步语句串行执行，同步语句执行前也会等待预读结束，所以执行器不会被并发调用；
+ * 迭代器登记在会话上，关闭会话时一并关闭，中途放弃迭代时也可以自行调用 close。
+ * @param <T> 行对象类型
+ */
+public class KeysetIterator<T> implements Iterator<T>, Closeable {
+
+    private final Executor executor;
+    private final MappedStatement ms;
+    private final Object parameter;
+    private final String keyProperty;
+    private final String keyColumn;
+    private final int pageSize;
+    private final Configuration configuration;
+
+    // 会话的异步任务队列，预读在队列中与其他异步语句依次执行
+    private final SerialTaskQueue taskQueue;
+    private CompletableFuture<List<T>> nextPage;
+
+    private Iterator<T> current = Collections.<T>emptyList().iterator();
+    private boolean lastPage;
+    private boolean closed;
+
+    public KeysetIterator(Executor executor, SerialTaskQueue taskQueue, MappedStatement ms, Object parameter, String keyProperty, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Keyset page size must be greater than 0");
+        }
+        this.executor = executor;
+        this.ms = ms;
+        this.parameter = parameter;
+        this.keyProperty = keyProperty;
+        this.keyColumn = resolveKeyColumn(ms, keyProperty);
+        this.pageSize = pageSize;
+        this.configuration = ms.getConfiguration();
+        this.taskQueue = taskQueue;
+        // 第一页没有键值条件
+        this.nextPage = prefetch(null);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (current.hasNext()) {
+            return true;
+        }
+        if (closed || lastPage) {
+            return false;
+        }
+        List<T> page = awaitNextPage();
+        // 不满一页说明已经是最后一页，不再预读
+        if (page.size() < pageSize) {
+            lastPage = true;
+        } else {
+            nextPage = prefetch(readKey(page.get(page.size() - 1)));
+        }
+        current = page.iterator();
+        return current.hasNext();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (nextPage != null) {
+            // 等待已提交的预读结束，避免和使用方后续的语句同时使用连接
+            try {
+                nextPage.get();
+            } catch (Exception ignore) {
+            }
+            nextPage = null;
+        }
+    }
+
+    /**
+     * 已读完最后一页或已关闭，不再有进行中的预读
+     */
+    public boolean isDone() {
+        return closed || lastPage;
+    }
+
+    private CompletableFuture<List<T>> prefetch(Object lastSeen) {
+        return taskQueue.submit(() -> {
+            try {
+                return executor.<T>queryKeysetPage(ms, parameter, keyColumn, lastSeen, pageSize);
+            } catch (SQLException e) {
+                throw new RuntimeException("Error querying database.  Cause: " + e, e);
+            }
+        });
+    }
+
+    private List<T> awaitNextPage() {
+        try {
+            return nextPage.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new RuntimeException("Interrupted while waiting for keyset page of " + ms.getId(), e);
+        } catch (ExecutionException e) {
+            close();
+            throw new RuntimeException("Error fetching keyset page of " + ms.getId() + ". Cause: " + e.getCause(), e.getCause());
+        } finally {
+            nextPage = null;
+        }
+    }
+
+    // 通过 MetaObject 读取最后一行的排序键，简单类型的结果本身就是键
+    private Object readKey(T row) {
+        if (row == null || configuration.getTypeHandlerRegistry().hasTypeHandler(row.getClass())) {
+            return row;
+        }
+        Object key = configuration.newMetaObject(row).getValue(keyProperty);
+        if (key == null) {
+            throw new RuntimeException("Keyset property '" + keyProperty + "' of " + ms.getId() + " is null.");
+        }
+        return key;
+    }
+
+    // 排序键属性对应的列名，优先取 ResultMap 中配置的映射，否则认为列名与属性名相同
+    private static String resolveKeyColumn(MappedStatement ms, String keyProperty) {
+        List<ResultMap> resultMaps = ms.getResultMaps();
+        if (resultMaps != null) {
+            for (ResultMap resultMap : resultMaps) {
+                for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+                    if (keyProperty.equals(resultMapping.getProperty()) && resultMapping.getColumn() != null) {
+                        return resultMapping.getColumn();
+                    }
+                }
+            }
+        }
+        return keyProperty;
+    }
+
+}
@@ -0,0 +1,190 @@
+package cn.myth.mybatis.cursor.defaults;
+
+import cn.myth.mybatis.cursor.Cursor;
+import cn.myth.mybatis.executor.resulset.DefaultResultSetHandler;
+import cn.myth.mybatis.executor.resulset.ResultSetWrapper;
+import cn.myth.mybatis.mapping.ResultMap;
+import cn.myth.mybatis.session.ResultContext;
+import cn.myth.mybatis.session.ResultHandler;
+import cn.myth.mybatis.session.RowBounds;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 默认游标实现
+ * 每次 next() 只让结果集处理器从 ResultSet 映射一行，内存占用与总行数无关
+ */
+public class DefaultCursor<T> implements Cursor<T> {
+
+    // 每次只取一行
+    private static final RowBounds ONE_ROW = new RowBounds(RowBounds.NO_ROW_OFFSET, 1);
+
+    private final DefaultResultSetHandler resultSetHandler;
+    private final ResultMap resultMap;
+    private final ResultSetWrapper rsw;
+    private final RowBounds rowBounds;
+    private final ObjectWrapperResultHandler<T> objectWrapperResultHandler = new ObjectWrapperResultHandler<>();
+
+    private final CursorIterator cursorIterator = new CursorIterator();
+    private boolean iteratorRetrieved;
+
+    private CursorStatus status = CursorStatus.CREATED;
+    private int indexWithRowBound = -1;
+
+    private enum CursorStatus {
+        // 刚创建，还没有读取数据
+        CREATED,
+        // 正在读取数据
+        OPEN,
+        // 被使用方提前关闭
+        CLOSED,
+        // 数据已读取完毕，游标已关闭
+        CONSUMED
+    }
+
+    public DefaultCursor(DefaultResultSetHandler resultSetHandler, ResultMap resultMap, ResultSetWrapper rsw, RowBounds rowBounds) {
+        this.resultSetHandler = resultSetHandler;
+        this.resultMap = resultMap;
+        this.rsw = rsw;
+        this.rowBounds = rowBounds;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return status == CursorStatus.OPEN;
+    }
+
+    @Override
+    public boolean isConsumed() {
+        return status == CursorStatus.CONSUMED;
+    }
+
+    @Override
+    public int getCurrentIndex() {
+        return rowBounds.getOffset() + cursorIterator.iteratorIndex;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        if (iteratorRetrieved) {
+            throw new IllegalStateException("Cannot open more than one iterator on a Cursor");
+        }
+        if (isClosed()) {
+            throw new IllegalStateException("A Cursor is already closed.");
+        }
+        iteratorRetrieved = true;
+        return cursorIterator;
+    }
+
+    @Override
+    public void close() {
+        if (isClosed()) {
+            return;
+        }
+        // 只关闭结果集，Statement 由执行器设置 closeOnCompletion 随之关闭
+        ResultSet rs = rsw.getResultSet();
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+        } catch (SQLException ignore) {
+        } finally {
+            status = CursorStatus.CLOSED;
+        }
+    }
+
+    protected T fetchNextUsingRowBound() {
+        T result = fetchNextObjectFromDatabase();
+        // 跳过 offset 之前的行
+        while (result != null && indexWithRowBound < rowBounds.getOffset()) {
+            result = fetchNextObjectFromDatabase();
+        }
+        return result;
+    }
+
+    protected T fetchNextObjectFromDatabase() {
+        if (isClosed()) {
+            return null;
+        }
+        try {
+            status = CursorStatus.OPEN;
+            if (!rsw.getResultSet().isClosed()) {
+                resultSetHandler.handleRowValues(rsw, resultMap, objectWrapperResultHandler, ONE_ROW, null);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching next row from cursor.  Cause: " + e, e);
+        }
+
+        T next = objectWrapperResultHandler.result;
+        if (next != null) {
+            indexWithRowBound++;
+        }
+        // 没有更多数据，或者超过 limit，游标读取完毕
+        if (next == null || getReadItemsCount() == rowBounds.getOffset() + rowBounds.getLimit()) {
+            close();
+            status = CursorStatus.CONSUMED;
+        }
+        objectWrapperResultHandler.result = null;
+        return next;
+    }
+
+    private boolean isClosed() {
+        return status == CursorStatus.CLOSED || status == CursorStatus.CONSUMED;
+    }
+
+    private int getReadItemsCount() {
+        return indexWithRowBound + 1;
+    }
+
+    /**
+     * 只保存最近一行的结果处理器
+     */
+    private static class ObjectWrapperResultHandler<T> implements ResultHandler {
+
+        private T result;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void handleResult(ResultContext context) {
+            this.result = (T) context.getResultObject();
+        }
+    }
+
+    private class CursorIterator implements Iterator<T> {
+
+        // 预读的下一行
+        private T object;
+        // 已返回给使用方的行下标
+        private int iteratorIndex = -1;
+
+        @Override
+        public boolean hasNext() {
+            if (object == null) {
+                object = fetchNextUsingRowBound();
+            }
+            return object != null;
+        }
+
+        @Override
+        public T next() {
+            T next = object;
+            if (next == null) {
+                next = fetchNextUsingRowBound();
+            }
+            if (next != null) {
+                object = null;
+                iteratorIndex++;
+                return next;
+            }
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Cannot remove element from Cursor");
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package cn.myth.mybatis.datasource.pooled;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 连接袋，连接池的无锁核心
+ * 1.所有连接放在共享列表中，借出、归还只通过 PooledConnection 的状态 CAS 完成，不持有任何监视器
+ * 2.每个线程记住自己最近归还的连接，下次借用先从中 CAS，命中时不需要扫描共享列表
+ * 3.没有可用连接时在公平的交接队列上等待；归还连接时若有等待者，直接交给最先等待的一个，不会唤醒所有线程
+ * 等待使用 SynchronousQueue，内部基于 LockSupport，虚拟线程等待时不会钉住载体线程；
+ * 虚拟线程通常一个任务一个，不记录线程亲和，避免为每个虚拟线程创建列表
+ */
+public class ConnectionBag {
+
+    private static final int THREAD_LIST_SIZE = 16;
+    // JDK 21+ 的 Thread#isVirtual，低版本为 null
+    private static final MethodHandle IS_VIRTUAL = isVirtualHandle();
+
+    private final CopyOnWriteArrayList<PooledConnection> sharedList = new CopyOnWriteArrayList<>();
+    // 线程最近归还的连接，只由所属线程读写；弱引用，连接被移除后不会因线程存活而无法回收
+    private final ThreadLocal<List<WeakReference<PooledConnection>>> threadList = ThreadLocal.withInitial(() -> new ArrayList<>(THREAD_LIST_SIZE));
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final SynchronousQueue<PooledConnection> handoffQueue = new SynchronousQueue<>(true);
+
+    /**
+     * 借用空闲连接，不等待
+     * @return 没有空闲连接时返回 null
+     */
+    public PooledConnection poll() {
+        // 先找本线程最近归还的连接，后归还的先用
+        if (!isVirtual(Thread.currentThread())) {
+            final List<WeakReference<PooledConnection>> list = threadList.get();
+            for (int i = list.size() - 1; i >= 0; i--) {
+                final PooledConnection connection = list.remove(i).get();
+                if (connection != null && connection.compareAndSetState(PooledConnection.STATE_NOT_IN_USE, PooledConnection.STATE_IN_USE)) {
+                    return connection;
+                }
+            }
+        }
+        for (PooledConnection connection : sharedList) {
+            if (connection.compareAndSetState(PooledConnection.STATE_NOT_IN_USE, PooledConnection.STATE_IN_USE)) {
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 借用连接，没有空闲连接时等待归还的连接交接过来
+     * 登记为等待者之后会再扫描一次共享列表，避免在扫描与等待之间归还的连接被错过
+     * @return 超时返回 null
+     */
+    public PooledConnection borrow(long timeout, TimeUnit unit) throws InterruptedException {
+        PooledConnection connection = poll();
+        if (connection != null) {
+            return connection;
+        }
+        waiters.incrementAndGet();
+        try {
+            for (PooledConnection candidate : sharedList) {
+                if (candidate.compareAndSetState(PooledConnection.STATE_NOT_IN_USE, PooledConnection.STATE_IN_USE)) {
+                    return candidate;
+                }
+            }
+            long remaining = unit.toNanos(timeout);
+            while (remaining > 0) {
+                final long start = System.nanoTime();
+                connection = handoffQueue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (connection == null) {
+                    return null;
+                }
+                // 交接过来的连接也可能已被扫描共享列表的线程抢先拿走
+                if (connection.compareAndSetState(PooledConnection.STATE_NOT_IN_USE, PooledConnection.STATE_IN_USE)) {
+                    return connection;
+                }
+                remaining -= System.nanoTime() - start;
+            }
+            return null;
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * 归还连接：有等待者时交给其中一个，否则放回空闲状态并记在当前线程上
+     */
+    public void requite(PooledConnection connection) {
+        connection.setState(PooledConnection.STATE_NOT_IN_USE);
+        if (handoff(connection)) {
+            return;
+        }
+        if (!isVirtual(Thread.currentThread())) {
+            final List<WeakReference<PooledConnection>> list = threadList.get();
+            if (list.size() < THREAD_LIST_SIZE) {
+                list.add(new WeakReference<>(connection));
+            }
+        }
+    }
+
+    /**
+     * 加入新建的连接，连接的初始状态由调用方决定
+     */
+    public void add(PooledConnection connection) {
+        sharedList.add(connection);
+    }
+
+    /**
+     * 把空闲连接交给等待者，后台新建的连接加入连接袋后也通过这里交出
+     * @return 连接已交给等待者或已被别的线程拿走时返回 true，没有等待者时返回 false，连接保持空闲
+     */
+    public boolean handoff(PooledConnection connection) {
+        for (int i = 0; waiters.get() > 0; i++) {
+            // 已被别的线程拿走，或成功交给一个等待者
+            if (connection.getState() != PooledConnection.STATE_NOT_IN_USE || handoffQueue.offer(connection)) {
+                return true;
+            }
+            // 等待者已登记但还没进入 poll，短暂让出
+            if ((i & 0xff) == 0xff) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+            } else {
+                Thread.yield();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 移除连接，连接状态需已由调用方置为 REMOVED
+     */
+    public boolean remove(PooledConnection connection) {
+        return sharedList.remove(connection);
+    }
+
+    public List<PooledConnection> values() {
+        return new ArrayList<>(sharedList);
+    }
+
+    public int size() {
+        return sharedList.size();
+    }
+
+    public int getCount(int state) {
+        int count = 0;
+        for (PooledConnection connection : sharedList) {
+            if (connection.getState() == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getWaitingThreadCount() {
+        return waiters.get();
+    }
+
+    private static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(thread);
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    private static MethodHandle isVirtualHandle() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+}
@@ -1,78 +1,107 @@
 package cn.myth.mybatis.datasource.pooled;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 池状态
+ * 连接本身由连接袋管理，这里只记录统计信息；计数都是原子变量，借出、归还时不需要加锁
  */
 public class PoolState {
 
     protected PooledDataSource dataSource;
 
-    // 空闲链接
-    protected final List<PooledConnection> idleConnections = new ArrayList<>();
-    // 活跃链接
-    protected final List<PooledConnection> activeConnections = new ArrayList<>();
+    // 连接袋，空闲和活跃连接都在其中，通过连接状态区分
+    protected final ConnectionBag bag = new ConnectionBag();
+    // 连接总数，包括正在创建的连接；新建连接前先在这里占位，保证不超过最大活跃连接数
+    protected final AtomicInteger totalConnections = new AtomicInteger();
 
     // 从连接池中获取连接的次数
-    protected long requestCount = 0;
+    protected final AtomicLong requestCount = new AtomicLong();
     // 请求连接总耗时（单位：毫秒）
-    protected long accumulatedRequestTime = 0;
+    protected final AtomicLong accumulatedRequestTime = new AtomicLong();
     // 连接执行时间总耗时
-    protected long accumulatedCheckoutTime = 0;
+    protected final AtomicLong accumulatedCheckoutTime = new AtomicLong();
     // 执行时间超时的连接数
-    protected long claimedOverdueConnectionCount = 0;// 当连接长时间未归还给连接池时，会被认为该连接超时，该字段记录了超时的连接个数
+    protected final AtomicLong claimedOverdueConnectionCount = new AtomicLong();// 当连接长时间未归还给连接池时，会被认为该连接超时，该字段记录了超时的连接个数
     // 超时时间累加值
-    protected long accumulatedCheckoutTimeOfOverdueConnections = 0;
+    protected final AtomicLong accumulatedCheckoutTimeOfOverdueConnections = new AtomicLong();
     // 等待时间累加值
-    protected long accumulatedWaitTime = 0;// 当连接池全部连接已经被占用之后，新的请求会阻塞等待，该字段就记录了累计阻塞等待总时间
+    protected final AtomicLong accumulatedWaitTime = new AtomicLong();// 当连接池全部连接已经被占用之后，新的请求会阻塞等待，该字段就记录了累计阻塞等待总时间
     // 等待时间
-    protected long hadToWaitCount = 0;// 要等待的次数，记录了阻塞等待总次数
+    protected final AtomicLong hadToWaitCount = new AtomicLong();// 要等待的次数，记录了阻塞等待总次数
     // 无效连接数
-    protected long badConnectionCount = 0;
+    protected final AtomicLong badConnectionCount = new AtomicLong();
+    // 预处理语句缓存命中、未命中、淘汰次数；在持有链接的线程上累加，不占用池锁
+    protected final AtomicLong statementCacheHitCount = new AtomicLong();
+    protected final AtomicLong statementCacheMissCount = new AtomicLong();
+    protected final AtomicLong statementCacheEvictionCount = new AtomicLong();
 
     public PoolState(PooledDataSource dataSource) {
         this.dataSource = dataSource;
     }
 
-    public synchronized long getRequestCount() {
-        return requestCount;
+    public long getRequestCount() {
+        return requestCount.get();
     }
 
-    public synchronized long getAverageRequestTime() {
-        return requestCount == 0 ? 0 : accumulatedRequestTime / requestCount;
+    public long getAverageRequestTime() {
+        long requests = requestCount.get();
+        return requests == 0 ? 0 : accumulatedRequestTime.get() / requests;
     }
 
-    public synchronized long getAverageWaitTime() {
-        return hadToWaitCount == 0 ? 0 : accumulatedWaitTime / hadToWaitCount;
+    public long getAverageWaitTime() {
+        long waits = hadToWaitCount.get();
+        return waits == 0 ? 0 : accumulatedWaitTime.get() / waits;
     }
 
-    public synchronized long getHadToWaitCount() {
-        return hadToWaitCount;
+    public long getHadToWaitCount() {
+        return hadToWaitCount.get();
     }
 
-    public synchronized long getBadConnectionCount() {
-        return badConnectionCount;
+    public long getBadConnectionCount() {
+        return badConnectionCount.get();
     }
 
-    public synchronized long getClaimedOverdueConnectionCount() {
-        return claimedOverdueConnectionCount;
+    public long getClaimedOverdueConnectionCount() {
+        return claimedOverdueConnectionCount.get();
     }
 
-    public synchronized long getAverageOverdueCheckoutTime() {
-        return claimedOverdueConnectionCount == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnections / claimedOverdueConnectionCount;
+    public long getAverageOverdueCheckoutTime() {
+        long claimed = claimedOverdueConnectionCount.get();
+        return claimed == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnections.get() / claimed;
     }
 
-    public synchronized long getAverageCheckoutTime() {
-        return requestCount == 0 ? 0 : accumulatedCheckoutTime / requestCount;
+    public long getAverageCheckoutTime() {
+        long requests = requestCount.get();
+        return requests == 0 ? 0 : accumulatedCheckoutTime.get() / requests;
     }
 
-    public synchronized int getIdleConnectionCount() {
-        return idleConnections.size();
+    public int getIdleConnectionCount() {
+        return bag.getCount(PooledConnection.STATE_NOT_IN_USE);
     }
 
-    public synchronized int getActiveConnectionCount() {
-        return activeConnections.size();
+    public int getActiveConnectionCount() {
+        return bag.getCount(PooledConnection.STATE_IN_USE);
+    }
+
+    public int getTotalConnectionCount() {
+        return totalConnections.get();
+    }
+
+    public int getWaitingThreadCount() {
+        return bag.getWaitingThreadCount();
+    }
+
+    public long getStatementCacheHitCount() {
+        return statementCacheHitCount.get();
+    }
+
+    public long getStatementCacheMissCount() {
+        return statementCacheMissCount.get();
+    }
+
+    public long getStatementCacheEvictionCount() {
+        return statementCacheEvictionCount.get();
     }
 }
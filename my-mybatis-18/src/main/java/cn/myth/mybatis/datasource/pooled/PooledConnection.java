@@ -1,85 +1,253 @@
 package cn.myth.mybatis.datasource.pooled;
 
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
- * 池化代理的链接
+ * 池化的链接，与物理连接一一对应，在连接袋中的整个生命周期内都是同一个对象
+ * 借出状态通过 CAS 切换：NOT_IN_USE -> IN_USE 为借出，IN_USE -> NOT_IN_USE 为归还，REMOVED 为已移出连接池，RESERVED 为被池内部暂时占用。
+ * 每次借出都会创建新的 ProxyConnection，使用方归还后继续持有旧的连接也无法再操作这个物理连接。
+ * 当前的 ProxyConnection 同时是本次借出的所有权凭证：使用方归还、池收回超时连接都要先把它 CAS 为 null，只有一方能成功，
+ * 归还晚于收回时不会把已经借给别人的连接再放回连接袋。
+ * 自动提交、隔离级别、只读、catalog 在本地记录，由 ProxyConnection 读取和更新；
+ * 非自动提交模式下执行过语句才记为有未结束的事务，归还时只在这种情况下回滚。
  */
-public class PooledConnection implements InvocationHandler {
+public class PooledConnection {
 
-    private static final String CLOSE = "close";
-    private static final Class<?>[] IFACES = new Class<?>[]{Connection.class};
+    public static final int STATE_NOT_IN_USE = 0;
+    public static final int STATE_IN_USE = 1;
+    public static final int STATE_REMOVED = -1;
+    public static final int STATE_RESERVED = -2;
 
-    private int hashCode = 0;
+    private static final AtomicIntegerFieldUpdater<PooledConnection> STATE_UPDATER = AtomicIntegerFieldUpdater.newUpdater(PooledConnection.class, "state");
+    private static final AtomicReferenceFieldUpdater<PooledConnection, ProxyConnection> HANDLE_UPDATER = AtomicReferenceFieldUpdater.newUpdater(PooledConnection.class, ProxyConnection.class, "handle");
 
     // 记录当前PooledConnection对象归属的PooledDataSource对象。
     // 也就是说当前PooledConnection是由该PooledDataSource对象创建的。
-    private PooledDataSource dataSource;
+    private final PooledDataSource dataSource;
 
     // 真实的链接
-    private Connection realConnection;
-    // 代理的链接
-    private Connection proxyConnection;
+    private final Connection realConnection;
+    // 本次借出的连接，归还或被收回后为 null
+    private volatile ProxyConnection handle;
+
+    private volatile int state;
 
     // 使用方从连接池中获取连接的时间戳
-    private long checkoutTimestamp;
+    private volatile long checkoutTimestamp;
     // 连接创建的时间戳
-    private long createdTimestamp;
+    private final long createdTimestamp;
     // 连接最后一次被使用的时间戳
-    private long lastUsedTimestamp;
+    private volatile long lastUsedTimestamp;
     // 数据库连接的标识。该标识是由数据库URL、username和password三部分组合计算出来的hash值，主要用于连接对象确认归属的连接池。
-    private int connectionTypeCode;
-    // 用于标识PooledConnection对象是否有效。该字段的主要目的是防止使用方将将连接归还给连接池之后，依然保留该PooledConnection对象的引用并继续通过该PooledConnection对象操作数据库。
-    private boolean valid;
+    private volatile int connectionTypeCode;
+    // 物理连接上的预处理语句缓存，未开启时为null
+    private volatile PooledStatementCache statementCache;
+    // 最近一次后台校验通过的时间戳
+    private volatile long lastValidatedTimestamp;
+    // 已到达最大存活时间，归还时关闭，不再借出
+    private volatile boolean evicted;
+    // 到达最大存活时间时执行的退役任务
+    private volatile ScheduledFuture<?> retireTask;
+
+    // 物理连接的会话状态，建连后读取一次，之后只通过 ProxyConnection 修改
+    private volatile boolean autoCommit;
+    private volatile int transactionIsolation;
+    private volatile boolean readOnly;
+    private volatile String catalog;
+    // 上次提交或回滚之后，非自动提交模式下是否执行过语句
+    private volatile boolean dirty;
 
     public PooledConnection(Connection connection, PooledDataSource dataSource) {
-        this.hashCode = connection.hashCode();
         this.realConnection = connection;
         this.dataSource = dataSource;
         this.createdTimestamp = System.currentTimeMillis();
-        this.lastUsedTimestamp = System.currentTimeMillis();
-        this.valid = true;
-        this.proxyConnection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), IFACES, this);
-    }
-
-    // 通过PooledConnection实现InvocationHandler#invoke方法，包装代理链接，这样就可以对具体的调用方法进行控制了
-    // 在invoke方法中处理对CLOSE方法控制以外，排除toString等Object的方法后，则是其他真正需要被DB链接处理的方法了
-    // 那么这里有一个对于CLOSE方法的数据源回收操作 dataSource.pushConnection(this);
-    // 有一个具体的实现方法，在池化实现类PooledDataSource中进行处理
-    @Override
-    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        String methodName = method.getName();
-        // 如果是调用 CLOSE 关闭链接方法，则将链接加入连接池中，并返回null
-        // methodName.hashCode 可以删除；https://github.com/mybatis/mybatis-3/issues/1691
-        if (CLOSE.hashCode() == methodName.hashCode() && CLOSE.equals(methodName)) {
-            dataSource.pushConnection(this);
-            return null;
-        } else {
-            if (!Object.class.equals(method.getDeclaringClass())) {
-                // 除了toString()方法，其他方法调用之前要检查connection是否还是合法的，不合法要抛出SQLException
-                checkConnection();
-            }
-            // 其他方法交给connection去调用
-            return method.invoke(realConnection, args);
-        }
+        this.lastUsedTimestamp = createdTimestamp;
+        this.lastValidatedTimestamp = createdTimestamp;
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    public void setState(int state) {
+        this.state = state;
+    }
+
+    public boolean compareAndSetState(int expect, int update) {
+        return STATE_UPDATER.compareAndSet(this, expect, update);
     }
 
-    private void checkConnection() throws SQLException {
-        if (!valid) {
-            throw new SQLException("Error accessing PooledConnection. Connection is invalid.");
+    /**
+     * 借出时调用：作废上一次借出的连接，为本次借出创建新的 ProxyConnection
+     */
+    public Connection checkout() {
+        ProxyConnection current = new ProxyConnection(this, realConnection);
+        ProxyConnection previous = HANDLE_UPDATER.getAndSet(this, current);
+        if (previous != null) {
+            previous.invalidate();
         }
+        checkoutTimestamp = System.currentTimeMillis();
+        lastUsedTimestamp = checkoutTimestamp;
+        return current;
     }
 
+    /**
+     * 作废当前借出的连接并关闭其打开的语句，之后使用方的调用都会抛出异常，close 不再归还
+     */
     public void invalidate() {
-        valid = false;
+        ProxyConnection current = HANDLE_UPDATER.getAndSet(this, null);
+        if (current != null) {
+            current.invalidate();
+        }
+    }
+
+    /**
+     * 交出本次借出的所有权，归还和收回超时连接时调用
+     * @return handle 已不是当前借出的连接（已被收回、已移除或已归还）时返回 false
+     */
+    public boolean releaseHandle(ProxyConnection expected) {
+        return expected != null && HANDLE_UPDATER.compareAndSet(this, expected, null);
+    }
+
+    ProxyConnection getHandle() {
+        return handle;
+    }
+
+    // 使用方关闭 ProxyConnection 时归还
+    void returnToPool(ProxyConnection proxyConnection) throws SQLException {
+        dataSource.pushConnection(this, proxyConnection);
+    }
+
+    /**
+     * 读取物理连接当前的会话状态，建连后在后台线程上调用一次
+     */
+    public void loadSessionState() throws SQLException {
+        this.autoCommit = realConnection.getAutoCommit();
+        this.transactionIsolation = realConnection.getTransactionIsolation();
+        this.readOnly = realConnection.isReadOnly();
+        this.catalog = realConnection.getCatalog();
+        this.dirty = false;
+    }
+
+    /**
+     * 非自动提交模式下有未结束的事务时回滚，否则不访问数据库
+     */
+    public void rollbackIfDirty() throws SQLException {
+        if (!autoCommit && dirty) {
+            realConnection.rollback();
+            dirty = false;
+        }
+    }
+
+    public boolean getAutoCommit() {
+        return autoCommit;
+    }
+
+    /**
+     * 只更新本地记录，由 ProxyConnection 在真实连接设置成功后调用；切换为自动提交会提交当前事务
+     */
+    public void setAutoCommit(boolean autoCommit) {
+        this.autoCommit = autoCommit;
+        if (autoCommit) {
+            dirty = false;
+        }
+    }
+
+    public int getTransactionIsolation() {
+        return transactionIsolation;
+    }
+
+    public void setTransactionIsolation(int transactionIsolation) {
+        this.transactionIsolation = transactionIsolation;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    public String getCatalog() {
+        return catalog;
     }
 
+    public void setCatalog(String catalog) {
+        this.catalog = catalog;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    // 执行语句或创建保存点时调用，自动提交模式下没有需要回滚的事务
+    void markDirty() {
+        if (!autoCommit) {
+            dirty = true;
+        }
+    }
+
+    void clearDirty() {
+        dirty = false;
+    }
+
+    /**
+     * 物理连接被丢弃时关闭缓存的语句
+     */
+    public void clearStatementCache() {
+        PooledStatementCache cache = statementCache;
+        if (cache != null) {
+            cache.clear();
+            statementCache = null;
+        }
+    }
+
+    public PooledStatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    public void setStatementCache(PooledStatementCache statementCache) {
+        this.statementCache = statementCache;
+    }
+
+    /**
+     * 只检查本地状态，不访问数据库；物理连接的可用性由后台保活校验
+     */
     public boolean isValid() {
-        return valid && realConnection != null && dataSource.pingConnection(this);
+        return state != STATE_REMOVED && !evicted;
+    }
+
+    public boolean isEvicted() {
+        return evicted;
+    }
+
+    public void markEvicted() {
+        this.evicted = true;
+    }
+
+    public void setRetireTask(ScheduledFuture<?> retireTask) {
+        this.retireTask = retireTask;
+    }
+
+    public void cancelRetireTask() {
+        ScheduledFuture<?> task = retireTask;
+        if (task != null) {
+            task.cancel(false);
+            retireTask = null;
+        }
+    }
+
+    public long getLastValidatedTimestamp() {
+        return lastValidatedTimestamp;
+    }
+
+    public void setLastValidatedTimestamp(long lastValidatedTimestamp) {
+        this.lastValidatedTimestamp = lastValidatedTimestamp;
     }
 
     public Connection getRealConnection() {
@@ -87,11 +255,11 @@ public class PooledConnection implements InvocationHandler {
     }
 
     public Connection getProxyConnection() {
-        return proxyConnection;
+        return handle;
     }
 
     public int getRealHashCode() {
-        return realConnection == null ? 0 : realConnection.hashCode();
+        return realConnection.hashCode();
     }
 
     public int getConnectionTypeCode() {
@@ -106,10 +274,6 @@ public class PooledConnection implements InvocationHandler {
         return createdTimestamp;
     }
 
-    public void setCreatedTimestamp(long createdTimestamp) {
-        this.createdTimestamp = createdTimestamp;
-    }
-
     public long getLastUsedTimestamp() {
         return lastUsedTimestamp;
     }
@@ -130,27 +294,12 @@ public class PooledConnection implements InvocationHandler {
         return checkoutTimestamp;
     }
 
-    public void setCheckoutTimestamp(long timestamp) {
-        this.checkoutTimestamp = timestamp;
-    }
-
     public long getCheckoutTime() {
         return System.currentTimeMillis() - checkoutTimestamp;
     }
 
-    @Override
-    public int hashCode() {
-        return hashCode;
+    static PooledConnection unwrap(Connection connection) {
+        return connection instanceof ProxyConnection ? ((ProxyConnection) connection).getPooledConnection() : null;
     }
 
-    @Override
-    public boolean equals(Object obj) {
-        if (obj instanceof PooledConnection) {
-            return realConnection.hashCode() == (((PooledConnection) obj).realConnection.hashCode());
-        } else if (obj instanceof Connection) {
-            return hashCode == obj.hashCode();
-        } else {
-            return false;
-        }
-    }
 }
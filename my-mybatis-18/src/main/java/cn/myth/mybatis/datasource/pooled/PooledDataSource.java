@@ -5,11 +5,22 @@ import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
 import java.io.PrintWriter;
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Proxy;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
+/**
+ * 池化数据源
+ * 连接存放在无锁的连接袋中，借出、归还通过连接状态的 CAS 完成，等待连接的线程在公平交接队列上排队，全程不持有监视器
+ */
 public class PooledDataSource implements DataSource {
 
     private org.slf4j.Logger logger = LoggerFactory.getLogger(PooledDataSource.class);
@@ -32,10 +43,33 @@ public class PooledDataSource implements DataSource {
     protected String poolPingQuery = "NO PING QUERY SET";
     // 开启或禁用侦测查询
     protected boolean poolPingEnabled = false;
-    // 用来配置 poolPingQuery 多次时间禁用一次
+    // 后台保活时，连接空闲超过该时间才使用 poolPingQuery 侦测，否则使用 Connection.isValid
     protected int poolPingConnectionsNotUsedFor = 0;
-
-    private int expectedConnectionTypeCode;
+    // 每个物理连接缓存的预处理语句数量，0表示不开启
+    protected int statementCacheSize = 0;
+    // 后台保持的最少空闲连接数，启动时并行预热，0表示只在借用时按需创建；不超过 poolMaximumIdleConnections
+    protected int minimumIdle = 0;
+    // 连接最大存活时间（毫秒），每个连接减去最多 2.5% 的随机抖动，避免同时退役；0表示不限制
+    protected int maxLifetime = 1800000;
+    // 超过 minimumIdle 的空闲连接，空闲超过该时间（毫秒）后关闭；0表示不关闭
+    protected int idleTimeout = 600000;
+    // 空闲连接超过该时间（毫秒）未使用或校验时在后台校验一次，防止被服务端 wait_timeout 断开；0表示不保活
+    protected int keepaliveTime = 120000;
+    // 后台校验 Connection.isValid 的超时时间（秒）
+    protected int validationTimeout = 5;
+
+    private volatile int expectedConnectionTypeCode;
+
+    // 后台建连线程池，第一次借用或工厂交出数据源时启动；借用线程只提交建连请求并等待交接，不自己建立物理连接
+    private volatile ThreadPoolExecutor connectionCreator;
+    // 已提交还未完成的建连任务数，名额已在 totalConnections 中占用
+    private final AtomicInteger pendingCreates = new AtomicInteger();
+    // 连接池代数，forceCloseAll（关闭数据源、修改连接属性）时递增；建连任务提交时记下代数，完成时代数已变则丢弃新建的连接
+    private final AtomicInteger generation = new AtomicInteger();
+    // 最近一次建连失败的异常，借用等待超时时抛出，建连成功后清除
+    private volatile SQLException lastCreateFailure;
+    // 后台维护线程：定期关闭空闲过久的连接、保活校验空闲连接，并执行各连接的退役任务
+    private volatile ScheduledThreadPoolExecutor housekeeper;
 
     public PooledDataSource() {
         this.dataSource = new UnpooledDataSource();
@@ -43,249 +77,513 @@ public class PooledDataSource implements DataSource {
 
     /**
      * pushConnection回收链接
-     * 核心在于判断链接是否有效，以及进行相关的空闲链接校验，判断是否把链接回收到空闲列表中，并通知其他线程来抢占
+     * 核心在于判断链接是否有效，以及进行相关的空闲链接校验，判断是否把链接放回连接袋，并交给等待中的线程
      * 如果现在的空闲链接充足，那么这个回收的链接则会进行回滚和关闭的处理中。connection.getRealConnection().close();
      *
-     * 1.首先将连接从活跃连接集合中移除
-     * 2.如果空闲集合未满，此时复用原连接的字段信息创建新的连接，并将其放入空闲集合中即可
-     * 3.若空闲集合已满，此时无需回收连接，直接关闭即可
+     * 1.先交出本次借出的所有权（handle CAS 为 null），失败说明已被当作超时连接收回或已被移除；再把连接从 IN_USE CAS 为 RESERVED
+     * 2.连接有效且空闲连接不足（或有线程在等待）时回滚未提交的事务，放回连接袋；有等待者时直接交给其中一个
+     * 3.否则关闭物理连接并移出连接袋
+     * 整个过程不持有锁，回滚、关闭等 JDBC 调用不会阻塞其他线程借还连接
      */
-    protected void pushConnection(PooledConnection connection) throws SQLException {
-        synchronized (state) {
-            state.activeConnections.remove(connection);
-            // 判断连接是否有效
-            if (connection.isValid()) {
-                // 如果空闲连接小于设定数量，也就是太少时
-                if (state.idleConnections.size() < poolMaximumIdleConnections && connection.getConnectionTypeCode() == expectedConnectionTypeCode) {
-                    // 它首先检查数据库连接是否处于自动提交模式，如果不是，则调用rollback()方法执行回滚操作
-                    // 在Mybatis中，如果没有开启自动提交模式，则需要手动提交或回滚事务。因此，这段代码可能是在确保操作完成后，如果没有开启自动提交模式，则执行回滚操作
-                    // 总的来说，这段代码用于保证数据库的一致性，确保操作完成后，如果未开启自动提交模式，则执行回滚操作
-                    if (!connection.getRealConnection().getAutoCommit()) {
-                        connection.getRealConnection().rollback();
-                    }
-                    // 实例化一个新的DB连接，加入到idle列表
-                    PooledConnection newConnection = new PooledConnection(connection.getRealConnection(), this);
-                    state.idleConnections.add(newConnection);
-                    newConnection.setCreatedTimestamp(connection.getCreatedTimestamp());
-                    newConnection.setLastUsedTimestamp(connection.getLastUsedTimestamp());
-                    connection.invalidate();
-                    logger.info("Returned connection " + newConnection.getRealHashCode() + " to pool.");
-
-                    // 通知其他线程可以来抢DB连接了
-                    state.notifyAll();
-                }
-                // 否则，空闲的链接还比较充足
-                else {
-                    state.accumulatedCheckoutTime += connection.getCheckoutTime();
-                    if (!connection.getRealConnection().getAutoCommit()) {
-                        connection.getRealConnection().rollback();
-                    }
-                    // 将connection关闭
-                    connection.getRealConnection().close();
-                    logger.info("Closed connection " + connection.getRealHashCode() + ".");
-                    connection.invalidate();
-                }
-            } else {
-                logger.info("A bad connection (" + connection.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
-                state.badConnectionCount++;
-            }
+    protected void pushConnection(PooledConnection connection, ProxyConnection proxyConnection) throws SQLException {
+        // 收回超时连接时也会先交出所有权，两者只有一方成功，晚到的归还不会动已经借给别人的连接
+        if (!connection.releaseHandle(proxyConnection)
+                || !connection.compareAndSetState(PooledConnection.STATE_IN_USE, PooledConnection.STATE_RESERVED)) {
+            return;
+        }
+        state.accumulatedCheckoutTime.addAndGet(connection.getCheckoutTime());
+        // 借出期间到达最大存活时间的连接，归还时关闭
+        if (connection.isEvicted()) {
+            rollbackQuietly(connection);
+            discardConnection(connection);
+            logger.info("Retired connection " + connection.getRealHashCode() + ".");
+            fillPool(0);
+            return;
+        }
+        // 判断连接是否有效
+        if (!connection.isValid()) {
+            logger.info("A bad connection (" + connection.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+            state.badConnectionCount.incrementAndGet();
+            discardConnection(connection);
+            fillPool(0);
+            return;
+        }
+        // 非自动提交模式下有未提交的事务时回滚，自动提交模式和没有执行过语句的事务不访问数据库
+        try {
+            connection.rollbackIfDirty();
+        } catch (SQLException e) {
+            discardConnection(connection);
+            throw e;
         }
+        // 空闲连接已经充足且没有线程在等待，或者连接不属于当前配置，则将connection关闭
+        boolean idleFull = state.bag.getWaitingThreadCount() == 0 && state.getIdleConnectionCount() >= poolMaximumIdleConnections;
+        if (idleFull || connection.getConnectionTypeCode() != expectedConnectionTypeCode) {
+            discardConnection(connection);
+            logger.info("Closed connection " + connection.getRealHashCode() + ".");
+            fillPool(0);
+            return;
+        }
+        connection.setLastUsedTimestamp(System.currentTimeMillis());
+        state.bag.requite(connection);
+        logger.info("Returned connection " + connection.getRealHashCode() + " to pool.");
     }
 
     /**
      * popConnection获取链接
-     * 是一个死循环操作，只有获取到链接抛出异常才会退出循环
-     * 获取链接的过程会使用synchronized进行加锁，因为所有线程在资源竞争的情况下，都需要进行加锁处理
-     * 在加锁的代码块中通过判断是否还有空闲链接进行返回，如果没有则会判断活跃链接数是否充足，不充足则进行创建后返回。
-     * 在这里也会遇到活跃链接已经进行循环等待的过程，最后再不能获取则抛出异常。
+     * 是一个循环操作，只有获取到链接或抛出异常才会退出循环，全程不持有锁
      *
-     * 1.PooledDataSource 获取连接时，如果空闲列表里有连接，可直接取用
-     * 2.没有空闲连接，活跃连接没满时会创建新连接
-     * 3.没有空闲连接，活跃连接满时如果连接时间超时，则将此连接从活跃列表删除，创建PooledConnection并复用老的realConnection
-     * 4.没有空闲连接，活跃连接满时没有连接超时时，则等待指定时间让其连接完成任务，拿到连接就退出循环
-     * 5.最终运行完毕没有拿到连接记录badConnection的记录，循环一直没有拿到连接抛出异常
+     * 1.连接袋中有空闲连接时直接 CAS 借出，优先使用本线程最近归还的连接
+     * 2.没有空闲连接，连接总数没满时请求后台线程创建新连接，借用线程不做建连的网络 I/O
+     * 3.连接总数已满时如果有借出超时的连接，则收回并复用它的物理连接
+     * 4.在交接队列上等待新建或归还的连接，最多等待 poolTimeToWait 后重新检查；期间建连失败则抛出异常
+     * 5.拿到的连接已退役或已移除时丢弃并重试，连续失败过多时抛出异常
+     * 借用方只检查连接的本地状态，物理连接的校验由后台保活完成
      */
     private PooledConnection popConnection(String username, String password) throws SQLException {
         boolean countedWait = false;
-        PooledConnection conn = null;
         long t = System.currentTimeMillis();
         int localBadConnectionCount = 0;
+        final int connectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), username, password);
 
-        while (conn == null) {
-            synchronized (state) {
-                // 如果有空闲链接：返回第一个
-                if (!state.idleConnections.isEmpty()) {
-                    conn = state.idleConnections.remove(0);
+        start();
+        while (true) {
+            PooledConnection conn = state.bag.poll();
+            if (conn == null && fillPool(1) == 0) {
+                conn = claimOverdueConnection();
+            }
+            if (conn == null) {
+                if (!countedWait) {
+                    state.hadToWaitCount.incrementAndGet();
+                    countedWait = true;
                 }
-                // 如果无空闲链接：创建新的链接
-                else {
-                    // 活跃链接数不足
-                    if (state.activeConnections.size() < poolMaximumActiveConnections) {
-                        conn = new PooledConnection(dataSource.getConnection(), this);
-                        logger.info("Created connection " + conn.getRealHashCode() + ".");
-                    }
-                    // 活跃链接数已满
-                    else {
-                        // 取得活跃链接列表的第一个，也就是最老的一个链接
-                        PooledConnection oldestActiveConnection = state.activeConnections.get(0);
-                        long longestCheckoutTime = oldestActiveConnection.getCheckoutTime();
-                        // 如果checkout时间过长，则这个链接标记为过期
-                        // 利用这个PooledConnection内部的realConnection重新生成一个PooledConnection
-                        if (longestCheckoutTime > poolMaximumCheckoutTime) {
-                            state.claimedOverdueConnectionCount++;
-                            state.accumulatedCheckoutTimeOfOverdueConnections += longestCheckoutTime;
-                            state.accumulatedRequestTime += longestCheckoutTime;
-                            state.activeConnections.remove(oldestActiveConnection);
-                            if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
-                                oldestActiveConnection.getRealConnection().rollback();
-                            }
-                            // 删掉最老的链接，然后实例化一个新的链接
-                            conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
-                            oldestActiveConnection.invalidate();
-                            logger.info("Claimed overdue connection " + conn.getRealHashCode() + ".");
-                        }
-                        // 如果checkout超时时间不够长，则等待
-                        // 如果不能释放，则必须等待 Must wait
-                        else {
-                            try {
-                                if (!countedWait) {
-                                    state.hadToWaitCount++;
-                                    countedWait = true;
-                                }
-                                logger.info("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
-                                long wt = System.currentTimeMillis();
-                                state.wait(poolTimeToWait);
-                                state.accumulatedWaitTime += System.currentTimeMillis() - wt;
-                            } catch (InterruptedException e) {
-                                break;
-                            }
-                        }
-                    }
+                logger.info("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+                long wt = System.currentTimeMillis();
+                try {
+                    conn = state.bag.borrow(poolTimeToWait, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("PooledDataSource: Interrupted while waiting for a connection.", e);
+                } finally {
+                    state.accumulatedWaitTime.addAndGet(System.currentTimeMillis() - wt);
                 }
-                // 如果获取PooledConnection成功，则更新其信息
-                if (conn != null) {
-                    if (conn.isValid()) {
-                        if (!conn.getRealConnection().getAutoCommit()) {
-                            conn.getRealConnection().rollback();
-                        }
-                        conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
-                        // 记录checkout时间
-                        conn.setCheckoutTimestamp(System.currentTimeMillis());
-                        conn.setLastUsedTimestamp(System.currentTimeMillis());
-                        state.activeConnections.add(conn);
-                        state.requestCount++;
-                        state.accumulatedRequestTime += System.currentTimeMillis() - t;
-                    }
-                } else {
-                    logger.info("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
-                    // 如果没拿到，统计信息：失败链接 + 1
-                    state.badConnectionCount++;
-                    localBadConnectionCount++;
-                    conn = null;
-                    // 失败次数较多，抛异常
-                    if (localBadConnectionCount > (poolMaximumIdleConnections + 3)) {
-                        logger.debug("PooledDataSource: Could not get a good connection to the database.");
-                        throw new SQLException("PooledDataSource: Could not get a good connection to the database.");
+                if (conn == null) {
+                    SQLException failure = lastCreateFailure;
+                    if (failure != null) {
+                        throw new SQLException("PooledDataSource: Could not create a connection. Cause: " + failure, failure);
                     }
+                    continue;
                 }
             }
+            // 如果获取PooledConnection成功，则更新其信息
+            // 池中的连接归还时已经回滚，借出时不再访问数据库
+            if (conn.isValid()) {
+                conn.setConnectionTypeCode(connectionTypeCode);
+                // 记录checkout时间，并为本次借出创建 ProxyConnection
+                conn.checkout();
+                state.requestCount.incrementAndGet();
+                state.accumulatedRequestTime.addAndGet(System.currentTimeMillis() - t);
+                return conn;
+            }
+            // 已退役的连接直接关闭，不计入失败
+            if (conn.isEvicted()) {
+                discardConnection(conn);
+                fillPool(0);
+                continue;
+            }
+            logger.info("A bad connection (" + conn.getRealHashCode() + ") was taken from the pool, getting another connection.");
+            // 如果没拿到，统计信息：失败链接 + 1
+            state.badConnectionCount.incrementAndGet();
+            localBadConnectionCount++;
+            discardConnection(conn);
+            fillPool(0);
+            // 失败次数较多，抛异常
+            if (localBadConnectionCount > (poolMaximumIdleConnections + 3)) {
+                logger.debug("PooledDataSource: Could not get a good connection to the database.");
+                throw new SQLException("PooledDataSource: Could not get a good connection to the database.");
+            }
         }
+    }
 
-        if (conn == null) {
-            logger.debug("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
-            throw new SQLException("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+    /**
+     * 启动后台建连线程，并行预热 minimumIdle 个连接；重复调用无副作用
+     * PooledDataSourceFactory 交出数据源时调用，此时属性都已设置好；直接使用数据源时在第一次借用时启动
+     */
+    public void start() {
+        if (connectionCreator != null) {
+            return;
+        }
+        synchronized (pendingCreates) {
+            if (connectionCreator != null) {
+                return;
+            }
+            int threads = Math.max(1, Math.min(poolMaximumActiveConnections, Runtime.getRuntime().availableProcessors()));
+            AtomicInteger threadNumber = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, "pooled-datasource-creator-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            // 没有建连任务时线程全部退出
+            executor.allowCoreThreadTimeOut(true);
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread thread = new Thread(r, "pooled-datasource-housekeeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // 连接关闭时取消的退役任务直接从队列移除
+            scheduler.setRemoveOnCancelPolicy(true);
+            long period = housekeepingPeriod();
+            scheduler.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+            housekeeper = scheduler;
+            connectionCreator = executor;
+        }
+        if (minimumIdle > poolMaximumIdleConnections) {
+            logger.warn("minimumIdle (" + minimumIdle + ") is greater than poolMaximumIdleConnections (" + poolMaximumIdleConnections
+                    + "), using " + poolMaximumIdleConnections + ".");
         }
+        fillPool(0);
+    }
 
-        return conn;
+    // 补足的空闲连接超过 poolMaximumIdleConnections 时会在归还时被关闭再重建，因此取两者较小值
+    private int effectiveMinimumIdle() {
+        return Math.min(minimumIdle, poolMaximumIdleConnections);
     }
 
     /**
-     * 关闭池中所有活动的和空闲的链接
+     * 停止后台线程并关闭所有连接，之后再借用连接会重新启动
      */
-    public void forceCloseAll() {
-        synchronized (state) {
-            expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
-            // 关闭活跃链接
-            for (int i = state.activeConnections.size(); i > 0; i--) {
-                try {
-                    PooledConnection conn = state.activeConnections.remove(i -1);
-                    conn.invalidate();
+    public void close() {
+        synchronized (pendingCreates) {
+            ThreadPoolExecutor executor = connectionCreator;
+            ScheduledThreadPoolExecutor scheduler = housekeeper;
+            connectionCreator = null;
+            housekeeper = null;
+            if (executor != null) {
+                executor.shutdown();
+            }
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+            }
+        }
+        forceCloseAll();
+    }
 
-                    Connection realConn = conn.getRealConnection();
-                    if (!realConn.getAutoCommit()) {
-                        realConn.rollback();
-                    }
-                    realConn.close();
-                } catch (Exception ignore) {
+    // 维护周期不超过 30 秒，也不超过保活和空闲超时时间，最短 1 秒
+    private long housekeepingPeriod() {
+        long period = 30000;
+        if (keepaliveTime > 0) {
+            period = Math.min(period, keepaliveTime);
+        }
+        if (idleTimeout > 0) {
+            period = Math.min(period, idleTimeout);
+        }
+        return Math.max(period, 1000);
+    }
 
+    /**
+     * 后台维护，在 housekeeper 线程上执行
+     * 1.空闲连接数超过 minimumIdle 时，按空闲时间从长到短关闭空闲超过 idleTimeout 的连接
+     * 2.空闲超过 keepaliveTime 没有使用或校验的连接，先 CAS 为 RESERVED 再校验，期间不会被借出；校验失败则关闭
+     * 3.补足 minimumIdle
+     */
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+            List<PooledConnection> idle = new ArrayList<>();
+            for (PooledConnection conn : state.bag.values()) {
+                if (conn.getState() == PooledConnection.STATE_NOT_IN_USE) {
+                    idle.add(conn);
                 }
             }
-            // 关闭空闲链接
-            for (int i = state.idleConnections.size(); i > 0; i--) {
-                try {
-                    PooledConnection conn = state.idleConnections.remove(i - 1);
-                    conn.invalidate();
-
-                    Connection realConn = conn.getRealConnection();
-                    if (!realConn.getAutoCommit()) {
-                        realConn.rollback();
+            int minimumIdle = effectiveMinimumIdle();
+            if (idleTimeout > 0 && idle.size() > minimumIdle) {
+                idle.sort(Comparator.comparingLong(PooledConnection::getLastUsedTimestamp));
+                int removable = idle.size() - minimumIdle;
+                for (int i = 0; i < idle.size() && removable > 0; i++) {
+                    PooledConnection conn = idle.get(i);
+                    if (now - conn.getLastUsedTimestamp() > idleTimeout
+                            && conn.compareAndSetState(PooledConnection.STATE_NOT_IN_USE, PooledConnection.STATE_RESERVED)) {
+                        discardConnection(conn);
+                        logger.info("Closed idle connection " + conn.getRealHashCode() + ".");
+                        idle.set(i, null);
+                        removable--;
                     }
-                } catch (Exception ignore) {
-
                 }
             }
-            logger.info("PooledDataSource forcefully closed/removed all connections.");
+            if (keepaliveTime > 0) {
+                for (PooledConnection conn : idle) {
+                    if (conn != null
+                            && now - Math.max(conn.getLastUsedTimestamp(), conn.getLastValidatedTimestamp()) > keepaliveTime
+                            && conn.compareAndSetState(PooledConnection.STATE_NOT_IN_USE, PooledConnection.STATE_RESERVED)) {
+                        keepalive(conn);
+                    }
+                }
+            }
+            fillPool(0);
+        } catch (RuntimeException e) {
+            // 异常不能抛出，否则周期任务会被取消
+            logger.info("PooledDataSource housekeeping failed: " + e.getMessage());
         }
     }
 
-    protected boolean pingConnection(PooledConnection conn) {
-        boolean result = true;
+    private void keepalive(PooledConnection conn) {
+        if (conn.isEvicted() || !pingConnection(conn)) {
+            logger.info("Connection " + conn.getRealHashCode() + " failed keepalive validation, discarding connection.");
+            if (!conn.isEvicted()) {
+                state.badConnectionCount.incrementAndGet();
+            }
+            discardConnection(conn);
+            return;
+        }
+        conn.setLastValidatedTimestamp(System.currentTimeMillis());
+        conn.setState(PooledConnection.STATE_NOT_IN_USE);
+        // 校验期间到达最大存活时间，退役任务 CAS 失败只做了标记
+        if (conn.isEvicted()) {
+            retire(conn);
+            return;
+        }
+        state.bag.handoff(conn);
+    }
+
+    /**
+     * 连接到达最大存活时间：空闲时立即关闭并补充新连接，正在使用或校验时只做标记，归还时关闭
+     */
+    private void retire(PooledConnection conn) {
+        conn.markEvicted();
+        if (conn.compareAndSetState(PooledConnection.STATE_NOT_IN_USE, PooledConnection.STATE_RESERVED)) {
+            discardConnection(conn);
+            logger.info("Retired connection " + conn.getRealHashCode() + ".");
+            fillPool(0);
+        }
+    }
 
+    private void scheduleRetirement(PooledConnection conn) {
+        ScheduledThreadPoolExecutor scheduler = housekeeper;
+        if (scheduler == null || maxLifetime <= 0) {
+            return;
+        }
+        long lifetime = maxLifetime;
+        // 存活时间足够长时减去最多 2.5% 的抖动，同时创建的连接不会在同一时刻一起退役
+        if (lifetime > 10000) {
+            lifetime -= ThreadLocalRandom.current().nextLong(lifetime / 40);
+        }
         try {
-            result = !conn.getRealConnection().isClosed();
-        } catch (Exception e) {
-            logger.info("Connection " + conn.getRealHashCode() + " is BAD: " + e.getMessage());
-            result = false;
-        }
-
-        if (result) {
-            if (poolPingEnabled) {
-                if (poolPingConnectionsNotUsedFor >= 0 && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor) {
-                    try {
-                        logger.info("Testing connection " + conn.getRealConnection() + " ...");
-                        Connection realConn = conn.getRealConnection();
-                        Statement statement = realConn.createStatement();
-                        ResultSet resultSet = statement.executeQuery(poolPingQuery);
-                        resultSet.close();
-                        if (!realConn.getAutoCommit()) {
-                            realConn.rollback();
-                        }
-                        result = true;
-                        logger.info("Connection " + conn.getRealHashCode() + " is GOOD!");
-                    } catch (Exception e) {
-                        logger.info("Execution of ping query '" + poolPingQuery + "' failed: " + e.getMessage());
-                        try {
-                            conn.getRealConnection().close();
-                        } catch (SQLException ignore) {
-                        }
-                        result = false;
-                        logger.info("Connection " + conn.getRealHashCode() + " is BAD: " + e.getMessage());
-                    }
-                }
+            conn.setRetireTask(scheduler.schedule(() -> retire(conn), lifetime, TimeUnit.MILLISECONDS));
+        } catch (RuntimeException ignore) {
+            // 数据源已关闭
+        }
+    }
+
+    /**
+     * 按需提交建连任务：补足 minimumIdle 个空闲连接，再加上等待中的线程和调用方额外需要的数量，已提交的任务会被扣除
+     * 每个任务提交前先在 totalConnections 中占一个名额，保证连接总数不超过 poolMaximumActiveConnections
+     * @param extra 调用方自己需要的连接数
+     * @return 本次提交的建连任务数，连接总数已满时为 0
+     */
+    private int fillPool(int extra) {
+        ThreadPoolExecutor executor = connectionCreator;
+        if (executor == null) {
+            return 0;
+        }
+        int wanted = Math.max(effectiveMinimumIdle() - state.getIdleConnectionCount(), 0) + state.bag.getWaitingThreadCount() + extra - pendingCreates.get();
+        int submitted = 0;
+        final int currentGeneration = generation.get();
+        while (submitted < wanted && reserveSlot()) {
+            pendingCreates.incrementAndGet();
+            try {
+                executor.execute(() -> addConnection(currentGeneration));
+            } catch (RuntimeException e) {
+                pendingCreates.decrementAndGet();
+                state.totalConnections.decrementAndGet();
+                break;
             }
+            submitted++;
         }
+        // 总数已满但还有建连任务在执行，调用方等待交接即可
+        return submitted > 0 || extra == 0 ? submitted : Math.min(pendingCreates.get(), extra);
+    }
 
-        return result;
+    private boolean reserveSlot() {
+        while (true) {
+            int total = state.totalConnections.get();
+            if (total >= poolMaximumActiveConnections) {
+                return false;
+            }
+            if (state.totalConnections.compareAndSet(total, total + 1)) {
+                return true;
+            }
+        }
     }
 
-    public static Connection unwrapConnection(Connection conn) {
-        if (Proxy.isProxyClass(conn.getClass())) {
-            InvocationHandler handler = Proxy.getInvocationHandler(conn);
-            if (handler instanceof PooledConnection) {
-                return ((PooledConnection) handler).getRealConnection();
+    /**
+     * 在后台线程上建立物理连接，加入连接袋后直接交给等待中的线程
+     * 名额已在提交任务时占用，失败时归还名额并记录异常，由等待超时的借用方抛出
+     * 提交后连接池被关闭或重置（代数变化）时不建连或丢弃新建的连接，避免已清空的连接池又持有按旧属性建立的连接
+     *
+     * @param taskGeneration 提交任务时的连接池代数
+     */
+    private void addConnection(int taskGeneration) {
+        try {
+            if (generation.get() != taskGeneration) {
+                state.totalConnections.decrementAndGet();
+                return;
             }
+            Connection realConnection = dataSource.getConnection();
+            PooledConnection conn = new PooledConnection(realConnection, this);
+            try {
+                conn.loadSessionState();
+            } catch (SQLException e) {
+                realConnection.close();
+                throw e;
+            }
+            if (statementCacheSize > 0) {
+                conn.setStatementCache(new PooledStatementCache(state, statementCacheSize));
+            }
+            conn.setConnectionTypeCode(expectedConnectionTypeCode);
+            // 以 RESERVED 状态加入连接袋再检查代数：与 forceCloseAll 并发时，要么被它遍历到关闭，要么在这里看到新代数自行丢弃
+            conn.setState(PooledConnection.STATE_RESERVED);
+            state.bag.add(conn);
+            if (generation.get() != taskGeneration) {
+                discardConnection(conn);
+                logger.info("Discarded connection " + conn.getRealHashCode() + " created before the pool was reset.");
+                return;
+            }
+            if (!conn.compareAndSetState(PooledConnection.STATE_RESERVED, PooledConnection.STATE_NOT_IN_USE)) {
+                return;
+            }
+            scheduleRetirement(conn);
+            lastCreateFailure = null;
+            logger.info("Created connection " + conn.getRealHashCode() + ".");
+            state.bag.handoff(conn);
+        } catch (SQLException e) {
+            state.totalConnections.decrementAndGet();
+            lastCreateFailure = e;
+            logger.info("Failed to create connection: " + e.getMessage());
+        } catch (RuntimeException e) {
+            state.totalConnections.decrementAndGet();
+            lastCreateFailure = new SQLException(e.getMessage(), e);
+            logger.info("Failed to create connection: " + e.getMessage());
+        } finally {
+            pendingCreates.decrementAndGet();
+        }
+    }
+
+    /**
+     * 收回借出时间超过 poolMaximumCheckoutTime 的连接中最老的一个，原使用方的连接随之作废，打开的语句被关闭
+     */
+    private PooledConnection claimOverdueConnection() {
+        PooledConnection oldest = null;
+        for (PooledConnection candidate : state.bag.values()) {
+            if (candidate.getState() == PooledConnection.STATE_IN_USE
+                    && (oldest == null || candidate.getCheckoutTimestamp() < oldest.getCheckoutTimestamp())) {
+                oldest = candidate;
+            }
+        }
+        if (oldest == null) {
+            return null;
+        }
+        long longestCheckoutTime = oldest.getCheckoutTime();
+        if (longestCheckoutTime <= poolMaximumCheckoutTime) {
+            return null;
+        }
+        // 如果checkout时间过长，则这个链接标记为过期；先取得所有权，使用方正在并发归还时由归还的一方处理
+        ProxyConnection overdueHandle = oldest.getHandle();
+        if (!oldest.releaseHandle(overdueHandle)) {
+            return null;
+        }
+        // 已被 forceCloseAll 或丢弃
+        if (!oldest.compareAndSetState(PooledConnection.STATE_IN_USE, PooledConnection.STATE_RESERVED)) {
+            return null;
+        }
+        overdueHandle.invalidate();
+        state.claimedOverdueConnectionCount.incrementAndGet();
+        state.accumulatedCheckoutTimeOfOverdueConnections.addAndGet(longestCheckoutTime);
+        state.accumulatedRequestTime.addAndGet(longestCheckoutTime);
+        try {
+            oldest.rollbackIfDirty();
+        } catch (SQLException e) {
+            discardConnection(oldest);
+            return null;
+        }
+        oldest.setState(PooledConnection.STATE_IN_USE);
+        logger.info("Claimed overdue connection " + oldest.getRealHashCode() + ".");
+        return oldest;
+    }
+
+    /**
+     * 移出连接袋并关闭物理连接
+     */
+    private void discardConnection(PooledConnection connection) {
+        connection.setState(PooledConnection.STATE_REMOVED);
+        connection.invalidate();
+        connection.cancelRetireTask();
+        if (state.bag.remove(connection)) {
+            state.totalConnections.decrementAndGet();
+        }
+        connection.clearStatementCache();
+        try {
+            connection.getRealConnection().close();
+        } catch (SQLException ignore) {
+        }
+    }
+
+    private void rollbackQuietly(PooledConnection connection) {
+        try {
+            connection.rollbackIfDirty();
+        } catch (SQLException ignore) {
+        }
+    }
+
+    /**
+     * 关闭池中所有活动的和空闲的链接
+     */
+    public void forceCloseAll() {
+        generation.incrementAndGet();
+        expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
+        for (PooledConnection conn : state.bag.values()) {
+            try {
+                conn.setState(PooledConnection.STATE_REMOVED);
+                conn.invalidate();
+                conn.rollbackIfDirty();
+            } catch (Exception ignore) {
+            } finally {
+                discardConnection(conn);
+            }
+        }
+        logger.info("PooledDataSource forcefully closed/removed all connections.");
+    }
+
+    /**
+     * 校验物理连接，只在后台保活时调用，调用方已把连接 CAS 为 RESERVED
+     * 开启 poolPingEnabled 且空闲超过 poolPingConnectionsNotUsedFor 时执行 poolPingQuery，否则使用 Connection.isValid
+     */
+    protected boolean pingConnection(PooledConnection conn) {
+        Connection realConn = conn.getRealConnection();
+        try {
+            if (realConn.isClosed()) {
+                return false;
+            }
+            if (poolPingEnabled && poolPingConnectionsNotUsedFor >= 0 && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor) {
+                logger.info("Testing connection " + conn.getRealHashCode() + " ...");
+                try (Statement statement = realConn.createStatement()) {
+                    statement.setQueryTimeout(validationTimeout);
+                    statement.executeQuery(poolPingQuery).close();
+                }
+                if (!conn.getAutoCommit()) {
+                    realConn.rollback();
+                }
+                return true;
+            }
+            return realConn.isValid(validationTimeout);
+        } catch (Exception e) {
+            logger.info("Connection " + conn.getRealHashCode() + " is BAD: " + e.getMessage());
+            return false;
         }
-        return conn;
+    }
+
+    public static Connection unwrapConnection(Connection conn) {
+        PooledConnection pooledConnection = PooledConnection.unwrap(conn);
+        return pooledConnection == null ? conn : pooledConnection.getRealConnection();
     }
 
 
@@ -440,6 +738,60 @@ public class PooledDataSource implements DataSource {
         this.poolPingConnectionsNotUsedFor = poolPingConnectionsNotUsedFor;
     }
 
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+        forceCloseAll();
+    }
+
+    public int getMaxLifetime() {
+        return maxLifetime;
+    }
+
+    public void setMaxLifetime(int maxLifetime) {
+        this.maxLifetime = maxLifetime;
+    }
+
+    public int getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(int idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public int getKeepaliveTime() {
+        return keepaliveTime;
+    }
+
+    public void setKeepaliveTime(int keepaliveTime) {
+        this.keepaliveTime = keepaliveTime;
+    }
+
+    public int getValidationTimeout() {
+        return validationTimeout;
+    }
+
+    public void setValidationTimeout(int validationTimeout) {
+        this.validationTimeout = validationTimeout;
+    }
+
+    public int getMinimumIdle() {
+        return minimumIdle;
+    }
+
+    public void setMinimumIdle(int minimumIdle) {
+        this.minimumIdle = minimumIdle;
+        fillPool(0);
+    }
+
+    public PoolState getPoolState() {
+        return state;
+    }
+
     public int getExpectedConnectionTypeCode() {
         return expectedConnectionTypeCode;
     }
@@ -2,10 +2,21 @@ package cn.myth.mybatis.datasource.pooled;
 
 import cn.myth.mybatis.datasource.unpooled.UnpooledDataSourceFactory;
 
+import javax.sql.DataSource;
+
 public class PooledDataSourceFactory extends UnpooledDataSourceFactory {
 
     public PooledDataSourceFactory() {
         this.dataSource = new PooledDataSource();
     }
 
+    /**
+     * 属性都已设置好，启动后台建连线程并预热 minimumIdle 个连接
+     */
+    @Override
+    public DataSource getDataSource() {
+        ((PooledDataSource) dataSource).start();
+        return dataSource;
+    }
+
 }
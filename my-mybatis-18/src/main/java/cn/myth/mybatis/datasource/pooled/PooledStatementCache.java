@@ -0,0 +1,142 @@
+package cn.myth.mybatis.datasource.pooled;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * 物理连接级别的预处理语句缓存（LRU）
+ * 缓存跟随 PooledConnection，与物理连接一一对应，所以语句复用可以跨越多个会话。
+ * 语句被取出后从缓存中移除，使用方关闭 ProxyPreparedStatement 时再放回缓存，同一条语句同一时刻只会被一个使用方持有。
+ * 锁只保护缓存的 Map，prepareStatement、clearParameters、close 等 JDBC 调用都在锁外进行。
+ */
+public class PooledStatementCache {
+
+    private final PoolState state;
+    private final int maxSize;
+    // accessOrder = true，按访问顺序排列，头部即最久未使用的语句
+    private final LinkedHashMap<StatementKey, PreparedStatement> statements;
+    private boolean closed;
+
+    public PooledStatementCache(PoolState state, int maxSize) {
+        this.state = state;
+        this.maxSize = maxSize;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * 取出缓存的语句，取出后不再留在缓存中
+     * @return 未命中时返回 null，由调用方新建
+     */
+    public PreparedStatement take(StatementKey key) {
+        PreparedStatement cached;
+        synchronized (this) {
+            cached = closed ? null : statements.remove(key);
+        }
+        if (cached != null) {
+            state.statementCacheHitCount.incrementAndGet();
+        } else {
+            state.statementCacheMissCount.incrementAndGet();
+        }
+        return cached;
+    }
+
+    /**
+     * 使用方关闭语句时放回缓存，超出容量时淘汰最久未使用的语句
+     */
+    public void release(StatementKey key, PreparedStatement statement) {
+        try {
+            statement.clearParameters();
+        } catch (SQLException e) {
+            closeQuietly(statement);
+            return;
+        }
+        PreparedStatement previous = null;
+        PreparedStatement eldest = null;
+        boolean discard = false;
+        synchronized (this) {
+            if (closed) {
+                discard = true;
+            } else {
+                previous = statements.put(key, statement);
+                if (statements.size() > maxSize) {
+                    Iterator<PreparedStatement> iterator = statements.values().iterator();
+                    eldest = iterator.next();
+                    iterator.remove();
+                }
+            }
+        }
+        if (discard) {
+            closeQuietly(statement);
+        }
+        if (previous != null && previous != statement) {
+            closeQuietly(previous);
+        }
+        if (eldest != null) {
+            closeQuietly(eldest);
+            state.statementCacheEvictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 清空并关闭所有缓存语句，链接失效后调用；之后归还的语句会被直接关闭
+     */
+    public void clear() {
+        List<PreparedStatement> evicted;
+        synchronized (this) {
+            closed = true;
+            evicted = new ArrayList<>(statements.values());
+            statements.clear();
+        }
+        for (PreparedStatement statement : evicted) {
+            closeQuietly(statement);
+        }
+    }
+
+    public synchronized int size() {
+        return statements.size();
+    }
+
+    /**
+     * 语句Key：SQL 以及结果集类型、并发类型、主键返回方式等 prepareStatement 参数
+     */
+    static final class StatementKey {
+
+        private final Object[] args;
+        private final int hashCode;
+
+        StatementKey(Object... args) {
+            this.args = args;
+            this.hashCode = Arrays.deepHashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StatementKey)) {
+                return false;
+            }
+            StatementKey that = (StatementKey) o;
+            return hashCode == that.hashCode && Arrays.deepEquals(args, that.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignore) {
+        }
+    }
+
+}
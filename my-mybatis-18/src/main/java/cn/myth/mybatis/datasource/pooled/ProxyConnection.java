@@ -0,0 +1,650 @@
+package cn.myth.mybatis.datasource.pooled;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * 一次借出对应的连接
+ * 取代原先基于 JDK 动态代理的实现：每个方法都是直接的委托调用，close 归还连接、有效性检查都是普通方法，不再经过 Method.invoke 和参数数组。
+ * 自动提交、隔离级别、只读、catalog 的读取直接返回 PooledConnection 中记录的值，设置为相同的值时不发往数据库。
+ * 创建的语句都会被包装并记录，连接归还或被收回时关闭所有仍未关闭的语句。
+ * 与数据库交互的方法抛出连接级致命错误（SQLState 08 类等）或连接被 abort 时，池化连接标记为驱逐，归还时由连接池丢弃。
+ */
+public final class ProxyConnection implements Connection {
+
+    // 除 08 类（连接异常）之外表示物理连接已不可用的 SQLState：PostgreSQL 管理员终止/崩溃恢复/无法连接、断开连接错误、Sybase 连接错误
+    private static final Set<String> FATAL_SQL_STATES = new HashSet<>(Arrays.asList("57P01", "57P02", "57P03", "01002", "JZ0C0", "JZ0C1"));
+
+    private static final AtomicIntegerFieldUpdater<ProxyConnection> CLOSED_UPDATER = AtomicIntegerFieldUpdater.newUpdater(ProxyConnection.class, "closed");
+
+    private final PooledConnection pooledConnection;
+    private final Connection delegate;
+    // 归还、超时收回或连接池关闭后为 1；并发 close 只有 CAS 成功的一方归还
+    private volatile int closed;
+    // 本次借出期间打开的语句；超时收回时会由其他线程关闭，所以加锁访问
+    private final List<ProxyStatement> openStatements = new ArrayList<>();
+
+    ProxyConnection(PooledConnection pooledConnection, Connection delegate) {
+        this.pooledConnection = pooledConnection;
+        this.delegate = delegate;
+    }
+
+    PooledConnection getPooledConnection() {
+        return pooledConnection;
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed != 0) {
+            throw new SQLException("Error accessing PooledConnection. Connection is invalid.");
+        }
+    }
+
+    void markDirty() {
+        pooledConnection.markDirty();
+    }
+
+    /**
+     * 检查委托调用抛出的异常，连接级致命错误时把池化连接标记为驱逐，返回原异常供调用方抛出
+     */
+    SQLException checkException(SQLException e) {
+        if (!pooledConnection.isEvicted() && isFatal(e)) {
+            pooledConnection.markEvicted();
+        }
+        return e;
+    }
+
+    private static boolean isFatal(SQLException e) {
+        // 驱动常把底层异常挂在 nextException 上，依次检查，防止异常链成环
+        SQLException current = e;
+        for (int depth = 0; current != null && depth < 10; depth++) {
+            if (current instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+            String sqlState = current.getSQLState();
+            if (sqlState != null && (sqlState.startsWith("08") || FATAL_SQL_STATES.contains(sqlState))) {
+                return true;
+            }
+            current = current.getNextException();
+        }
+        return false;
+    }
+
+    private <T extends ProxyStatement> T trackStatement(T statement) {
+        synchronized (openStatements) {
+            openStatements.add(statement);
+        }
+        return statement;
+    }
+
+    void untrackStatement(ProxyStatement statement) {
+        synchronized (openStatements) {
+            // 通常关闭的是最近打开的语句，从尾部开始找
+            for (int i = openStatements.size() - 1; i >= 0; i--) {
+                if (openStatements.get(i) == statement) {
+                    openStatements.remove(i);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void closeStatements() {
+        List<ProxyStatement> statements;
+        synchronized (openStatements) {
+            if (openStatements.isEmpty()) {
+                return;
+            }
+            statements = new ArrayList<>(openStatements);
+            openStatements.clear();
+        }
+        for (ProxyStatement statement : statements) {
+            try {
+                statement.close();
+            } catch (SQLException ignore) {
+            }
+        }
+    }
+
+    /**
+     * 作废本次借出：之后的调用都会抛出异常，close 不再归还；关闭仍未关闭的语句
+     */
+    void invalidate() {
+        closed = 1;
+        closeStatements();
+    }
+
+    /**
+     * 关闭仍未关闭的语句并把连接归还连接池；重复关闭或已作废时不再归还
+     */
+    @Override
+    public void close() throws SQLException {
+        if (!CLOSED_UPDATER.compareAndSet(this, 0, 1)) {
+            return;
+        }
+        closeStatements();
+        pooledConnection.returnToPool(this);
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed != 0 || delegate.isClosed();
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        checkOpen();
+        try {
+            return trackStatement(new ProxyStatement(this, delegate.createStatement()));
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        checkOpen();
+        try {
+            return trackStatement(new ProxyStatement(this, delegate.createStatement(resultSetType, resultSetConcurrency)));
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        checkOpen();
+        try {
+            return trackStatement(new ProxyStatement(this, delegate.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability)));
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        checkOpen();
+        try {
+            PooledStatementCache cache = pooledConnection.getStatementCache();
+            if (cache == null) {
+                return trackStatement(new ProxyPreparedStatement(this, delegate.prepareStatement(sql)));
+            }
+            PooledStatementCache.StatementKey key = new PooledStatementCache.StatementKey(sql);
+            PreparedStatement statement = cache.take(key);
+            if (statement == null) {
+                statement = delegate.prepareStatement(sql);
+            }
+            return trackStatement(new ProxyPreparedStatement(this, statement, cache, key));
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        checkOpen();
+        try {
+            PooledStatementCache cache = pooledConnection.getStatementCache();
+            if (cache == null) {
+                return trackStatement(new ProxyPreparedStatement(this, delegate.prepareStatement(sql, autoGeneratedKeys)));
+            }
+            PooledStatementCache.StatementKey key = new PooledStatementCache.StatementKey(sql, autoGeneratedKeys);
+            PreparedStatement statement = cache.take(key);
+            if (statement == null) {
+                statement = delegate.prepareStatement(sql, autoGeneratedKeys);
+            }
+            return trackStatement(new ProxyPreparedStatement(this, statement, cache, key));
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        checkOpen();
+        try {
+            PooledStatementCache cache = pooledConnection.getStatementCache();
+            if (cache == null) {
+                return trackStatement(new ProxyPreparedStatement(this, delegate.prepareStatement(sql, columnIndexes)));
+            }
+            PooledStatementCache.StatementKey key = new PooledStatementCache.StatementKey(sql, columnIndexes);
+            PreparedStatement statement = cache.take(key);
+            if (statement == null) {
+                statement = delegate.prepareStatement(sql, columnIndexes);
+            }
+            return trackStatement(new ProxyPreparedStatement(this, statement, cache, key));
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        checkOpen();
+        try {
+            PooledStatementCache cache = pooledConnection.getStatementCache();
+            if (cache == null) {
+                return trackStatement(new ProxyPreparedStatement(this, delegate.prepareStatement(sql, columnNames)));
+            }
+            PooledStatementCache.StatementKey key = new PooledStatementCache.StatementKey(sql, columnNames);
+            PreparedStatement statement = cache.take(key);
+            if (statement == null) {
+                statement = delegate.prepareStatement(sql, columnNames);
+            }
+            return trackStatement(new ProxyPreparedStatement(this, statement, cache, key));
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        checkOpen();
+        try {
+            PooledStatementCache cache = pooledConnection.getStatementCache();
+            if (cache == null) {
+                return trackStatement(new ProxyPreparedStatement(this, delegate.prepareStatement(sql, resultSetType, resultSetConcurrency)));
+            }
+            PooledStatementCache.StatementKey key = new PooledStatementCache.StatementKey(sql, resultSetType, resultSetConcurrency);
+            PreparedStatement statement = cache.take(key);
+            if (statement == null) {
+                statement = delegate.prepareStatement(sql, resultSetType, resultSetConcurrency);
+            }
+            return trackStatement(new ProxyPreparedStatement(this, statement, cache, key));
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        checkOpen();
+        try {
+            PooledStatementCache cache = pooledConnection.getStatementCache();
+            if (cache == null) {
+                return trackStatement(new ProxyPreparedStatement(this, delegate.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability)));
+            }
+            PooledStatementCache.StatementKey key = new PooledStatementCache.StatementKey(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+            PreparedStatement statement = cache.take(key);
+            if (statement == null) {
+                statement = delegate.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+            }
+            return trackStatement(new ProxyPreparedStatement(this, statement, cache, key));
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        checkOpen();
+        try {
+            return trackStatement(new ProxyCallableStatement(this, delegate.prepareCall(sql)));
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        checkOpen();
+        try {
+            return trackStatement(new ProxyCallableStatement(this, delegate.prepareCall(sql, resultSetType, resultSetConcurrency)));
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        checkOpen();
+        try {
+            return trackStatement(new ProxyCallableStatement(this, delegate.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability)));
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public boolean getAutoCommit() throws SQLException {
+        checkOpen();
+        return pooledConnection.getAutoCommit();
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        checkOpen();
+        try {
+            if (autoCommit != pooledConnection.getAutoCommit()) {
+                delegate.setAutoCommit(autoCommit);
+                pooledConnection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public int getTransactionIsolation() throws SQLException {
+        checkOpen();
+        return pooledConnection.getTransactionIsolation();
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) throws SQLException {
+        checkOpen();
+        try {
+            if (level != pooledConnection.getTransactionIsolation()) {
+                delegate.setTransactionIsolation(level);
+                pooledConnection.setTransactionIsolation(level);
+            }
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public boolean isReadOnly() throws SQLException {
+        checkOpen();
+        return pooledConnection.isReadOnly();
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        checkOpen();
+        try {
+            if (readOnly != pooledConnection.isReadOnly()) {
+                delegate.setReadOnly(readOnly);
+                pooledConnection.setReadOnly(readOnly);
+            }
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public String getCatalog() throws SQLException {
+        checkOpen();
+        return pooledConnection.getCatalog();
+    }
+
+    @Override
+    public void setCatalog(String catalog) throws SQLException {
+        checkOpen();
+        try {
+            if (!Objects.equals(catalog, pooledConnection.getCatalog())) {
+                delegate.setCatalog(catalog);
+                pooledConnection.setCatalog(catalog);
+            }
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        checkOpen();
+        try {
+            delegate.commit();
+            pooledConnection.clearDirty();
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        checkOpen();
+        try {
+            delegate.rollback();
+            pooledConnection.clearDirty();
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public void rollback(Savepoint savepoint) throws SQLException {
+        checkOpen();
+        try {
+            // 回滚到保存点时事务仍未结束
+            delegate.rollback(savepoint);
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public Savepoint setSavepoint() throws SQLException {
+        checkOpen();
+        markDirty();
+        try {
+            return delegate.setSavepoint();
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public Savepoint setSavepoint(String name) throws SQLException {
+        checkOpen();
+        markDirty();
+        try {
+            return delegate.setSavepoint(name);
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public void setClientInfo(String name, String value) throws SQLClientInfoException {
+        if (closed != 0) {
+            throw new SQLClientInfoException("Error accessing PooledConnection. Connection is invalid.", null);
+        }
+        delegate.setClientInfo(name, value);
+    }
+
+    @Override
+    public void setClientInfo(Properties properties) throws SQLClientInfoException {
+        if (closed != 0) {
+            throw new SQLClientInfoException("Error accessing PooledConnection. Connection is invalid.", null);
+        }
+        delegate.setClientInfo(properties);
+    }
+
+    @Override
+    public String nativeSQL(String sql) throws SQLException {
+        checkOpen();
+        return delegate.nativeSQL(sql);
+    }
+
+    @Override
+    public DatabaseMetaData getMetaData() throws SQLException {
+        checkOpen();
+        try {
+            return delegate.getMetaData();
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        checkOpen();
+        return delegate.getWarnings();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        checkOpen();
+        delegate.clearWarnings();
+    }
+
+    @Override
+    public Map<String, Class<?>> getTypeMap() throws SQLException {
+        checkOpen();
+        return delegate.getTypeMap();
+    }
+
+    @Override
+    public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+        checkOpen();
+        delegate.setTypeMap(map);
+    }
+
+    @Override
+    public void setHoldability(int holdability) throws SQLException {
+        checkOpen();
+        try {
+            delegate.setHoldability(holdability);
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+        checkOpen();
+        return delegate.getHoldability();
+    }
+
+    @Override
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+        checkOpen();
+        try {
+            delegate.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public Clob createClob() throws SQLException {
+        checkOpen();
+        return delegate.createClob();
+    }
+
+    @Override
+    public Blob createBlob() throws SQLException {
+        checkOpen();
+        return delegate.createBlob();
+    }
+
+    @Override
+    public NClob createNClob() throws SQLException {
+        checkOpen();
+        return delegate.createNClob();
+    }
+
+    @Override
+    public SQLXML createSQLXML() throws SQLException {
+        checkOpen();
+        return delegate.createSQLXML();
+    }
+
+    @Override
+    public boolean isValid(int timeout) throws SQLException {
+        checkOpen();
+        return delegate.isValid(timeout);
+    }
+
+    @Override
+    public String getClientInfo(String name) throws SQLException {
+        checkOpen();
+        return delegate.getClientInfo(name);
+    }
+
+    @Override
+    public Properties getClientInfo() throws SQLException {
+        checkOpen();
+        return delegate.getClientInfo();
+    }
+
+    @Override
+    public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+        checkOpen();
+        return delegate.createArrayOf(typeName, elements);
+    }
+
+    @Override
+    public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+        checkOpen();
+        return delegate.createStruct(typeName, attributes);
+    }
+
+    @Override
+    public void setSchema(String schema) throws SQLException {
+        checkOpen();
+        try {
+            delegate.setSchema(schema);
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public String getSchema() throws SQLException {
+        checkOpen();
+        try {
+            return delegate.getSchema();
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    /**
+     * 中止物理连接前先标记驱逐，使用方随后关闭连接时由连接池丢弃，不会放回空闲列表
+     */
+    @Override
+    public void abort(Executor executor) throws SQLException {
+        checkOpen();
+        pooledConnection.markEvicted();
+        delegate.abort(executor);
+    }
+
+    @Override
+    public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+        checkOpen();
+        try {
+            delegate.setNetworkTimeout(executor, milliseconds);
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public int getNetworkTimeout() throws SQLException {
+        checkOpen();
+        return delegate.getNetworkTimeout();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        checkOpen();
+        if (iface.isInstance(delegate)) {
+            return (T) delegate;
+        }
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        checkOpen();
+        return iface.isInstance(delegate) || delegate.isWrapperFor(iface);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(this)) + " wrapping " + delegate;
+    }
+
+}
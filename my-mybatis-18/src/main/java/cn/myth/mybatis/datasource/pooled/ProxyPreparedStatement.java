@@ -0,0 +1,508 @@
+package cn.myth.mybatis.datasource.pooled;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.*;
+import java.util.Calendar;
+
+/**
+ * 池化连接创建的预处理语句
+ * 来自语句缓存时，关闭只是把真实语句放回缓存；放回前关闭打开的结果集、清掉未执行的批次和警告，
+ * 并把本次修改过的 fetchSize、maxRows、queryTimeout 恢复为取出时的值，下一个使用方拿到的语句与新建的一致
+ */
+public class ProxyPreparedStatement extends ProxyStatement implements PreparedStatement {
+
+    // 不为null时表示真实语句来自语句缓存
+    private final PooledStatementCache statementCache;
+    private final PooledStatementCache.StatementKey statementKey;
+
+    // 以下只在语句来自缓存时记录：是否有未执行的批次，以及被修改的设置在修改前的值
+    private boolean batchPending;
+    private boolean fetchSizeChanged;
+    private int originalFetchSize;
+    private boolean maxRowsChanged;
+    private int originalMaxRows;
+    private boolean queryTimeoutChanged;
+    private int originalQueryTimeout;
+
+    ProxyPreparedStatement(ProxyConnection connection, PreparedStatement delegate) {
+        this(connection, delegate, null, null);
+    }
+
+    ProxyPreparedStatement(ProxyConnection connection, PreparedStatement delegate, PooledStatementCache statementCache, PooledStatementCache.StatementKey statementKey) {
+        super(connection, delegate);
+        this.statementCache = statementCache;
+        this.statementKey = statementKey;
+    }
+
+    @Override
+    protected void closeDelegate() throws SQLException {
+        if (statementCache == null) {
+            super.closeDelegate();
+            return;
+        }
+        PreparedStatement statement = (PreparedStatement) delegate;
+        try {
+            resetForReuse(statement);
+        } catch (SQLException e) {
+            // 无法恢复的语句不再放回缓存
+            statement.close();
+            return;
+        }
+        statementCache.release(statementKey, statement);
+    }
+
+    private void resetForReuse(PreparedStatement statement) throws SQLException {
+        ResultSet resultSet = statement.getResultSet();
+        if (resultSet != null) {
+            resultSet.close();
+        }
+        if (batchPending) {
+            statement.clearBatch();
+        }
+        statement.clearWarnings();
+        if (fetchSizeChanged) {
+            statement.setFetchSize(originalFetchSize);
+        }
+        if (maxRowsChanged) {
+            statement.setMaxRows(originalMaxRows);
+        }
+        if (queryTimeoutChanged) {
+            statement.setQueryTimeout(originalQueryTimeout);
+        }
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        checkClosed();
+        if (statementCache != null && !fetchSizeChanged) {
+            originalFetchSize = delegate.getFetchSize();
+            fetchSizeChanged = true;
+        }
+        delegate.setFetchSize(rows);
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        checkClosed();
+        rememberMaxRows();
+        delegate.setMaxRows(max);
+    }
+
+    @Override
+    public void setLargeMaxRows(long max) throws SQLException {
+        checkClosed();
+        rememberMaxRows();
+        delegate.setLargeMaxRows(max);
+    }
+
+    private void rememberMaxRows() throws SQLException {
+        if (statementCache != null && !maxRowsChanged) {
+            originalMaxRows = delegate.getMaxRows();
+            maxRowsChanged = true;
+        }
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        checkClosed();
+        if (statementCache != null && !queryTimeoutChanged) {
+            originalQueryTimeout = delegate.getQueryTimeout();
+            queryTimeoutChanged = true;
+        }
+        delegate.setQueryTimeout(seconds);
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        int[] updateCounts = super.executeBatch();
+        batchPending = false;
+        return updateCounts;
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        long[] updateCounts = super.executeLargeBatch();
+        batchPending = false;
+        return updateCounts;
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        super.clearBatch();
+        batchPending = false;
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return ((PreparedStatement) delegate).executeQuery();
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return ((PreparedStatement) delegate).executeUpdate();
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setNull(parameterIndex, sqlType);
+    }
+
+    @Override
+    public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setBoolean(parameterIndex, x);
+    }
+
+    @Override
+    public void setByte(int parameterIndex, byte x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setByte(parameterIndex, x);
+    }
+
+    @Override
+    public void setShort(int parameterIndex, short x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setShort(parameterIndex, x);
+    }
+
+    @Override
+    public void setInt(int parameterIndex, int x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setInt(parameterIndex, x);
+    }
+
+    @Override
+    public void setLong(int parameterIndex, long x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setLong(parameterIndex, x);
+    }
+
+    @Override
+    public void setFloat(int parameterIndex, float x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setFloat(parameterIndex, x);
+    }
+
+    @Override
+    public void setDouble(int parameterIndex, double x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setDouble(parameterIndex, x);
+    }
+
+    @Override
+    public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setBigDecimal(parameterIndex, x);
+    }
+
+    @Override
+    public void setString(int parameterIndex, String x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setString(parameterIndex, x);
+    }
+
+    @Override
+    public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setBytes(parameterIndex, x);
+    }
+
+    @Override
+    public void setDate(int parameterIndex, Date x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setDate(parameterIndex, x);
+    }
+
+    @Override
+    public void setTime(int parameterIndex, Time x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setTime(parameterIndex, x);
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setTimestamp(parameterIndex, x);
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setAsciiStream(parameterIndex, x, length);
+    }
+
+    @Deprecated
+    @Override
+    public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setUnicodeStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setBinaryStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void clearParameters() throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).clearParameters();
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setObject(parameterIndex, x, targetSqlType);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setObject(parameterIndex, x);
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return ((PreparedStatement) delegate).execute();
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public void addBatch() throws SQLException {
+        checkClosed();
+        batchPending = true;
+        ((PreparedStatement) delegate).addBatch();
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setCharacterStream(parameterIndex, reader, length);
+    }
+
+    @Override
+    public void setRef(int parameterIndex, Ref x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setRef(parameterIndex, x);
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, Blob x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setBlob(parameterIndex, x);
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Clob x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setClob(parameterIndex, x);
+    }
+
+    @Override
+    public void setArray(int parameterIndex, Array x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setArray(parameterIndex, x);
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        checkClosed();
+        return ((PreparedStatement) delegate).getMetaData();
+    }
+
+    @Override
+    public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setDate(parameterIndex, x, cal);
+    }
+
+    @Override
+    public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setTime(parameterIndex, x, cal);
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setTimestamp(parameterIndex, x, cal);
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setNull(parameterIndex, sqlType, typeName);
+    }
+
+    @Override
+    public void setURL(int parameterIndex, URL x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setURL(parameterIndex, x);
+    }
+
+    @Override
+    public ParameterMetaData getParameterMetaData() throws SQLException {
+        checkClosed();
+        return ((PreparedStatement) delegate).getParameterMetaData();
+    }
+
+    @Override
+    public void setRowId(int parameterIndex, RowId x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setRowId(parameterIndex, x);
+    }
+
+    @Override
+    public void setNString(int parameterIndex, String value) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setNString(parameterIndex, value);
+    }
+
+    @Override
+    public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setNCharacterStream(parameterIndex, value, length);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, NClob value) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setNClob(parameterIndex, value);
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setClob(parameterIndex, reader, length);
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setBlob(parameterIndex, inputStream, length);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setNClob(parameterIndex, reader, length);
+    }
+
+    @Override
+    public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setSQLXML(parameterIndex, xmlObject);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setAsciiStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setBinaryStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setCharacterStream(parameterIndex, reader, length);
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setAsciiStream(parameterIndex, x);
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setBinaryStream(parameterIndex, x);
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setCharacterStream(parameterIndex, reader);
+    }
+
+    @Override
+    public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setNCharacterStream(parameterIndex, value);
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Reader reader) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setClob(parameterIndex, reader);
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setBlob(parameterIndex, inputStream);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setNClob(parameterIndex, reader);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
+        checkClosed();
+        ((PreparedStatement) delegate).setObject(parameterIndex, x, targetSqlType);
+    }
+
+    @Override
+    public long executeLargeUpdate() throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return ((PreparedStatement) delegate).executeLargeUpdate();
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+}
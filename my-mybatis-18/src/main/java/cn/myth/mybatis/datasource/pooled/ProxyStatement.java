@@ -0,0 +1,444 @@
+package cn.myth.mybatis.datasource.pooled;
+
+import java.sql.*;
+
+/**
+ * 池化连接创建的语句
+ * 直接委托给真实语句，执行语句时把连接标记为有未结束的事务；关闭时从连接的打开语句列表中移除，连接归还时会关闭仍未关闭的语句。
+ * 关闭后再调用任何方法都会抛出异常，放回缓存的预处理语句不会被旧的使用方继续操作。
+ */
+public class ProxyStatement implements Statement {
+
+    protected final ProxyConnection connection;
+    protected final Statement delegate;
+    // 超时连接被收回时由其他线程关闭
+    private volatile boolean closed;
+
+    ProxyStatement(ProxyConnection connection, Statement delegate) {
+        this.connection = connection;
+        this.delegate = delegate;
+    }
+
+    protected final void checkClosed() throws SQLException {
+        if (closed) {
+            throw new SQLException("Statement is closed.");
+        }
+    }
+
+    /**
+     * 关闭真实语句，缓存的预处理语句改为放回缓存
+     */
+    protected void closeDelegate() throws SQLException {
+        delegate.close();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        connection.untrackStatement(this);
+        closeDelegate();
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed || delegate.isClosed();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        checkClosed();
+        return connection;
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return delegate.executeQuery(sql);
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return delegate.executeUpdate(sql);
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public int getMaxFieldSize() throws SQLException {
+        checkClosed();
+        return delegate.getMaxFieldSize();
+    }
+
+    @Override
+    public void setMaxFieldSize(int max) throws SQLException {
+        checkClosed();
+        delegate.setMaxFieldSize(max);
+    }
+
+    @Override
+    public int getMaxRows() throws SQLException {
+        checkClosed();
+        return delegate.getMaxRows();
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        checkClosed();
+        delegate.setMaxRows(max);
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        checkClosed();
+        delegate.setEscapeProcessing(enable);
+    }
+
+    @Override
+    public int getQueryTimeout() throws SQLException {
+        checkClosed();
+        return delegate.getQueryTimeout();
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        checkClosed();
+        delegate.setQueryTimeout(seconds);
+    }
+
+    @Override
+    public void cancel() throws SQLException {
+        checkClosed();
+        delegate.cancel();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        checkClosed();
+        return delegate.getWarnings();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        checkClosed();
+        delegate.clearWarnings();
+    }
+
+    @Override
+    public void setCursorName(String name) throws SQLException {
+        checkClosed();
+        delegate.setCursorName(name);
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return delegate.execute(sql);
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        checkClosed();
+        return delegate.getResultSet();
+    }
+
+    @Override
+    public int getUpdateCount() throws SQLException {
+        checkClosed();
+        return delegate.getUpdateCount();
+    }
+
+    @Override
+    public boolean getMoreResults() throws SQLException {
+        checkClosed();
+        try {
+            return delegate.getMoreResults();
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        checkClosed();
+        delegate.setFetchDirection(direction);
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        checkClosed();
+        return delegate.getFetchDirection();
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        checkClosed();
+        delegate.setFetchSize(rows);
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        checkClosed();
+        return delegate.getFetchSize();
+    }
+
+    @Override
+    public int getResultSetConcurrency() throws SQLException {
+        checkClosed();
+        return delegate.getResultSetConcurrency();
+    }
+
+    @Override
+    public int getResultSetType() throws SQLException {
+        checkClosed();
+        return delegate.getResultSetType();
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        checkClosed();
+        delegate.addBatch(sql);
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        checkClosed();
+        delegate.clearBatch();
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return delegate.executeBatch();
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public boolean getMoreResults(int current) throws SQLException {
+        checkClosed();
+        try {
+            return delegate.getMoreResults(current);
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        checkClosed();
+        try {
+            return delegate.getGeneratedKeys();
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return delegate.executeUpdate(sql, autoGeneratedKeys);
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return delegate.executeUpdate(sql, columnIndexes);
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return delegate.executeUpdate(sql, columnNames);
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return delegate.execute(sql, autoGeneratedKeys);
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return delegate.execute(sql, columnIndexes);
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return delegate.execute(sql, columnNames);
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public int getResultSetHoldability() throws SQLException {
+        checkClosed();
+        return delegate.getResultSetHoldability();
+    }
+
+    @Override
+    public void setPoolable(boolean poolable) throws SQLException {
+        checkClosed();
+        delegate.setPoolable(poolable);
+    }
+
+    @Override
+    public boolean isPoolable() throws SQLException {
+        checkClosed();
+        return delegate.isPoolable();
+    }
+
+    @Override
+    public void closeOnCompletion() throws SQLException {
+        checkClosed();
+        delegate.closeOnCompletion();
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() throws SQLException {
+        checkClosed();
+        return delegate.isCloseOnCompletion();
+    }
+
+    @Override
+    public long getLargeUpdateCount() throws SQLException {
+        checkClosed();
+        return delegate.getLargeUpdateCount();
+    }
+
+    @Override
+    public void setLargeMaxRows(long max) throws SQLException {
+        checkClosed();
+        delegate.setLargeMaxRows(max);
+    }
+
+    @Override
+    public long getLargeMaxRows() throws SQLException {
+        checkClosed();
+        return delegate.getLargeMaxRows();
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return delegate.executeLargeBatch();
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql) throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return delegate.executeLargeUpdate(sql);
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return delegate.executeLargeUpdate(sql, autoGeneratedKeys);
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return delegate.executeLargeUpdate(sql, columnIndexes);
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+        checkClosed();
+        connection.markDirty();
+        try {
+            return delegate.executeLargeUpdate(sql, columnNames);
+        } catch (SQLException e) {
+            throw connection.checkException(e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(delegate)) {
+            return (T) delegate;
+        }
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(delegate) || delegate.isWrapperFor(iface);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(this)) + " wrapping " + delegate;
+    }
+
+}
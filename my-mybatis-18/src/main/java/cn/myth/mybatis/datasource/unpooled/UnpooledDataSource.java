@@ -27,6 +27,9 @@ public class UnpooledDataSource implements DataSource {
     // 驱动
     private String driver;
 
+    // 解析好的驱动，修改 driver、url 或类加载器后重新解析
+    private volatile Driver resolvedDriver;
+
     // DB链接地址
     private String url;
 
@@ -51,20 +54,44 @@ public class UnpooledDataSource implements DataSource {
     }
 
 
+    /**
+     * 获取驱动，第一次建连时解析并缓存，之后建连不再加锁、不再查找驱动
+     */
+    private Driver resolveDriver() throws SQLException {
+        Driver resolved = resolvedDriver;
+        if (resolved == null) {
+            resolved = initializeDriver();
+        }
+        return resolved;
+    }
+
     /**
      *  初始化驱动
+     *  只在第一次建连或修改驱动配置之后执行；未配置 driver 时由 DriverManager 按 url 查找
      */
-    private synchronized void initializeDriver() throws SQLException {
-        if (!registeredDrivers.containsKey(driver)) {
-            try {
-                Class<?> driverType = Class.forName(driver, true, driverClassLoader);
-                // https://www.kfu.com/~nsayer/Java/jdbc.html
-                Driver driverInstance = (Driver) driverType.newInstance();
-                DriverManager.registerDriver(new DriverProxy(driverInstance));
-            } catch (Exception e) {
-                throw new RuntimeException("Error setting driver on UnpooledDataSource. Cause: " + e);
+    private synchronized Driver initializeDriver() throws SQLException {
+        if (resolvedDriver != null) {
+            return resolvedDriver;
+        }
+        Driver driverInstance;
+        if (driver == null) {
+            driverInstance = DriverManager.getDriver(url);
+        } else {
+            driverInstance = registeredDrivers.get(driver);
+            if (driverInstance == null) {
+                try {
+                    Class<?> driverType = Class.forName(driver, true, driverClassLoader);
+                    // https://www.kfu.com/~nsayer/Java/jdbc.html
+                    driverInstance = (Driver) driverType.newInstance();
+                    DriverManager.registerDriver(new DriverProxy(driverInstance));
+                    registeredDrivers.put(driver, driverInstance);
+                } catch (Exception e) {
+                    throw new RuntimeException("Error setting driver on UnpooledDataSource. Cause: " + e, e);
+                }
             }
         }
+        resolvedDriver = driverInstance;
+        return driverInstance;
     }
 
     private static class DriverProxy implements Driver {
@@ -138,8 +165,11 @@ public class UnpooledDataSource implements DataSource {
     }
 
     private Connection doGetConnection(Properties properties) throws SQLException {
-        initializeDriver();
-        Connection connection = DriverManager.getConnection(url, properties);
+        // 直接通过缓存的驱动建连，不经过 DriverManager 逐个尝试已注册的驱动
+        Connection connection = resolveDriver().connect(url, properties);
+        if (connection == null) {
+            throw new SQLException("No suitable driver found for " + url);
+        }
         if (autoCommit != null && autoCommit != connection.getAutoCommit()) {
             connection.setAutoCommit(autoCommit);
         }
@@ -200,6 +230,7 @@ public class UnpooledDataSource implements DataSource {
 
     public void setDriverClassLoader(ClassLoader driverClassLoader) {
         this.driverClassLoader = driverClassLoader;
+        this.resolvedDriver = null;
     }
 
     public Properties getDriverProperties() {
@@ -222,8 +253,9 @@ public class UnpooledDataSource implements DataSource {
         return driver;
     }
 
-    public synchronized void setDriver(String driver) {
+    public void setDriver(String driver) {
         this.driver = driver;
+        this.resolvedDriver = null;
     }
 
     public String getUrl() {
@@ -232,6 +264,7 @@ public class UnpooledDataSource implements DataSource {
 
     public void setUrl(String url) {
         this.url = url;
+        this.resolvedDriver = null;
     }
 
     public String getUsername() {
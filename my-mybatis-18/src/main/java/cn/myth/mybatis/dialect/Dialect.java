@@ -0,0 +1,45 @@
+package cn.myth.mybatis.dialect;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 数据库方言
+ * 物理分页时，把 RowBounds 改写为数据库自己的 LIMIT/OFFSET 语句，由数据库只返回当前页的数据
+ */
+public interface Dialect {
+
+    /**
+     * 是否支持物理分页，不支持时退回到在结果集上跳过 offset 行
+     */
+    boolean supportsLimit();
+
+    /**
+     * 在原SQL后追加分页子句，分页参数使用 ? 占位符，便于预处理语句复用
+     */
+    String getLimitSql(String sql);
+
+    /**
+     * 设置分页占位符参数
+     * @param index 第一个分页占位符的下标（从1开始）
+     */
+    void setLimitParameters(PreparedStatement ps, int index, int offset, int limit) throws SQLException;
+
+    /**
+     * 由查询语句推导 count 语句
+     */
+    default String getCountSql(String sql) {
+        return "SELECT COUNT(1) FROM (" + sql + ") tmp_count";
+    }
+
+    /**
+     * 由查询语句推导键集分页语句：按排序键升序，只取大于上一页最后键值的行
+     * @param afterKey 是否带上 key > ? 条件，第一页不带
+     */
+    default String getKeysetSql(String sql, String keyColumn, boolean afterKey) {
+        return "SELECT * FROM (" + sql + ") tmp_keyset"
+                + (afterKey ? " WHERE " + keyColumn + " > ?" : "")
+                + " ORDER BY " + keyColumn;
+    }
+
+}
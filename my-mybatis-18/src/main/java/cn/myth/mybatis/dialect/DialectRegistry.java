@@ -0,0 +1,54 @@
+package cn.myth.mybatis.dialect;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 方言注册机
+ * 可以通过配置的方言名称获取，也可以根据 DatabaseMetaData#getDatabaseProductName 自动识别
+ */
+public class DialectRegistry {
+
+    private final Map<String, Dialect> dialects = new HashMap<>();
+    private final Dialect fallbackDialect = new FallbackDialect();
+
+    public DialectRegistry() {
+        register("MYSQL", new MySqlDialect());
+        register("MARIADB", new MySqlDialect());
+        register("H2", new H2Dialect());
+        register("POSTGRESQL", new PostgreSqlDialect());
+    }
+
+    public void register(String name, Dialect dialect) {
+        dialects.put(name.toUpperCase(Locale.ENGLISH), dialect);
+    }
+
+    /**
+     * 根据方言名称获取，名称未注册时返回不支持物理分页的默认方言
+     */
+    public Dialect getDialect(String name) {
+        if (name == null) {
+            return fallbackDialect;
+        }
+        Dialect dialect = dialects.get(name.toUpperCase(Locale.ENGLISH));
+        return dialect == null ? fallbackDialect : dialect;
+    }
+
+    /**
+     * 根据数据库产品名称识别方言，如 "MySQL"、"H2"、"PostgreSQL"
+     */
+    public Dialect resolve(String databaseProductName) {
+        if (databaseProductName == null) {
+            return fallbackDialect;
+        }
+        String productName = databaseProductName.toUpperCase(Locale.ENGLISH);
+        for (Map.Entry<String, Dialect> entry : dialects.entrySet()) {
+            if (productName.contains(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return fallbackDialect;
+    }
+
+}
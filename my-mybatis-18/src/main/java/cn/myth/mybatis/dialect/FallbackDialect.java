@@ -0,0 +1,25 @@
+package cn.myth.mybatis.dialect;
+
+import java.sql.PreparedStatement;
+
+/**
+ * 未知数据库的方言，不改写SQL，由结果集处理器通过 ResultSet.absolute() 跳过 offset 行
+ */
+public class FallbackDialect implements Dialect {
+
+    @Override
+    public boolean supportsLimit() {
+        return false;
+    }
+
+    @Override
+    public String getLimitSql(String sql) {
+        return sql;
+    }
+
+    @Override
+    public void setLimitParameters(PreparedStatement ps, int index, int offset, int limit) {
+        // Do nothing
+    }
+
+}
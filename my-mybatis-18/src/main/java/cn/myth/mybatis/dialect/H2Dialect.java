@@ -0,0 +1,8 @@
+package cn.myth.mybatis.dialect;
+
+/**
+ * H2 方言，分页语法与 PostgreSQL 相同：LIMIT limit OFFSET offset
+ */
+public class H2Dialect extends PostgreSqlDialect {
+
+}
@@ -0,0 +1,27 @@
+package cn.myth.mybatis.dialect;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * MySQL 方言：LIMIT offset, limit
+ */
+public class MySqlDialect implements Dialect {
+
+    @Override
+    public boolean supportsLimit() {
+        return true;
+    }
+
+    @Override
+    public String getLimitSql(String sql) {
+        return sql + " LIMIT ?, ?";
+    }
+
+    @Override
+    public void setLimitParameters(PreparedStatement ps, int index, int offset, int limit) throws SQLException {
+        ps.setInt(index, offset);
+        ps.setInt(index + 1, limit);
+    }
+
+}
@@ -0,0 +1,27 @@
+package cn.myth.mybatis.dialect;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * PostgreSQL 方言：LIMIT limit OFFSET offset
+ */
+public class PostgreSqlDialect implements Dialect {
+
+    @Override
+    public boolean supportsLimit() {
+        return true;
+    }
+
+    @Override
+    public String getLimitSql(String sql) {
+        return sql + " LIMIT ? OFFSET ?";
+    }
+
+    @Override
+    public void setLimitParameters(PreparedStatement ps, int index, int offset, int limit) throws SQLException {
+        ps.setInt(index, limit);
+        ps.setInt(index + 1, offset);
+    }
+
+}
@@ -2,18 +2,22 @@ package cn.myth.mybatis.executor;
 
 import cn.myth.mybatis.cache.CacheKey;
 import cn.myth.mybatis.cache.impl.PerpetualCache;
+import cn.myth.mybatis.cursor.Cursor;
+import cn.myth.mybatis.dialect.Dialect;
+import cn.myth.mybatis.executor.parameter.ParameterBinder;
 import cn.myth.mybatis.mapping.BoundSql;
 import cn.myth.mybatis.mapping.MappedStatement;
-import cn.myth.mybatis.mapping.ParameterMapping;
-import cn.myth.mybatis.reflection.MetaObject;
 import cn.myth.mybatis.session.Configuration;
 import cn.myth.mybatis.session.LocalCacheScope;
 import cn.myth.mybatis.session.ResultHandler;
 import cn.myth.mybatis.session.RowBounds;
 import cn.myth.mybatis.transaction.Transaction;
-import cn.myth.mybatis.type.TypeHandlerRegistry;
+import cn.myth.mybatis.type.TypeHandler;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
@@ -29,6 +33,9 @@ public abstract class BaseExecutor implements Executor {
     protected Transaction transaction;
     protected Executor wrapper;
 
+    // count 查询缓存Key的后缀
+    private static final String COUNT_KEY_SUFFIX = "_count";
+
     // 本地缓存
     protected PerpetualCache localCache;
 
@@ -92,6 +99,101 @@ public abstract class BaseExecutor implements Executor {
         return list;
     }
 
+    @Override
+    public long queryCount(MappedStatement ms, Object parameter) throws SQLException {
+        if (closed) {
+            throw new RuntimeException("Executor was closed.");
+        }
+        BoundSql boundSql = ms.getBoundSql(parameter);
+        // 与列表查询使用相同的Key规则，再追加count标识以示区分
+        CacheKey key = createCacheKey(ms, parameter, RowBounds.DEFAULT, boundSql);
+        key.update(COUNT_KEY_SUFFIX);
+        Object cached = localCache.getObject(key);
+        if (cached instanceof Long) {
+            return (Long) cached;
+        }
+        long count = doQueryCount(ms, parameter, boundSql);
+        if (configuration.getLocalCacheScope() != LocalCacheScope.STATEMENT) {
+            localCache.putObject(key, count);
+        }
+        return count;
+    }
+
+    /**
+     * 执行count语句，参数设置与原查询语句相同
+     */
+    protected long doQueryCount(MappedStatement ms, Object parameter, BoundSql boundSql) throws SQLException {
+        Connection connection = transaction.getConnection();
+        String countSql = configuration.getDialect(connection).getCountSql(boundSql.getSql());
+        BoundSql countBoundSql = boundSql.withSql(configuration, countSql);
+        PreparedStatement ps = null;
+        try {
+            ps = connection.prepareStatement(countSql);
+            configuration.newParameterHandler(ms, parameter, countBoundSql).setParameters(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0L;
+            }
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    @Override
+    public <E> List<E> queryKeysetPage(MappedStatement ms, Object parameter, String keyColumn, Object lastSeen, int pageSize) throws SQLException {
+        if (closed) {
+            throw new RuntimeException("Executor was closed.");
+        }
+        BoundSql boundSql = ms.getBoundSql(parameter);
+        return doQueryKeysetPage(ms, parameter, boundSql, keyColumn, lastSeen, pageSize);
+    }
+
+    /**
+     * 执行键集分页语句，原语句参数之后依次是键值和分页参数
+     */
+    @SuppressWarnings("unchecked")
+    protected <E> List<E> doQueryKeysetPage(MappedStatement ms, Object parameter, BoundSql boundSql, String keyColumn, Object lastSeen, int pageSize) throws SQLException {
+        Connection connection = transaction.getConnection();
+        Dialect dialect = configuration.getDialect(connection);
+        String sql = dialect.getKeysetSql(boundSql.getSql(), keyColumn, lastSeen != null);
+        if (dialect.supportsLimit()) {
+            sql = dialect.getLimitSql(sql);
+        }
+        BoundSql keysetBoundSql = boundSql.withSql(configuration, sql);
+        PreparedStatement ps = null;
+        try {
+            ps = connection.prepareStatement(sql);
+            configuration.newParameterHandler(ms, parameter, keysetBoundSql).setParameters(ps);
+            int index = boundSql.getParameterMappings().size() + 1;
+            if (lastSeen != null) {
+                TypeHandler<Object> typeHandler = (TypeHandler<Object>) configuration.getTypeHandlerRegistry().getTypeHandler(lastSeen.getClass(), null);
+                if (typeHandler != null) {
+                    typeHandler.setParameter(ps, index, lastSeen, null);
+                } else {
+                    ps.setObject(index, lastSeen);
+                }
+                index++;
+            }
+            if (dialect.supportsLimit()) {
+                dialect.setLimitParameters(ps, index, RowBounds.NO_ROW_OFFSET, pageSize);
+            } else {
+                ps.setMaxRows(pageSize);
+            }
+            ps.execute();
+            return (List<E>) configuration.newResultSetHandler(wrapper, ms, RowBounds.DEFAULT, null, keysetBoundSql).handleResultSets(ps);
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    @Override
+    public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
+        if (closed) {
+            throw new RuntimeException("Executor was closed.");
+        }
+        BoundSql boundSql = ms.getBoundSql(parameter);
+        return doQueryCursor(ms, parameter, rowBounds, boundSql);
+    }
+
     private <E> List<E> queryFromDatabase(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, CacheKey key, BoundSql boundSql) throws SQLException {
         List<E> list;
         // 先储存占位符
@@ -102,15 +204,34 @@ public abstract class BaseExecutor implements Executor {
             // 删除占位符
             localCache.removeObject(key);
         }
-        // 存入缓存
-        localCache.putObject(key, list);
+        // 存入缓存，使用自定义结果处理器时数据已经交给处理器，不能缓存空的结果
+        if (resultHandler == null) {
+            localCache.putObject(key, list);
+        }
         return list;
     }
 
+    @Override
+    public List<BatchResult> flushStatements() throws SQLException {
+        return flushStatements(false);
+    }
+
+    public List<BatchResult> flushStatements(boolean isRollBack) throws SQLException {
+        if (closed) {
+            throw new RuntimeException("Executor was closed.");
+        }
+        return doFlushStatements(isRollBack);
+    }
+
     protected abstract int doUpdate(MappedStatement ms, Object parameter) throws SQLException;
 
     protected abstract <E> List<E> doQuery(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) throws SQLException;
 
+    protected abstract <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException;
+
+    // 刷新语句，isRollback为true时丢弃未执行的批次
+    protected abstract List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException;
+
     @Override
     public Transaction getTransaction() {
         if (closed) {
@@ -126,6 +247,8 @@ public abstract class BaseExecutor implements Executor {
         }
         // 事务提交完毕清理缓存
         clearLocalCache();
+        // 提交前先把批处理语句刷到数据库
+        flushStatements();
         if (required) {
             transaction.commit();
         }
@@ -137,6 +260,7 @@ public abstract class BaseExecutor implements Executor {
             try {
                 // 事务回滚完毕清理缓存
                 clearLocalCache();
+                flushStatements(true);
             } finally {
                 if (required) {
                     transaction.rollback();
@@ -166,23 +290,11 @@ public abstract class BaseExecutor implements Executor {
         cacheKey.update(rowBounds.getOffset());
         cacheKey.update(rowBounds.getLimit());
         cacheKey.update(boundSql.getSql());
-        List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
-        TypeHandlerRegistry typeHandlerRegistry = ms.getConfiguration().getTypeHandlerRegistry();
-        for (ParameterMapping parameterMapping : parameterMappings) {
-            Object value;
-            String propertyName = parameterMapping.getProperty();
-            if (boundSql.hasAdditionalParameter(propertyName)) {
-                value = boundSql.getAdditionalParameter(propertyName);
-            } else if (parameterObject == null) {
-                value = null;
-            } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
-                value = parameterObject;
-            } else {
-                MetaObject metaObject = configuration.newMetaObject(parameterObject);
-                value = metaObject.getValue(propertyName);
-            }
+        // 与设置参数共用同一个参数绑定器取值
+        ParameterBinder binder = ms.getParameterBinder(boundSql, parameterObject);
+        for (int i = 0; i < binder.size(); i++) {
             // queryParams
-            cacheKey.update(value);
+            cacheKey.update(binder.getValue(i, parameterObject, boundSql));
         }
         if (configuration.getEnvironment() != null) {
             cacheKey.update(configuration.getEnvironment().getId());
@@ -190,23 +302,49 @@ public abstract class BaseExecutor implements Executor {
         return cacheKey;
     }
 
+    /**
+     * 关闭执行器。未要求回滚时关闭等同于提交：先把未执行的批次发往数据库再提交事务，
+     * 刷新或提交失败则整体回滚，不会出现部分批次已提交、剩余批次被丢弃的情况
+     */
     @Override
     public void close(boolean forceRollback) {
         try {
-            try {
-                rollback(forceRollback);
-            } finally {
-                transaction.commit();
+            if (forceRollback) {
+                rollbackOnClose();
+            } else {
+                // 刷出批处理或提交失败时回滚并抛出，调用方依赖 close 刷出批处理时不能静默丢失整批数据
+                try {
+                    commit(true);
+                } catch (SQLException e) {
+                    rollbackOnClose();
+                    throw new RuntimeException("Error committing transaction on close.  Cause: " + e, e);
+                } catch (RuntimeException e) {
+                    rollbackOnClose();
+                    throw e;
+                }
             }
-        } catch (SQLException e) {
-            logger.warn("Unexpected exception on closing transaction.  Cause: " + e);
         } finally {
+            // 关闭事务，连接归还连接池
+            try {
+                transaction.close();
+            } catch (SQLException e) {
+                logger.warn("Unexpected exception on closing transaction.  Cause: " + e);
+            }
             transaction = null;
             localCache = null;
             closed = true;
         }
     }
 
+    // 关闭时的回滚失败只记录日志，连接随后关闭，未提交的数据由数据库丢弃
+    private void rollbackOnClose() {
+        try {
+            rollback(true);
+        } catch (SQLException | RuntimeException e) {
+            logger.warn("Unexpected exception on rolling back transaction.  Cause: " + e);
+        }
+    }
+
     protected void closeStatement(Statement statement) {
         if (statement != null) {
             try {
@@ -217,7 +355,7 @@ public abstract class BaseExecutor implements Executor {
     }
 
     @Override
-    public void setExecutorWrapper(Executor executor) {
+    public void setExecutorWrapper(Executor wrapper) {
         this.wrapper = wrapper;
     }
 }
@@ -0,0 +1,169 @@
+package cn.myth.mybatis.executor;
+
+import cn.myth.mybatis.cursor.Cursor;
+import cn.myth.mybatis.executor.keygen.JDBC3KeyGenerator;
+import cn.myth.mybatis.executor.keygen.KeyGenerator;
+import cn.myth.mybatis.executor.keygen.NoKeyGenerator;
+import cn.myth.mybatis.executor.statement.StatementHandler;
+import cn.myth.mybatis.mapping.BoundSql;
+import cn.myth.mybatis.mapping.MappedStatement;
+import cn.myth.mybatis.session.Configuration;
+import cn.myth.mybatis.session.ResultHandler;
+import cn.myth.mybatis.session.RowBounds;
+import cn.myth.mybatis.transaction.Transaction;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批量执行器
+ * 连续执行的相同SQL（同一个MappedStatement）复用同一个Statement，通过 addBatch 合并为一个JDBC批次，
+ * 在 commit、flushStatements 或达到批次阈值时调用 executeBatch 一次性发往数据库
+ */
+public class BatchExecutor extends BaseExecutor {
+
+    // 批量更新时 update 的返回值，真实的更新条数需要从 BatchResult 中获取
+    public static final int BATCH_UPDATE_RETURN_VALUE = Integer.MIN_VALUE + 1002;
+
+    private final List<Statement> statementList = new ArrayList<>();
+    private final List<BatchResult> batchResultList = new ArrayList<>();
+    private String currentSql;
+    private MappedStatement currentStatement;
+    // 自上次执行以来加入批次的语句数
+    private int pendingCount;
+
+    public BatchExecutor(Configuration configuration, Transaction transaction) {
+        super(configuration, transaction);
+    }
+
+    @Override
+    protected int doUpdate(MappedStatement ms, Object parameter) throws SQLException {
+        final Configuration configuration = ms.getConfiguration();
+        final StatementHandler handler = configuration.newStatementHandler(this, ms, parameter, RowBounds.DEFAULT, null, null);
+        final BoundSql boundSql = handler.getBoundSql();
+        final String sql = boundSql.getSql();
+        final Statement stmt;
+        if (sql.equals(currentSql) && ms.equals(currentStatement)) {
+            // 与上一条是同一语句，复用最后一个 Statement
+            int last = statementList.size() - 1;
+            stmt = statementList.get(last);
+            handler.parameterize(stmt);
+            batchResultList.get(last).addParameterObject(parameter);
+        } else {
+            Connection connection = transaction.getConnection();
+            stmt = handler.prepare(connection);
+            handler.parameterize(stmt);
+            currentSql = sql;
+            currentStatement = ms;
+            statementList.add(stmt);
+            batchResultList.add(new BatchResult(ms, sql, parameter));
+        }
+        handler.batch(stmt);
+        // 达到阈值先把已积累的批次发往数据库，避免驱动端缓存过多参数
+        if (++pendingCount >= configuration.getBatchSize()) {
+            executePendingBatches();
+        }
+        return BATCH_UPDATE_RETURN_VALUE;
+    }
+
+    @Override
+    protected <E> List<E> doQuery(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
+        Statement stmt = null;
+        try {
+            // 查询前先刷新批次，保证能读到本会话之前的更新
+            flushStatements();
+            Configuration configuration = ms.getConfiguration();
+            StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, resultHandler, boundSql);
+            Connection connection = transaction.getConnection();
+            stmt = handler.prepare(connection);
+            handler.parameterize(stmt);
+            return handler.query(stmt, resultHandler);
+        } finally {
+            closeStatement(stmt);
+        }
+    }
+
+    @Override
+    protected long doQueryCount(MappedStatement ms, Object parameter, BoundSql boundSql) throws SQLException {
+        flushStatements();
+        return super.doQueryCount(ms, parameter, boundSql);
+    }
+
+    @Override
+    protected <E> List<E> doQueryKeysetPage(MappedStatement ms, Object parameter, BoundSql boundSql, String keyColumn, Object lastSeen, int pageSize) throws SQLException {
+        flushStatements();
+        return super.doQueryKeysetPage(ms, parameter, boundSql, keyColumn, lastSeen, pageSize);
+    }
+
+    @Override
+    protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException {
+        flushStatements();
+        Configuration configuration = ms.getConfiguration();
+        StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, null, boundSql);
+        Connection connection = transaction.getConnection();
+        Statement stmt = handler.prepare(connection);
+        handler.parameterize(stmt);
+        Cursor<E> cursor = handler.queryCursor(stmt);
+        stmt.closeOnCompletion();
+        return cursor;
+    }
+
+    @Override
+    protected List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
+        try {
+            if (isRollback) {
+                return Collections.emptyList();
+            }
+            executePendingBatches();
+            return new ArrayList<>(batchResultList);
+        } finally {
+            for (Statement stmt : statementList) {
+                closeStatement(stmt);
+            }
+            currentSql = null;
+            currentStatement = null;
+            pendingCount = 0;
+            statementList.clear();
+            batchResultList.clear();
+        }
+    }
+
+    /**
+     * 按加入顺序执行各 Statement 上还未执行的批次，并回填主键
+     */
+    private void executePendingBatches() throws SQLException {
+        for (int i = 0; i < statementList.size(); i++) {
+            Statement stmt = statementList.get(i);
+            BatchResult batchResult = batchResultList.get(i);
+            int pending = batchResult.getPendingCount();
+            if (pending == 0) {
+                continue;
+            }
+            List<Object> parameterObjects = batchResult.getParameterObjects();
+            List<Object> executed = parameterObjects.subList(parameterObjects.size() - pending, parameterObjects.size());
+            try {
+                batchResult.appendUpdateCounts(stmt.executeBatch());
+            } catch (BatchUpdateException e) {
+                throw new RuntimeException(batchResult.getMappedStatement().getId()
+                        + " (batch index #" + (i + 1) + ")" + " failed. Cause: " + e, e);
+            }
+            MappedStatement ms = batchResult.getMappedStatement();
+            KeyGenerator keyGenerator = ms.getKeyGenerator();
+            if (keyGenerator instanceof JDBC3KeyGenerator) {
+                // 一次取回整个批次的自增主键
+                ((JDBC3KeyGenerator) keyGenerator).processBatch(ms, stmt, executed);
+            } else if (!(keyGenerator instanceof NoKeyGenerator)) {
+                for (Object parameter : executed) {
+                    keyGenerator.processAfter(this, ms, stmt, parameter);
+                }
+            }
+        }
+        pendingCount = 0;
+    }
+
+}
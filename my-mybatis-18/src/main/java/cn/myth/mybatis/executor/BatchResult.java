@@ -0,0 +1,64 @@
+package cn.myth.mybatis.executor;
+
+import cn.myth.mybatis.mapping.MappedStatement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 批量执行结果
+ * 一个BatchResult对应一个批次语句，记录批次内的参数对象和 executeBatch 返回的更新条数
+ */
+public class BatchResult {
+
+    private final MappedStatement mappedStatement;
+    private final String sql;
+    private final List<Object> parameterObjects;
+
+    private int[] updateCounts = new int[0];
+
+    public BatchResult(MappedStatement mappedStatement, String sql) {
+        this.mappedStatement = mappedStatement;
+        this.sql = sql;
+        this.parameterObjects = new ArrayList<>();
+    }
+
+    public BatchResult(MappedStatement mappedStatement, String sql, Object parameterObject) {
+        this(mappedStatement, sql);
+        addParameterObject(parameterObject);
+    }
+
+    public MappedStatement getMappedStatement() {
+        return mappedStatement;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<Object> getParameterObjects() {
+        return parameterObjects;
+    }
+
+    public void addParameterObject(Object parameterObject) {
+        this.parameterObjects.add(parameterObject);
+    }
+
+    public int[] getUpdateCounts() {
+        return updateCounts;
+    }
+
+    // 达到批次阈值时会分段执行，更新条数按执行顺序追加
+    public void appendUpdateCounts(int[] counts) {
+        int[] merged = Arrays.copyOf(updateCounts, updateCounts.length + counts.length);
+        System.arraycopy(counts, 0, merged, updateCounts.length, counts.length);
+        this.updateCounts = merged;
+    }
+
+    // 已加入批次但还未执行的参数个数
+    public int getPendingCount() {
+        return parameterObjects.size() - updateCounts.length;
+    }
+
+}
@@ -3,6 +3,7 @@ package cn.myth.mybatis.executor;
 import cn.myth.mybatis.cache.Cache;
 import cn.myth.mybatis.cache.CacheKey;
 import cn.myth.mybatis.cache.TransactionalCacheManager;
+import cn.myth.mybatis.cursor.Cursor;
 import cn.myth.mybatis.mapping.BoundSql;
 import cn.myth.mybatis.mapping.MappedStatement;
 import cn.myth.mybatis.session.ResultHandler;
@@ -77,6 +78,29 @@ public class CachingExecutor implements Executor {
         return query(ms, parameter, rowBounds, resultHandler, key, boundSql);
     }
 
+    @Override
+    public long queryCount(MappedStatement ms, Object parameter) throws SQLException {
+        flushCacheIfRequired(ms);
+        return delegate.queryCount(ms, parameter);
+    }
+
+    @Override
+    public <E> List<E> queryKeysetPage(MappedStatement ms, Object parameter, String keyColumn, Object lastSeen, int pageSize) throws SQLException {
+        flushCacheIfRequired(ms);
+        return delegate.queryKeysetPage(ms, parameter, keyColumn, lastSeen, pageSize);
+    }
+
+    @Override
+    public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
+        flushCacheIfRequired(ms);
+        return delegate.queryCursor(ms, parameter, rowBounds);
+    }
+
+    @Override
+    public List<BatchResult> flushStatements() throws SQLException {
+        return delegate.flushStatements();
+    }
+
     @Override
     public Transaction getTransaction() {
         return delegate.getTransaction();
@@ -0,0 +1,115 @@
+package cn.myth.mybatis.executor;
+
+import cn.myth.mybatis.cache.CacheKey;
+import cn.myth.mybatis.cursor.Cursor;
+import cn.myth.mybatis.mapping.BoundSql;
+import cn.myth.mybatis.mapping.MappedStatement;
+import cn.myth.mybatis.mapping.SqlCommandType;
+import cn.myth.mybatis.session.ResultHandler;
+import cn.myth.mybatis.session.RowBounds;
+import cn.myth.mybatis.transaction.Transaction;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * 查询合并执行器
+ * 装饰器模式，位于二级缓存执行器和基础执行器之间：二级缓存未命中时，开启合并的语句通过 QueryCoalescer 与其他会话的相同查询合并。
+ * 本会话有未提交的更新时不参与合并，避免把未提交的数据交给其他会话，或读到其他会话的结果而看不到自己的更新。
+ */
+public class CoalescingExecutor implements Executor {
+
+    private final Executor delegate;
+    private final QueryCoalescer coalescer;
+    // 本会话自上次提交、回滚以来是否执行过更新
+    private boolean dirty;
+
+    public CoalescingExecutor(Executor delegate, QueryCoalescer coalescer) {
+        this.delegate = delegate;
+        this.coalescer = coalescer;
+        delegate.setExecutorWrapper(this);
+    }
+
+    @Override
+    public int update(MappedStatement ms, Object parameter) throws SQLException {
+        dirty = true;
+        return delegate.update(ms, parameter);
+    }
+
+    @Override
+    public <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, CacheKey key, BoundSql boundSql) throws SQLException {
+        if (!ms.isCoalesce() || dirty || resultHandler != null || ms.getSqlCommandType() != SqlCommandType.SELECT) {
+            return delegate.query(ms, parameter, rowBounds, resultHandler, key, boundSql);
+        }
+        return coalescer.execute(key, ms.isReadOnly(), () -> delegate.<E>query(ms, parameter, rowBounds, null, key, boundSql));
+    }
+
+    @Override
+    public <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException {
+        BoundSql boundSql = ms.getBoundSql(parameter);
+        CacheKey key = createCacheKey(ms, parameter, rowBounds, boundSql);
+        return query(ms, parameter, rowBounds, resultHandler, key, boundSql);
+    }
+
+    @Override
+    public long queryCount(MappedStatement ms, Object parameter) throws SQLException {
+        return delegate.queryCount(ms, parameter);
+    }
+
+    @Override
+    public <E> List<E> queryKeysetPage(MappedStatement ms, Object parameter, String keyColumn, Object lastSeen, int pageSize) throws SQLException {
+        return delegate.queryKeysetPage(ms, parameter, keyColumn, lastSeen, pageSize);
+    }
+
+    @Override
+    public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
+        return delegate.queryCursor(ms, parameter, rowBounds);
+    }
+
+    @Override
+    public List<BatchResult> flushStatements() throws SQLException {
+        return delegate.flushStatements();
+    }
+
+    @Override
+    public Transaction getTransaction() {
+        return delegate.getTransaction();
+    }
+
+    @Override
+    public void commit(boolean required) throws SQLException {
+        delegate.commit(required);
+        dirty = false;
+    }
+
+    @Override
+    public void rollback(boolean required) throws SQLException {
+        try {
+            delegate.rollback(required);
+        } finally {
+            dirty = false;
+        }
+    }
+
+    @Override
+    public void close(boolean forceRollback) {
+        delegate.close(forceRollback);
+    }
+
+    @Override
+    public void clearLocalCache() {
+        delegate.clearLocalCache();
+    }
+
+    @Override
+    public CacheKey createCacheKey(MappedStatement ms, Object parameterObject, RowBounds rowBounds, BoundSql boundSql) {
+        return delegate.createCacheKey(ms, parameterObject, rowBounds, boundSql);
+    }
+
+    @Override
+    public void setExecutorWrapper(Executor executor) {
+        // 外层还有二级缓存执行器时，语句处理器应使用最外层的执行器
+        delegate.setExecutorWrapper(executor);
+    }
+
+}
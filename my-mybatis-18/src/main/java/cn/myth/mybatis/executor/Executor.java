@@ -1,6 +1,7 @@
 package cn.myth.mybatis.executor;
 
 import cn.myth.mybatis.cache.CacheKey;
+import cn.myth.mybatis.cursor.Cursor;
 import cn.myth.mybatis.mapping.BoundSql;
 import cn.myth.mybatis.mapping.MappedStatement;
 import cn.myth.mybatis.session.ResultHandler;
@@ -27,6 +28,18 @@ public interface Executor {
     // 查询
     <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException;
 
+    // 由查询语句推导count语句查询总数，结果按CacheKey缓存在本地缓存
+    long queryCount(MappedStatement ms, Object parameter) throws SQLException;
+
+    // 键集分页查询一页：key > lastSeen 且按 key 升序，最多 pageSize 行，不经过缓存
+    <E> List<E> queryKeysetPage(MappedStatement ms, Object parameter, String keyColumn, Object lastSeen, int pageSize) throws SQLException;
+
+    // 游标查询，不经过缓存
+    <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException;
+
+    // 刷新批处理语句，返回各批次的执行结果
+    List<BatchResult> flushStatements() throws SQLException;
+
     Transaction getTransaction();
 
     void commit(boolean required) throws SQLException;
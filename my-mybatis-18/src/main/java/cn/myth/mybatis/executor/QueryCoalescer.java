@@ -0,0 +1,163 @@
+package cn.myth.mybatis.executor;
+
+import cn.myth.mybatis.cache.CacheKey;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 查询合并（single-flight）
+ * 同一个 CacheKey 的查询正在访问数据库时，其他会话的相同查询不再各自访问数据库，而是等待这次查询的结果。
+ * 语句不是只读时，等待方拿到的是结果的独立副本（序列化复制），避免多个会话修改同一批对象。
+ * 由 Configuration 持有，所有会话共享。
+ */
+public class QueryCoalescer {
+
+    private final ConcurrentHashMap<CacheKey, InFlight> inFlightQueries = new ConcurrentHashMap<>();
+
+    // 实际访问数据库的次数
+    private final AtomicLong executedCount = new AtomicLong();
+    // 合并到进行中查询的次数
+    private final AtomicLong coalescedCount = new AtomicLong();
+    // 结果无法复制或领头查询失败，等待方改为自行查询的次数
+    private final AtomicLong fallbackCount = new AtomicLong();
+
+    /**
+     * 执行查询，相同 key 的查询同一时刻只有一个会访问数据库
+     */
+    @SuppressWarnings("unchecked")
+    public <E> List<E> execute(CacheKey key, boolean readOnly, QueryCall<E> call) throws SQLException {
+        while (true) {
+            InFlight flight = new InFlight();
+            InFlight existing = inFlightQueries.putIfAbsent(key, flight);
+            if (existing == null) {
+                return lead(key, flight, readOnly, call);
+            }
+            // 拿到引用时领头查询恰好已发布结果，重新尝试
+            if (!existing.join()) {
+                continue;
+            }
+            List<?> result;
+            try {
+                result = existing.future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for coalesced query.  Cause: " + e, e);
+            } catch (ExecutionException e) {
+                // 领头查询的失败可能只与它自己的连接有关，自行查询一次
+                fallbackCount.incrementAndGet();
+                return call.call();
+            }
+            if (readOnly) {
+                coalescedCount.incrementAndGet();
+                return (List<E>) result;
+            }
+            List<E> copy = (List<E>) existing.copy();
+            if (copy == null) {
+                fallbackCount.incrementAndGet();
+                return call.call();
+            }
+            coalescedCount.incrementAndGet();
+            return copy;
+        }
+    }
+
+    private <E> List<E> lead(CacheKey key, InFlight flight, boolean readOnly, QueryCall<E> call) throws SQLException {
+        executedCount.incrementAndGet();
+        List<E> list;
+        try {
+            list = call.call();
+        } catch (Throwable t) {
+            inFlightQueries.remove(key, flight);
+            flight.publish(null, true);
+            flight.future.completeExceptionally(t);
+            throw t;
+        }
+        inFlightQueries.remove(key, flight);
+        // 在交还给调用方之前复制，调用方随后修改结果不会影响等待方
+        flight.publish(list, readOnly);
+        flight.future.complete(list);
+        return list;
+    }
+
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getFallbackCount() {
+        return fallbackCount.get();
+    }
+
+    public int getInFlightCount() {
+        return inFlightQueries.size();
+    }
+
+    /**
+     * 查询回调
+     */
+    public interface QueryCall<E> {
+        List<E> call() throws SQLException;
+    }
+
+    /**
+     * 进行中的查询，有等待方且语句不是只读时，领头查询把结果序列化一次，每个等待方各自反序列化出副本
+     */
+    private static class InFlight {
+
+        private final CompletableFuture<List<?>> future = new CompletableFuture<>();
+        private int waiters;
+        private boolean published;
+        // 发布后不再变化，通过 future 的完成对等待方可见
+        private byte[] serialized;
+
+        synchronized boolean join() {
+            if (published) {
+                return false;
+            }
+            waiters++;
+            return true;
+        }
+
+        synchronized void publish(List<?> result, boolean readOnly) {
+            published = true;
+            if (waiters == 0 || readOnly || result == null) {
+                return;
+            }
+            try {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+                    oos.writeObject(result);
+                }
+                serialized = bos.toByteArray();
+            } catch (IOException e) {
+                // 结果对象不可序列化，等待方只能自行查询
+                serialized = null;
+            }
+        }
+
+        List<?> copy() {
+            if (serialized == null) {
+                return null;
+            }
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+                return (List<?>) ois.readObject();
+            } catch (IOException | ClassNotFoundException e) {
+                return null;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package cn.myth.mybatis.executor;
+
+import cn.myth.mybatis.cursor.Cursor;
+import cn.myth.mybatis.executor.statement.StatementHandler;
+import cn.myth.mybatis.mapping.BoundSql;
+import cn.myth.mybatis.mapping.MappedStatement;
+import cn.myth.mybatis.session.Configuration;
+import cn.myth.mybatis.session.ResultHandler;
+import cn.myth.mybatis.session.RowBounds;
+import cn.myth.mybatis.transaction.Transaction;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 可重用执行器
+ * 以 BoundSql.getSql() 为Key缓存本会话内预处理过的 Statement，命中时只重新设置参数，
+ * 不再重复 prepare；语句在 commit、rollback、close 时统一关闭
+ */
+public class ReuseExecutor extends BaseExecutor {
+
+    private final Map<String, Statement> statementMap = new HashMap<>();
+
+    public ReuseExecutor(Configuration configuration, Transaction transaction) {
+        super(configuration, transaction);
+    }
+
+    @Override
+    protected int doUpdate(MappedStatement ms, Object parameter) throws SQLException {
+        Configuration configuration = ms.getConfiguration();
+        StatementHandler handler = configuration.newStatementHandler(this, ms, parameter, RowBounds.DEFAULT, null, null);
+        Statement stmt = prepareStatement(handler);
+        return handler.update(stmt);
+    }
+
+    @Override
+    protected <E> List<E> doQuery(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
+        Configuration configuration = ms.getConfiguration();
+        StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, resultHandler, boundSql);
+        Statement stmt = prepareStatement(handler);
+        return handler.query(stmt, resultHandler);
+    }
+
+    @Override
+    protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException {
+        Configuration configuration = ms.getConfiguration();
+        StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, null, boundSql);
+        Statement stmt = prepareStatement(handler);
+        return handler.queryCursor(stmt);
+    }
+
+    @Override
+    protected List<BatchResult> doFlushStatements(boolean isRollback) {
+        for (Statement stmt : statementMap.values()) {
+            closeStatement(stmt);
+        }
+        statementMap.clear();
+        return Collections.emptyList();
+    }
+
+    private Statement prepareStatement(StatementHandler handler) throws SQLException {
+        Statement stmt;
+        BoundSql boundSql = handler.getBoundSql();
+        String sql = boundSql.getSql();
+        if (hasStatementFor(sql)) {
+            // 命中缓存，直接复用已预处理的语句
+            stmt = statementMap.get(sql);
+        } else {
+            Connection connection = transaction.getConnection();
+            stmt = handler.prepare(connection);
+            statementMap.put(sql, stmt);
+        }
+        // 每次执行都需要重新设置参数
+        handler.parameterize(stmt);
+        return stmt;
+    }
+
+    private boolean hasStatementFor(String sql) {
+        try {
+            Statement stmt = statementMap.get(sql);
+            return stmt != null && !stmt.getConnection().isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+}
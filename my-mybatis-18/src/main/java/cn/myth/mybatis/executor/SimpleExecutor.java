@@ -1,5 +1,6 @@
 package cn.myth.mybatis.executor;
 
+import cn.myth.mybatis.cursor.Cursor;
 import cn.myth.mybatis.executor.statement.StatementHandler;
 import cn.myth.mybatis.mapping.BoundSql;
 import cn.myth.mybatis.mapping.MappedStatement;
@@ -11,6 +12,7 @@ import cn.myth.mybatis.transaction.Transaction;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -56,6 +58,21 @@ public class SimpleExecutor extends BaseExecutor {
         }
     }
 
+    @Override
+    protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException {
+        Configuration configuration = ms.getConfiguration();
+        StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, null, boundSql);
+        Statement stmt = prepareStatement(handler);
+        Cursor<E> cursor = handler.queryCursor(stmt);
+        // 游标读取完毕或关闭结果集时，语句随之关闭
+        stmt.closeOnCompletion();
+        return cursor;
+    }
+
+    @Override
+    protected List<BatchResult> doFlushStatements(boolean isRollback) {
+        return Collections.emptyList();
+    }
 
     private Statement prepareStatement(StatementHandler handler) throws SQLException {
         Statement stmt;
@@ -0,0 +1,70 @@
+package cn.myth.mybatis.executor.async;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步执行线程池工厂
+ * JDK 21+ 使用虚拟线程（每个任务一个虚拟线程），阻塞在JDBC调用上不占用平台线程；
+ * 低版本JDK退回到有界线程池，队列满时由提交线程自己执行，起到背压作用。
+ */
+public final class AsyncExecutorServices {
+
+    private static final int QUEUE_CAPACITY = 10000;
+
+    private AsyncExecutorServices() {
+        // Prevent Instantiation of Static Class
+    }
+
+    public static ExecutorService newDefaultExecutorService() {
+        ExecutorService virtual = newVirtualThreadExecutor();
+        if (virtual != null) {
+            return virtual;
+        }
+        return newBoundedExecutorService(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * 有界线程池，线程为守护线程
+     */
+    public static ExecutorService newBoundedExecutorService(int poolSize) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(QUEUE_CAPACITY), new DaemonThreadFactory("mybatis-async-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    // 源码需要兼容 JDK 8，所以通过反射调用 Executors.newVirtualThreadPerTaskExecutor
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    static class DaemonThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package cn.myth.mybatis.executor.async;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * 串行任务队列
+ * 同一个会话只有一个连接（事务），异步提交的语句必须按提交顺序逐个执行，
+ * 这里把每个任务挂在上一个任务之后，任务在共享线程池中执行，但同一队列内不会并发。
+ */
+public class SerialTaskQueue {
+
+    private final ExecutorService executorService;
+    // 队尾任务，新任务在它完成（无论成功失败）后执行
+    private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+
+    public SerialTaskQueue(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    public synchronized <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = tail.handle((r, e) -> null).thenApplyAsync(ignore -> task.get(), executorService);
+        tail = future;
+        return future;
+    }
+
+    /**
+     * 等待队列中已提交的任务全部完成，提交、关闭会话前调用
+     */
+    public void awaitPending() {
+        CompletableFuture<?> last;
+        synchronized (this) {
+            last = tail;
+        }
+        try {
+            last.handle((r, e) -> null).join();
+        } catch (Exception ignore) {
+        }
+    }
+}
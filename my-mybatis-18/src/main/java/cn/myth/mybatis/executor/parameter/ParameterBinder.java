@@ -0,0 +1,153 @@
+package cn.myth.mybatis.executor.parameter;
+
+import cn.myth.mybatis.mapping.BoundSql;
+import cn.myth.mybatis.mapping.ParameterMapping;
+import cn.myth.mybatis.reflection.MetaClass;
+import cn.myth.mybatis.reflection.invoker.Invoker;
+import cn.myth.mybatis.session.Configuration;
+import cn.myth.mybatis.type.JdbcType;
+import cn.myth.mybatis.type.TypeHandler;
+import cn.myth.mybatis.type.TypeHandlerRegistry;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 参数绑定器
+ * 同一条语句、同一种参数类型，每个 #{} 占位符取值用的 getter、类型处理器和 jdbcType 都是固定的，
+ * 按 BoundSql 的 ParameterMapping 列表编译一次，由 MappedStatement 缓存；
+ * 设置参数和计算缓存 Key 时按槽位顺序取值，不再创建 MetaObject、解析属性路径。
+ */
+public final class ParameterBinder {
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private final List<ParameterMapping> parameterMappings;
+    private final TypeHandlerRegistry typeHandlerRegistry;
+    private final Slot[] slots;
+
+    private ParameterBinder(List<ParameterMapping> parameterMappings, TypeHandlerRegistry typeHandlerRegistry, Slot[] slots) {
+        this.parameterMappings = parameterMappings;
+        this.typeHandlerRegistry = typeHandlerRegistry;
+        this.slots = slots;
+    }
+
+    /**
+     * 编译参数绑定器
+     *
+     * @param parameterType 参数对象的实际类型，参数为 null 时传 Void.class
+     */
+    public static ParameterBinder compile(List<ParameterMapping> parameterMappings, Class<?> parameterType, Configuration configuration) {
+        Slot[] slots = new Slot[parameterMappings.size()];
+        for (int i = 0; i < slots.length; i++) {
+            ParameterMapping parameterMapping = parameterMappings.get(i);
+            String property = parameterMapping.getProperty();
+            slots[i] = new Slot(property, getterOf(property, parameterType, configuration),
+                    parameterMapping.getTypeHandler(), parameterMapping.getJdbcType());
+        }
+        return new ParameterBinder(parameterMappings, configuration.getTypeHandlerRegistry(), slots);
+    }
+
+    // 简单类型参数本身就是值；Map 参数和普通属性直接取值；嵌套属性（a.b、a[0]）仍交给 MetaObject
+    private static Getter getterOf(String property, Class<?> parameterType, Configuration configuration) {
+        if (parameterType == Void.class) {
+            return parameterObject -> null;
+        }
+        if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterType)) {
+            return parameterObject -> parameterObject;
+        }
+        boolean simpleProperty = property.indexOf('.') < 0 && property.indexOf('[') < 0;
+        if (simpleProperty && Map.class.isAssignableFrom(parameterType)) {
+            return parameterObject -> ((Map<?, ?>) parameterObject).get(property);
+        }
+        if (simpleProperty) {
+            MetaClass metaClass = MetaClass.forClass(parameterType);
+            if (metaClass.hasGetter(property)) {
+                Invoker invoker = metaClass.getGetInvoker(property);
+                return parameterObject -> invoker.invoke(parameterObject, NO_ARGUMENTS);
+            }
+        }
+        return parameterObject -> configuration.newMetaObject(parameterObject).getValue(property);
+    }
+
+    /**
+     * 是否由这组 ParameterMapping 编译而来；静态 SQL 每次返回同一个列表，动态 SQL 每次都是新列表
+     */
+    public boolean matches(List<ParameterMapping> parameterMappings) {
+        return this.parameterMappings == parameterMappings;
+    }
+
+    public int size() {
+        return slots.length;
+    }
+
+    /**
+     * 取第 i 个占位符的值，foreach 等动态标签生成的附加参数优先
+     */
+    public Object getValue(int i, Object parameterObject, BoundSql boundSql) {
+        Slot slot = slots[i];
+        if (boundSql.hasAdditionalParameters() && boundSql.hasAdditionalParameter(slot.property)) {
+            return boundSql.getAdditionalParameter(slot.property);
+        }
+        if (parameterObject == null) {
+            return null;
+        }
+        try {
+            return slot.getter.get(parameterObject);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException("Could not get parameter '" + slot.property + "' from " + parameterObject.getClass() + ". Cause: " + t, t);
+        }
+    }
+
+    /**
+     * 按槽位顺序设置全部参数
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void bind(PreparedStatement ps, Object parameterObject, BoundSql boundSql) throws SQLException {
+        for (int i = 0; i < slots.length; i++) {
+            Slot slot = slots[i];
+            Object value = getValue(i, parameterObject, boundSql);
+            TypeHandler typeHandler = slot.typeHandler;
+            // 编译时只知道是 Object 的参数（如 Map 参数），按值的实际类型查找处理器
+            if (typeHandler == null && value != null) {
+                typeHandler = typeHandlerRegistry.getTypeHandler(value.getClass(), slot.jdbcType);
+                if (typeHandler == null) {
+                    throw new RuntimeException("No TypeHandler found for parameter '" + slot.property + "' of type " + value.getClass().getName());
+                }
+            }
+            if (typeHandler == null) {
+                ps.setNull(i + 1, slot.jdbcType == null ? Types.NULL : slot.jdbcType.TYPE_CODE);
+            } else {
+                typeHandler.setParameter(ps, i + 1, value, slot.jdbcType);
+            }
+        }
+    }
+
+    private interface Getter {
+        Object get(Object parameterObject) throws Throwable;
+    }
+
+    /**
+     * 单个占位符：属性名、取值方式、类型处理器和 jdbcType
+     */
+    private static final class Slot {
+
+        private final String property;
+        private final Getter getter;
+        private final TypeHandler<?> typeHandler;
+        private final JdbcType jdbcType;
+
+        Slot(String property, Getter getter, TypeHandler<?> typeHandler, JdbcType jdbcType) {
+            this.property = property;
+            this.getter = getter;
+            this.typeHandler = typeHandler;
+            this.jdbcType = jdbcType;
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+package cn.myth.mybatis.executor.resulset;
+
+import cn.myth.mybatis.mapping.ResultMap;
+import cn.myth.mybatis.reflection.MetaClass;
+import cn.myth.mybatis.session.Configuration;
+import cn.myth.mybatis.type.TypeHandler;
+import cn.myth.mybatis.type.TypeHandlerRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 自动映射计划
+ * 对 (ResultMap, 列前缀, 列标签, JDBC类型) 相同的结果集，已映射/未映射列的划分、未映射列对应的属性、setter 类型和类型处理器都是相同的，
+ * 分析一次后缓存在 Configuration 的 AutoMappingPlanCache 中，同一语句重复执行时不再分析结果集元数据。
+ */
+public class AutoMappingPlan {
+
+    // 已在 ResultMap 中配置映射的列，大写
+    private final Set<String> mappedColumnNames;
+    // 未配置映射、需要自动映射的列
+    private final List<String> unmappedColumnNames;
+    // 未映射列对应的属性，只有普通 JavaBean 结果类型才会解析
+    private final List<AutoMapping> autoMappings;
+    // 普通 JavaBean 的行映射计划，不适用时为 null
+    private final RowMappingPlan rowMappingPlan;
+
+    private AutoMappingPlan(Set<String> mappedColumnNames, List<String> unmappedColumnNames, List<AutoMapping> autoMappings, RowMappingPlan rowMappingPlan) {
+        this.mappedColumnNames = Collections.unmodifiableSet(mappedColumnNames);
+        this.unmappedColumnNames = Collections.unmodifiableList(unmappedColumnNames);
+        this.autoMappings = Collections.unmodifiableList(autoMappings);
+        this.rowMappingPlan = rowMappingPlan;
+    }
+
+    /**
+     * 分析结果集的列，生成自动映射计划
+     *
+     * @param columnNames      列标签，按列序排列
+     * @param upperColumnNames 大写列标签，与 columnNames 一一对应
+     */
+    public static AutoMappingPlan build(ResultMap resultMap, String columnPrefix, List<String> columnNames, List<String> upperColumnNames, Configuration configuration) {
+        final String upperColumnPrefix = columnPrefix == null ? null : columnPrefix.toUpperCase(Locale.ENGLISH);
+        final Set<String> mappedColumns = prependPrefixes(resultMap.getMappedColumns(), upperColumnPrefix);
+        final Set<String> mappedColumnNames = new HashSet<>();
+        final List<String> unmappedColumnNames = new ArrayList<>();
+        final List<Integer> unmappedColumnIndexes = new ArrayList<>();
+        for (int i = 0; i < columnNames.size(); i++) {
+            final String upperColumnName = upperColumnNames.get(i);
+            if (mappedColumns != null && mappedColumns.contains(upperColumnName)) {
+                mappedColumnNames.add(upperColumnName);
+            } else {
+                unmappedColumnNames.add(columnNames.get(i));
+                unmappedColumnIndexes.add(i + 1);
+            }
+        }
+
+        final List<AutoMapping> autoMappings = new ArrayList<>();
+        RowMappingPlan rowMappingPlan = null;
+        if (RowMappingPlan.isApplicable(resultMap, configuration)) {
+            final MetaClass metaClass = MetaClass.forClass(resultMap.getType());
+            final TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+            for (int i = 0; i < unmappedColumnNames.size(); i++) {
+                final String columnName = unmappedColumnNames.get(i);
+                String propertyName = columnName;
+                if (upperColumnPrefix != null && !upperColumnPrefix.isEmpty()) {
+                    // 指定了列前缀时，忽略不带前缀的列
+                    if (columnName.toUpperCase(Locale.ENGLISH).startsWith(upperColumnPrefix)) {
+                        propertyName = columnName.substring(upperColumnPrefix.length());
+                    } else {
+                        continue;
+                    }
+                }
+                final String property = metaClass.findProperty(propertyName, false);
+                if (property == null || !metaClass.hasSetter(property)) {
+                    continue;
+                }
+                final Class<?> propertyType = metaClass.getSetterType(property);
+                if (!typeHandlerRegistry.hasTypeHandler(propertyType)) {
+                    continue;
+                }
+                autoMappings.add(new AutoMapping(unmappedColumnIndexes.get(i), columnName, property, propertyType,
+                        typeHandlerRegistry.getTypeHandler(propertyType, null)));
+            }
+            rowMappingPlan = RowMappingPlan.compile(resultMap, autoMappings, upperColumnNames, configuration);
+        }
+        return new AutoMappingPlan(mappedColumnNames, unmappedColumnNames, autoMappings, rowMappingPlan);
+    }
+
+    private static Set<String> prependPrefixes(Set<String> columnNames, String prefix) {
+        if (columnNames == null || columnNames.isEmpty() || prefix == null || prefix.length() == 0) {
+            return columnNames;
+        }
+        final Set<String> prefixed = new HashSet<>();
+        for (String columnName : columnNames) {
+            prefixed.add(prefix + columnName);
+        }
+        return prefixed;
+    }
+
+    public Set<String> getMappedColumnNames() {
+        return mappedColumnNames;
+    }
+
+    public List<String> getUnmappedColumnNames() {
+        return unmappedColumnNames;
+    }
+
+    public List<AutoMapping> getAutoMappings() {
+        return autoMappings;
+    }
+
+    public RowMappingPlan getRowMappingPlan() {
+        return rowMappingPlan;
+    }
+
+    /**
+     * 单列自动映射：列序号、列名、属性名、setter 类型、类型处理器
+     */
+    public static class AutoMapping {
+
+        private final int columnIndex;
+        private final String column;
+        private final String property;
+        private final Class<?> propertyType;
+        private final TypeHandler<?> typeHandler;
+
+        public AutoMapping(int columnIndex, String column, String property, Class<?> propertyType, TypeHandler<?> typeHandler) {
+            this.columnIndex = columnIndex;
+            this.column = column;
+            this.property = property;
+            this.propertyType = propertyType;
+            this.typeHandler = typeHandler;
+        }
+
+        public int getColumnIndex() {
+            return columnIndex;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        public Class<?> getPropertyType() {
+            return propertyType;
+        }
+
+        public TypeHandler<?> getTypeHandler() {
+            return typeHandler;
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package cn.myth.mybatis.executor.resulset;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 自动映射计划缓存，Configuration 级别，所有会话共享
+ * 有界：超过容量时按加入顺序淘汰最早的计划。命中、未命中、淘汰次数可用于调整容量。
+ */
+public class AutoMappingPlanCache {
+
+    private final ConcurrentHashMap<String, AutoMappingPlan> plans = new ConcurrentHashMap<>();
+    // 加入顺序，用于淘汰
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    private volatile int maxSize;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public AutoMappingPlanCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 获取计划，没有时调用 builder 生成；并发未命中时可能重复生成，但只保留第一个
+     */
+    public AutoMappingPlan get(String key, Supplier<AutoMappingPlan> builder) {
+        AutoMappingPlan plan = plans.get(key);
+        if (plan != null) {
+            hitCount.incrementAndGet();
+            return plan;
+        }
+        missCount.incrementAndGet();
+        plan = builder.get();
+        if (maxSize <= 0) {
+            return plan;
+        }
+        AutoMappingPlan previous = plans.putIfAbsent(key, plan);
+        if (previous != null) {
+            return previous;
+        }
+        insertionOrder.add(key);
+        while (plans.size() > maxSize) {
+            String eldest = insertionOrder.poll();
+            if (eldest == null) {
+                break;
+            }
+            if (plans.remove(eldest) != null) {
+                evictionCount.incrementAndGet();
+            }
+        }
+        return plan;
+    }
+
+    public void clear() {
+        plans.clear();
+        insertionOrder.clear();
+    }
+
+    public int size() {
+        return plans.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+}
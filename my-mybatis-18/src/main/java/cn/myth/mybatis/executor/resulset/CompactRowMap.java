@@ -0,0 +1,189 @@
+package cn.myth.mybatis.executor.resulset;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 紧凑行 Map，resultType="map" 时使用
+ * 同一个结果集的所有行共享一张不可变的列名表，每行只保存一个 Object[]，不再为每行创建 HashMap 及其 Entry。
+ * 与 HashMap 结果一致，值为 null 的列不出现在 Map 中。
+ * 默认只读；调用 put、remove 等修改方法时先复制为本行私有的 LinkedHashMap，之后的读写都在副本上进行，不影响共享的列名表。
+ */
+public final class CompactRowMap extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ColumnTable table;
+    private final Object[] values;
+    private final int size;
+    // 修改后的副本，未修改时为 null
+    private Map<String, Object> copy;
+
+    public CompactRowMap(ColumnTable table, Object[] values) {
+        if (values.length != table.keys.length) {
+            throw new IllegalArgumentException("Expected " + table.keys.length + " values but got " + values.length);
+        }
+        this.table = table;
+        this.values = values;
+        int count = 0;
+        for (Object value : values) {
+            if (value != null) {
+                count++;
+            }
+        }
+        this.size = count;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (copy != null) {
+            return copy.get(key);
+        }
+        Integer slot = table.slots.get(key);
+        return slot == null ? null : values[slot];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return copy != null ? copy.containsKey(key) : get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return copy != null ? copy.size() : size;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (copy != null) {
+            return copy.entrySet();
+        }
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return writable().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return writable().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        writable().clear();
+    }
+
+    // 写时复制，保持列顺序
+    private Map<String, Object> writable() {
+        if (copy == null) {
+            Map<String, Object> map = new LinkedHashMap<>(table.keys.length * 2);
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) {
+                    map.put(table.keys[i], values[i]);
+                }
+            }
+            copy = map;
+        }
+        return copy;
+    }
+
+    /**
+     * 只读遍历，跳过值为 null 的列
+     */
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+
+        private int next = advance(0);
+
+        private int advance(int from) {
+            while (from < values.length && values[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<String, Object> entry = new SimpleImmutableEntry<>(table.keys[next], values[next]);
+            next = advance(next + 1);
+            return entry;
+        }
+    }
+
+    /**
+     * 列名表：Map 的 key 与对应的结果集列序号，一个结果集一张，所有行共享
+     * 重名列只保留一个 key，与依次 put 进 HashMap 一样取最后一列的值
+     */
+    public static final class ColumnTable implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String[] keys;
+        // 列序号，从1开始，与 keys 一一对应
+        private final int[] columnIndexes;
+        private final Map<String, Integer> slots;
+
+        public ColumnTable(List<String> columnNames) {
+            Map<String, Integer> slots = new HashMap<>(columnNames.size() * 2);
+            int[] columnIndexes = new int[columnNames.size()];
+            int count = 0;
+            for (int i = 0; i < columnNames.size(); i++) {
+                Integer slot = slots.get(columnNames.get(i));
+                if (slot == null) {
+                    slot = count++;
+                    slots.put(columnNames.get(i), slot);
+                }
+                columnIndexes[slot] = i + 1;
+            }
+            this.keys = new String[count];
+            for (Map.Entry<String, Integer> entry : slots.entrySet()) {
+                keys[entry.getValue()] = entry.getKey();
+            }
+            this.columnIndexes = Arrays.copyOf(columnIndexes, count);
+            this.slots = Collections.unmodifiableMap(slots);
+        }
+
+        public int size() {
+            return keys.length;
+        }
+
+        public String getKey(int slot) {
+            return keys[slot];
+        }
+
+        public int getColumnIndex(int slot) {
+            return columnIndexes[slot];
+        }
+    }
+
+}
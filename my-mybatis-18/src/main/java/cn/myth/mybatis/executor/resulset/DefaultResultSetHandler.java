@@ -1,5 +1,7 @@
 package cn.myth.mybatis.executor.resulset;
 
+import cn.myth.mybatis.cursor.Cursor;
+import cn.myth.mybatis.cursor.defaults.DefaultCursor;
 import cn.myth.mybatis.executor.Executor;
 import cn.myth.mybatis.executor.result.DefaultResultContext;
 import cn.myth.mybatis.executor.result.DefaultResultHandler;
@@ -11,6 +13,7 @@ import cn.myth.mybatis.reflection.MetaClass;
 import cn.myth.mybatis.reflection.MetaObject;
 import cn.myth.mybatis.reflection.factory.ObjectFactory;
 import cn.myth.mybatis.session.Configuration;
+import cn.myth.mybatis.session.ResultContext;
 import cn.myth.mybatis.session.ResultHandler;
 import cn.myth.mybatis.session.RowBounds;
 import cn.myth.mybatis.type.TypeHandler;
@@ -22,6 +25,8 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 默认Map结果处理器
@@ -75,6 +80,20 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         return multipleResults.size() == 1 ? (List<Object>) multipleResults.get(0) : multipleResults;
     }
 
+    /**
+     * 游标方式处理结果集，不在这里读取数据，由游标迭代时逐行映射
+     */
+    @Override
+    public <E> Cursor<E> handleCursorResultSets(Statement stmt) throws SQLException {
+        ResultSetWrapper rsw = new ResultSetWrapper(stmt.getResultSet(), configuration);
+        List<ResultMap> resultMaps = mappedStatement.getResultMaps();
+        if (resultMaps.size() != 1) {
+            throw new RuntimeException("Cursor results cannot be mapped to multiple resultMaps");
+        }
+        ResultMap resultMap = resultMaps.get(0);
+        return new DefaultCursor<>(this, resultMap, rsw, rowBounds);
+    }
+
     private ResultSetWrapper getNextResultSet(Statement stmt) {
         // Making this method tolerant of bad JDBC drivers
         try {
@@ -96,17 +115,26 @@ public class DefaultResultSetHandler implements ResultSetHandler {
             // 1.新创建结果处理器
             DefaultResultHandler defaultResultHandler = new DefaultResultHandler(objectFactory);
             // 2.封装结果数据
-            handleRowValuesForSimpleResultMap(rsw, resultMap, defaultResultHandler, rowBounds, null);
+            handleRowValues(rsw, resultMap, defaultResultHandler, rowBounds, null);
             // 3.保存结果，从resultHandler拿到上下文结果数据
             multipleResults.add(defaultResultHandler.getResultList());
+        } else {
+            // 使用方自定义的结果处理器，每映射一行直接回调，不经过中间List
+            handleRowValues(rsw, resultMap, resultHandler, rowBounds, null);
         }
     }
 
+    public void handleRowValues(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler resultHandler, RowBounds rowBounds, ResultMapping parentMapping) throws SQLException {
+        handleRowValuesForSimpleResultMap(rsw, resultMap, resultHandler, rowBounds, parentMapping);
+    }
+
     private void handleRowValuesForSimpleResultMap(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler resultHandler, RowBounds rowBounds, ResultMapping parentMapping) throws SQLException {
         // 实现默认结果上下文
         DefaultResultContext resultContext = new DefaultResultContext();
         ResultSet resultSet = rsw.getResultSet();
-        while (resultContext.getResultCount() < rowBounds.getLimit() && resultSet.next()) {
+        // 没有物理分页时，在结果集上跳过 offset 行
+        skipRows(resultSet, rowBounds);
+        while (shouldProcessMoreRows(resultContext, rowBounds) && resultSet.next()) {
             // 为对象赋值
             // 1.实例化对象
             // 2.找到未被映射的属性名称
@@ -117,6 +145,26 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
     }
 
+    private void skipRows(ResultSet rs, RowBounds rowBounds) throws SQLException {
+        if (rowBounds.getOffset() == RowBounds.NO_ROW_OFFSET) {
+            return;
+        }
+        if (rs.getType() != ResultSet.TYPE_FORWARD_ONLY) {
+            rs.absolute(rowBounds.getOffset());
+        } else {
+            for (int i = 0; i < rowBounds.getOffset(); i++) {
+                if (!rs.next()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    // 没有被使用方停止，且还没有达到 limit
+    private boolean shouldProcessMoreRows(ResultContext context, RowBounds rowBounds) {
+        return !context.isStopped() && context.getResultCount() < rowBounds.getLimit();
+    }
+
     // 返回结果存储
     private void callResultHandler(ResultHandler resultHandler, DefaultResultContext resultContext, Object rowValue) throws SQLException {
         // 将返回结果赋值给resultContext
@@ -127,6 +175,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
     // 获取一行的值
     private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+        // resultType="map" 且没有配置属性映射，使用共享列名表的紧凑行 Map
+        if (resultMap.getType() == Map.class && resultMap.getResultMappings().isEmpty()) {
+            return getCompactRowValue(rsw);
+        }
+        // 普通 JavaBean 使用预编译的行映射计划
+        RowMappingPlan plan = rsw.getRowMappingPlan(resultMap);
+        if (plan != null) {
+            return plan.map(rsw.getResultSet(), objectFactory, configuration);
+        }
         // 根据返回值类型，实例化对象
         Object resultObject = createResultObject(rsw, resultMap, null);
         if (resultObject != null && !typeHandlerRegistry.hasTypeHandler(resultMap.getType())) {
@@ -140,6 +197,17 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
 
 
+    private Object getCompactRowValue(ResultSetWrapper rsw) throws SQLException {
+        final CompactRowMap.ColumnTable table = rsw.getCompactRowTable();
+        final TypeHandler<?>[] typeHandlers = rsw.getCompactRowTypeHandlers();
+        final ResultSet rs = rsw.getResultSet();
+        final Object[] values = new Object[table.size()];
+        for (int slot = 0; slot < values.length; slot++) {
+            values[slot] = typeHandlers[slot].getResult(rs, table.getColumnIndex(slot));
+        }
+        return new CompactRowMap(table, values);
+    }
+
     private boolean applyAutomaticMapping(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix) throws SQLException {
         // 得到未被处理映射的列名
         final List<String> unmappedColumnNames = rsw.getUnMappedColumnNamesMap(resultMap, columnPrefix);
@@ -165,7 +233,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
                     // 使用 TypeHandler 取得结果
                     final TypeHandler<?> typeHandler = rsw.getTypeHandler(propertyType, columnName);
                     // 根据jdbc的数据获取当前属性名称、类型下的数据
-                    final Object value = typeHandler.getResult(rsw.getResultSet(), columnName);
+                    final Object value = typeHandler.getResult(rsw.getResultSet(), rsw.getColumnIndex(columnName));
                     if (value != null) {
                         foundValues = true;
                     }
@@ -180,15 +248,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
 
     private boolean applyPropertyMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix) throws SQLException {
-        final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
+        final Set<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
         boolean foundValues = false;
         final List<ResultMapping> propertyMappings = resultMap.getPropertyResultMappings();
         for (ResultMapping propertyMapping : propertyMappings) {
-            final String column = propertyMapping.getColumn();
-            if (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
+            final String upperColumn = propertyMapping.getUpperColumn();
+            if (upperColumn != null && mappedColumnNames.contains(upperColumn)) {
                 // 获取值
                 final TypeHandler<?> typeHandler = propertyMapping.getTypeHandler();
-                Object value = typeHandler.getResult(rsw.getResultSet(), column);
+                Object value = typeHandler.getResult(rsw.getResultSet(), rsw.getColumnIndex(upperColumn));
                 // 设置值
                 final String property = propertyMapping.getProperty();
                 if (value != NO_VALUE && property != null && value != null) {
@@ -238,7 +306,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
             columnName = rsw.getColumnNames().get(0);
         }
         final TypeHandler<?> typeHandler = rsw.getTypeHandler(resultType, columnName);
-        return typeHandler.getResult(rsw.getResultSet(), columnName);
+        final Integer columnIndex = rsw.getColumnIndex(columnName);
+        return columnIndex != null ? typeHandler.getResult(rsw.getResultSet(), columnIndex) : typeHandler.getResult(rsw.getResultSet(), columnName);
     }
 
     private String prependPrefix(String columnName, String prefix) {
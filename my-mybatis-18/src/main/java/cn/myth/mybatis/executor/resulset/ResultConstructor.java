@@ -0,0 +1,326 @@
+package cn.myth.mybatis.executor.resulset;
+
+import cn.myth.mybatis.mapping.ResultMap;
+import cn.myth.mybatis.mapping.ResultMapping;
+import cn.myth.mybatis.type.TypeHandler;
+import cn.myth.mybatis.type.TypeHandlerRegistry;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 结果对象构造器
+ * 不可变对象和 Java record 没有 setter，通过构造函数一次性传入列值创建对象。
+ * 构造函数在编译映射计划时解析一次并转为 MethodHandle，映射每行时按参数顺序读取列值直接调用。
+ * 构造函数来源：
+ * 1.ResultMap 中的 <constructor>/<arg> 配置
+ * 2.record 的规范构造函数，按组件名匹配列
+ * 3.只有一个构造函数的类，编译时须保留参数名（-parameters），按参数名匹配列
+ * 不按位置匹配：列顺序与参数顺序不一致时同类型参数会被静默赋错值，未保留参数名时要求在 ResultMap 中配置 <constructor>
+ */
+public class ResultConstructor {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final Class<?> resultType;
+    // (Object[])Object
+    private final MethodHandle constructor;
+    private final int[] columnIndexes;
+    private final TypeHandler<?>[] typeHandlers;
+    // 基本类型参数列值为 null 时传入的默认值
+    private final Object[] nullValues;
+
+    private ResultConstructor(Class<?> resultType, Constructor<?> constructor, int[] columnIndexes, TypeHandler<?>[] typeHandlers) {
+        this.resultType = resultType;
+        this.columnIndexes = columnIndexes;
+        this.typeHandlers = typeHandlers;
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        this.nullValues = new Object[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            nullValues[i] = defaultValue(parameterTypes[i]);
+        }
+        try {
+            constructor.setAccessible(true);
+            this.constructor = LOOKUP.unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, parameterTypes.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (Exception e) {
+            throw new RuntimeException("Error resolving constructor of " + resultType + ". Cause: " + e, e);
+        }
+    }
+
+    /**
+     * 结果类型需要（或配置了）构造函数映射
+     */
+    public static boolean isApplicable(ResultMap resultMap) {
+        Class<?> type = resultMap.getType();
+        if (!resultMap.getConstructorResultMappings().isEmpty()) {
+            return true;
+        }
+        return isRecord(type) || (!hasDefaultConstructor(type) && type.getDeclaredConstructors().length == 1);
+    }
+
+    /**
+     * 解析构造函数及各参数对应的列
+     *
+     * @param upperColumnNames 结果集大写列标签，按列序排列
+     */
+    public static ResultConstructor resolve(ResultMap resultMap, List<String> upperColumnNames, TypeHandlerRegistry typeHandlerRegistry) {
+        Class<?> type = resultMap.getType();
+        List<ResultMapping> constructorMappings = resultMap.getConstructorResultMappings();
+        if (!constructorMappings.isEmpty()) {
+            return resolveConfigured(type, constructorMappings, upperColumnNames, typeHandlerRegistry);
+        }
+        Constructor<?> constructor;
+        String[] names;
+        if (isRecord(type)) {
+            Object[] components = recordComponents(type);
+            Class<?>[] componentTypes = new Class<?>[components.length];
+            names = new String[components.length];
+            for (int i = 0; i < components.length; i++) {
+                names[i] = (String) invoke(components[i], "getName");
+                componentTypes[i] = (Class<?>) invoke(components[i], "getType");
+            }
+            try {
+                constructor = type.getDeclaredConstructor(componentTypes);
+            } catch (NoSuchMethodException e) {
+                throw new RuntimeException("No canonical constructor found for record " + type + ". Cause: " + e, e);
+            }
+        } else {
+            constructor = type.getDeclaredConstructors()[0];
+            names = parameterNames(constructor);
+            if (names == null) {
+                throw new RuntimeException("Constructor parameter names of " + type + " are not available. "
+                        + "Compile with -parameters or use <constructor> in the resultMap.");
+            }
+        }
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        int[] columnIndexes = new int[parameterTypes.length];
+        TypeHandler<?>[] typeHandlers = new TypeHandler<?>[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            int columnIndex = findColumn(upperColumnNames, names[i]);
+            if (columnIndex < 0) {
+                throw new RuntimeException("No column found for constructor parameter '" + names[i] + "' of " + type);
+            }
+            columnIndexes[i] = columnIndex + 1;
+            typeHandlers[i] = typeHandlerFor(parameterTypes[i], null, typeHandlerRegistry, type);
+        }
+        return new ResultConstructor(type, constructor, columnIndexes, typeHandlers);
+    }
+
+    // <constructor> 配置：参数都有 javaType 时按类型精确查找，否则在参数个数相同的构造函数中按参数名或唯一性选择
+    private static ResultConstructor resolveConfigured(Class<?> type, List<ResultMapping> mappings, List<String> upperColumnNames, TypeHandlerRegistry typeHandlerRegistry) {
+        Constructor<?> constructor = null;
+        List<Constructor<?>> candidates = new ArrayList<>();
+        for (Constructor<?> candidate : type.getDeclaredConstructors()) {
+            if (candidate.getParameterCount() == mappings.size()) {
+                candidates.add(candidate);
+            }
+        }
+        for (Constructor<?> candidate : candidates) {
+            if (matchesTypes(candidate, mappings)) {
+                constructor = candidate;
+                break;
+            }
+        }
+        if (constructor == null && candidates.size() == 1) {
+            constructor = candidates.get(0);
+        }
+        if (constructor == null) {
+            throw new RuntimeException("No constructor of " + type + " matches the " + mappings.size() + " <arg> mappings of its resultMap");
+        }
+        // 指定了参数名且编译时保留了参数名时，按参数名调整顺序
+        List<ResultMapping> ordered = mappings;
+        String[] names = parameterNames(constructor);
+        if (names != null && allNamed(mappings)) {
+            ordered = new ArrayList<>();
+            for (String name : names) {
+                ResultMapping match = null;
+                for (ResultMapping mapping : mappings) {
+                    if (name.equals(mapping.getProperty())) {
+                        match = mapping;
+                    }
+                }
+                if (match == null) {
+                    throw new RuntimeException("No <arg> named '" + name + "' for constructor of " + type);
+                }
+                ordered.add(match);
+            }
+        }
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        int[] columnIndexes = new int[parameterTypes.length];
+        TypeHandler<?>[] typeHandlers = new TypeHandler<?>[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            ResultMapping mapping = ordered.get(i);
+            // <arg> 未配置列时序号为 0，参数传入 null（基本类型为默认值）；配置了列但结果集中没有时报错，避免列名写错时静默传入默认值
+            if (mapping.getUpperColumn() == null) {
+                columnIndexes[i] = 0;
+            } else {
+                int columnIndex = upperColumnNames.indexOf(mapping.getUpperColumn());
+                if (columnIndex < 0) {
+                    throw new RuntimeException("No column '" + mapping.getColumn() + "' found in the result set for <arg> " + i + " of constructor of " + type);
+                }
+                columnIndexes[i] = columnIndex + 1;
+            }
+            typeHandlers[i] = typeHandlerFor(parameterTypes[i], mapping, typeHandlerRegistry, type);
+        }
+        return new ResultConstructor(type, constructor, columnIndexes, typeHandlers);
+    }
+
+    /**
+     * 读取当前行的列值并调用构造函数
+     */
+    public Object newInstance(ResultSet rs) throws SQLException {
+        final Object[] args = new Object[columnIndexes.length];
+        for (int i = 0; i < columnIndexes.length; i++) {
+            Object value = columnIndexes[i] > 0 ? typeHandlers[i].getResult(rs, columnIndexes[i]) : null;
+            args[i] = value != null ? value : nullValues[i];
+        }
+        try {
+            return (Object) constructor.invokeExact(args);
+        } catch (RuntimeException | Error | SQLException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException("Error instantiating " + resultType + " with constructor mapping. Cause: " + t, t);
+        }
+    }
+
+    /**
+     * 构造函数参数使用的列序号（从1开始），这些列不再通过 setter 自动映射
+     */
+    public int[] getColumnIndexes() {
+        return columnIndexes.clone();
+    }
+
+    private static TypeHandler<?> typeHandlerFor(Class<?> parameterType, ResultMapping mapping, TypeHandlerRegistry registry, Class<?> type) {
+        if (mapping != null && mapping.getTypeHandler() != null && mapping.getJavaType() != Object.class) {
+            return mapping.getTypeHandler();
+        }
+        Class<?> lookupType = parameterType;
+        if (!registry.hasTypeHandler(lookupType) && parameterType.isPrimitive()) {
+            lookupType = MethodType.methodType(parameterType).wrap().returnType();
+        }
+        if (!registry.hasTypeHandler(lookupType)) {
+            throw new RuntimeException("No TypeHandler found for constructor parameter type " + parameterType.getName() + " of " + type);
+        }
+        return registry.getTypeHandler(lookupType, null);
+    }
+
+    private static boolean matchesTypes(Constructor<?> constructor, List<ResultMapping> mappings) {
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Class<?> javaType = mappings.get(i).getJavaType();
+            if (javaType == null || javaType == Object.class) {
+                continue;
+            }
+            Class<?> parameterType = parameterTypes[i].isPrimitive() && !javaType.isPrimitive()
+                    ? MethodType.methodType(parameterTypes[i]).wrap().returnType() : parameterTypes[i];
+            if (!parameterType.isAssignableFrom(javaType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean allNamed(List<ResultMapping> mappings) {
+        for (ResultMapping mapping : mappings) {
+            if (mapping.getProperty() == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 列名与参数名忽略大小写和下划线比较，如 activity_id 对应 activityId
+    private static int findColumn(List<String> upperColumnNames, String name) {
+        String upperName = name.toUpperCase(Locale.ENGLISH);
+        int index = upperColumnNames.indexOf(upperName);
+        if (index >= 0) {
+            return index;
+        }
+        for (int i = 0; i < upperColumnNames.size(); i++) {
+            if (upperColumnNames.get(i).replace("_", "").equals(upperName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // 编译时未保留参数名（arg0、arg1...）时返回 null
+    private static String[] parameterNames(Constructor<?> constructor) {
+        Parameter[] parameters = constructor.getParameters();
+        String[] names = new String[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            if (!parameters[i].isNamePresent()) {
+                return null;
+            }
+            names[i] = parameters[i].getName();
+        }
+        return names;
+    }
+
+    private static boolean hasDefaultConstructor(Class<?> type) {
+        try {
+            type.getDeclaredConstructor();
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    // 源码兼容 JDK 8，record 相关 API 通过反射调用
+    private static boolean isRecord(Class<?> type) {
+        return type.getSuperclass() != null && "java.lang.Record".equals(type.getSuperclass().getName())
+                && Modifier.isFinal(type.getModifiers());
+    }
+
+    private static Object[] recordComponents(Class<?> type) {
+        try {
+            return (Object[]) Class.class.getMethod("getRecordComponents").invoke(type);
+        } catch (Exception e) {
+            throw new RuntimeException("Error reading record components of " + type + ". Cause: " + e, e);
+        }
+    }
+
+    private static Object invoke(Object target, String methodName) {
+        try {
+            Method method = target.getClass().getMethod(methodName);
+            return method.invoke(target);
+        } catch (Exception e) {
+            throw new RuntimeException("Error reading record component. Cause: " + e, e);
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return null;
+        } else if (type == boolean.class) {
+            return Boolean.FALSE;
+        } else if (type == char.class) {
+            return '\0';
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == float.class) {
+            return 0F;
+        } else {
+            return 0D;
+        }
+    }
+
+}
@@ -1,5 +1,7 @@
 package cn.myth.mybatis.executor.resulset;
 
+import cn.myth.mybatis.cursor.Cursor;
+
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
@@ -10,4 +12,6 @@ import java.util.List;
 public interface ResultSetHandler {
 
     <E> List<E> handleResultSets(Statement stmt) throws SQLException;
+
+    <E> Cursor<E> handleCursorResultSets(Statement stmt) throws SQLException;
 }
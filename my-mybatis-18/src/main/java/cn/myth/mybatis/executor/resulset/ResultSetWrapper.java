@@ -4,6 +4,7 @@ import cn.myth.mybatis.io.Resources;
 import cn.myth.mybatis.mapping.ResultMap;
 import cn.myth.mybatis.session.Configuration;
 import cn.myth.mybatis.type.JdbcType;
+import cn.myth.mybatis.type.ObjectTypeHandler;
 import cn.myth.mybatis.type.TypeHandler;
 import cn.myth.mybatis.type.TypeHandlerRegistry;
 
@@ -23,24 +24,35 @@ public class ResultSetWrapper {
     private final TypeHandlerRegistry typeHandlerRegistry;
     // 属性名称
     private final List<String> columnNames = new ArrayList<>();
+    // 大写列名，与 columnNames 一一对应
+    private final List<String> upperColumnNames = new ArrayList<>();
+    // 大写列名 -> 列序号（从1开始），重名列取第一列，与 JDBC findColumn 一致
+    private final Map<String, Integer> columnIndexMap = new HashMap<>();
     private final List<String> classNames = new ArrayList<>();
     // JDBC类型
     private final List<JdbcType> jdbcTypes = new ArrayList<>();
     private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new HashMap<>();
-    // 已被映射的缓存
-    private final Map<String, List<String>> mappedColumnNamesMap = new HashMap<>();
-    // 未被映射的缓存
-    private final Map<String, List<String>> unMappedColumnNamesMap = new HashMap<>();
+    private final Configuration configuration;
+    // 本结果集使用的自动映射计划，key：ResultMap id + 列前缀
+    private final Map<String, AutoMappingPlan> autoMappingPlanMap = new HashMap<>();
+    // resultType="map" 时所有行共享的列名表，以及每个 key 对应列的类型处理器
+    private CompactRowMap.ColumnTable compactRowTable;
+    private TypeHandler<?>[] compactRowTypeHandlers;
 
     public ResultSetWrapper(ResultSet rs, Configuration configuration) throws SQLException {
         super();
         this.resultSet = rs;
+        this.configuration = configuration;
         this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
         final ResultSetMetaData metaData = rs.getMetaData();
         final int columnCount = metaData.getColumnCount();
         // 处理属性名称封装，jdbc类型封装，属性类型封装
         for (int i = 1; i <= columnCount; i++) {
-            columnNames.add(metaData.getColumnLabel(i));
+            String columnLabel = metaData.getColumnLabel(i);
+            String upperColumnLabel = columnLabel.toUpperCase(Locale.ENGLISH);
+            columnNames.add(columnLabel);
+            upperColumnNames.add(upperColumnLabel);
+            columnIndexMap.putIfAbsent(upperColumnLabel, i);
             jdbcTypes.add(JdbcType.forCode(metaData.getColumnType(i)));
             classNames.add(metaData.getColumnClassName(i));
         }
@@ -54,6 +66,18 @@ public class ResultSetWrapper {
         return this.columnNames;
     }
 
+    /**
+     * 列名转为列序号，结果集的列在构造时就已确定，每行取值都按序号读取，不必让驱动按列名查找
+     * @return 列序号，不存在时返回 null
+     */
+    public Integer getColumnIndex(String columnName) {
+        Integer index = columnIndexMap.get(columnName);
+        if (index == null) {
+            index = columnIndexMap.get(columnName.toUpperCase(Locale.ENGLISH));
+        }
+        return index;
+    }
+
     public List<String> getClassNames() {
         return this.classNames;
     }
@@ -76,65 +100,83 @@ public class ResultSetWrapper {
         return handler;
     }
 
-    private Class<?> resolveClass(String className) {
-        try {
-            return Resources.classForName(className);
-        } catch (ClassNotFoundException e) {
-            return null;
+    /**
+     * 获取行映射计划，普通 JavaBean 的计划随自动映射计划一起生成
+     * @return 结果类型不适用映射计划时返回 null
+     */
+    public RowMappingPlan getRowMappingPlan(ResultMap resultMap) {
+        return getAutoMappingPlan(resultMap, null).getRowMappingPlan();
+    }
+
+    /**
+     * 获取自动映射计划，先查本结果集，再查 Configuration 中的全局缓存，都没有时分析一次
+     */
+    public AutoMappingPlan getAutoMappingPlan(ResultMap resultMap, String columnPrefix) {
+        String mapKey = getMapKey(resultMap, columnPrefix);
+        AutoMappingPlan plan = autoMappingPlanMap.get(mapKey);
+        if (plan == null) {
+            plan = configuration.getAutoMappingPlanCache().get(getPlanKey(resultMap, columnPrefix),
+                    () -> AutoMappingPlan.build(resultMap, columnPrefix, columnNames, upperColumnNames, configuration));
+            autoMappingPlanMap.put(mapKey, plan);
         }
+        return plan;
     }
 
-    // 获取未被映射的属性
-    public List<String> getUnMappedColumnNamesMap(ResultMap resultMap, String columnPrefix) throws SQLException {
-        List<String> unMappedColumnNames = unMappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
-        if (unMappedColumnNames == null) {
-            // 加载没有被映射的属性名
-            loadMappedAndUnmappedColumnNames(resultMap, columnPrefix);
-            // 从缓存获取未被映射的属性名数据
-            unMappedColumnNames = unMappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
+    // 全局缓存的 key：ResultMap id、列前缀、类型处理器注册表版本、列标签、JDBC类型
+    // 计划中保存了解析好的类型处理器，运行期注册新处理器后注册表版本变化，旧计划不再命中，由容量淘汰
+    private String getPlanKey(ResultMap resultMap, String columnPrefix) {
+        StringBuilder key = new StringBuilder(resultMap.getId()).append(':').append(columnPrefix)
+                .append('@').append(configuration.getTypeHandlerRegistry().getGeneration());
+        for (int i = 0; i < columnNames.size(); i++) {
+            key.append('|').append(columnNames.get(i)).append(':').append(jdbcTypes.get(i));
         }
-        return unMappedColumnNames;
+        return key.toString();
     }
 
-    public List<String> getMappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
-        List<String> mappedColumnNames = mappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
-        if (mappedColumnNames == null) {
-            loadMappedAndUnmappedColumnNames(resultMap, columnPrefix);
-            mappedColumnNames = mappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
+    /**
+     * 紧凑行 Map 的列名表，key 为结果集的原始列标签
+     */
+    public CompactRowMap.ColumnTable getCompactRowTable() {
+        if (compactRowTable == null) {
+            compactRowTable = new CompactRowMap.ColumnTable(columnNames);
         }
-        return mappedColumnNames;
+        return compactRowTable;
     }
 
-    // 加载没有被映射的属性名
-    private void loadMappedAndUnmappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
-        // 有被映射的属性名
-        List<String> mappedColumNames = new ArrayList<>();
-        // 没有被映射的属性名
-        List<String> unmappedColumnNames = new ArrayList<>();
-        final String upperColumnPrefix = columnPrefix == null ? null : columnPrefix.toUpperCase(Locale.ENGLISH);
-        final Set<String> mappedColumns = prependPrefixes(resultMap.getMappedColumns(), upperColumnPrefix);
-        // 已被映射的属性名
-        for (String columnName : columnNames) {
-            final String upperColumnName = columnName.toUpperCase(Locale.ENGLISH);
-            if (mappedColumns.contains(upperColumnName)) {
-                mappedColumNames.add(upperColumnName);
-            } else {
-                unmappedColumnNames.add(columnName);
+    /**
+     * 紧凑行 Map 各列的类型处理器，按驱动报告的列 Java 类型查找，找不到时使用 ObjectTypeHandler
+     */
+    public TypeHandler<?>[] getCompactRowTypeHandlers() {
+        if (compactRowTypeHandlers == null) {
+            CompactRowMap.ColumnTable table = getCompactRowTable();
+            TypeHandler<?>[] handlers = new TypeHandler<?>[table.size()];
+            for (int slot = 0; slot < handlers.length; slot++) {
+                int index = table.getColumnIndex(slot) - 1;
+                String className = classNames.get(index);
+                Class<?> javaType = className == null ? null : resolveClass(className);
+                TypeHandler<?> handler = javaType == null ? null : typeHandlerRegistry.getTypeHandler(javaType, jdbcTypes.get(index));
+                handlers[slot] = handler != null ? handler : new ObjectTypeHandler();
             }
+            compactRowTypeHandlers = handlers;
         }
-        mappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), mappedColumNames);
-        unMappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), unmappedColumnNames);
+        return compactRowTypeHandlers;
     }
 
-    private Set<String> prependPrefixes(Set<String> columnNames, String prefix) {
-        if (columnNames == null || columnNames.isEmpty() || prefix == null || prefix.length() == 0) {
-            return columnNames;
-        }
-        final Set<String> prefixed = new HashSet<>();
-        for (String columnName : columnNames) {
-            prefixed.add(prefix + columnName);
+    private Class<?> resolveClass(String className) {
+        try {
+            return Resources.classForName(className);
+        } catch (ClassNotFoundException e) {
+            return null;
         }
-        return prefixed;
+    }
+
+    // 获取未被映射的属性
+    public List<String> getUnMappedColumnNamesMap(ResultMap resultMap, String columnPrefix) throws SQLException {
+        return getAutoMappingPlan(resultMap, columnPrefix).getUnmappedColumnNames();
+    }
+
+    public Set<String> getMappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
+        return getAutoMappingPlan(resultMap, columnPrefix).getMappedColumnNames();
     }
 
     private String getMapKey(ResultMap resultMap, String columnPrefix) {
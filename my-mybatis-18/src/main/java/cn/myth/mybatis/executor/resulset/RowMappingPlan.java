@@ -0,0 +1,246 @@
+package cn.myth.mybatis.executor.resulset;
+
+import cn.myth.mybatis.mapping.ResultMap;
+import cn.myth.mybatis.mapping.ResultMapping;
+import cn.myth.mybatis.reflection.MetaClass;
+import cn.myth.mybatis.reflection.invoker.Invoker;
+import cn.myth.mybatis.reflection.invoker.Invokers;
+import cn.myth.mybatis.reflection.invoker.LambdaSetterInvoker;
+import cn.myth.mybatis.reflection.factory.ObjectFactory;
+import cn.myth.mybatis.session.Configuration;
+import cn.myth.mybatis.type.DoubleTypeHandler;
+import cn.myth.mybatis.type.IntegerTypeHandler;
+import cn.myth.mybatis.type.LongTypeHandler;
+import cn.myth.mybatis.type.TypeHandler;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * 行映射计划
+ * 对同一个 ResultMap 和同一组结果集列，自动映射时要查找的属性名、setter、属性类型和类型处理器都是固定的，
+ * 这里编译一次并缓存在 Configuration 中，映射每一行时只需按计划取值、调用 setter，不再创建 MetaObject、解析属性名。
+ * 处理有默认构造函数的普通 JavaBean，以及通过构造函数创建的不可变对象、record；Map、集合、简单类型等结果仍走 MetaObject 通用流程。
+ */
+public class RowMappingPlan {
+
+    private final Class<?> resultType;
+    // 构造函数映射，为 null 时通过 ObjectFactory 调用默认构造函数
+    private final ResultConstructor resultConstructor;
+    // 先自动映射，再按 ResultMap 配置映射，与通用流程顺序一致
+    private final ColumnMapping[] columnMappings;
+
+    private RowMappingPlan(Class<?> resultType, ResultConstructor resultConstructor, List<ColumnMapping> columnMappings) {
+        this.resultType = resultType;
+        this.resultConstructor = resultConstructor;
+        this.columnMappings = columnMappings.toArray(new ColumnMapping[0]);
+    }
+
+    /**
+     * 结果类型能否使用映射计划
+     */
+    public static boolean isApplicable(ResultMap resultMap, Configuration configuration) {
+        Class<?> type = resultMap.getType();
+        if (type == null || type.isInterface() || type.isArray() || type.isPrimitive()
+                || Map.class.isAssignableFrom(type) || Collection.class.isAssignableFrom(type)
+                || configuration.getTypeHandlerRegistry().hasTypeHandler(type)) {
+            return false;
+        }
+        return MetaClass.forClass(type).hasDefaultConstructor() || ResultConstructor.isApplicable(resultMap);
+    }
+
+    /**
+     * 编译映射计划
+     *
+     * @param autoMappings     自动映射计划中解析好的未映射列
+     * @param upperColumnNames 结果集大写列标签，按列序排列
+     */
+    public static RowMappingPlan compile(ResultMap resultMap, List<AutoMappingPlan.AutoMapping> autoMappings, List<String> upperColumnNames, Configuration configuration) {
+        final Class<?> resultType = resultMap.getType();
+        final MetaClass metaClass = MetaClass.forClass(resultType);
+        final List<ColumnMapping> mappings = new ArrayList<>();
+        // 0.构造函数映射，构造函数已使用的列不再通过 setter 设置
+        ResultConstructor resultConstructor = null;
+        final Set<Integer> constructorColumns = new HashSet<>();
+        if (ResultConstructor.isApplicable(resultMap)) {
+            resultConstructor = ResultConstructor.resolve(resultMap, upperColumnNames, configuration.getTypeHandlerRegistry());
+            for (int columnIndex : resultConstructor.getColumnIndexes()) {
+                constructorColumns.add(columnIndex);
+            }
+        }
+        // 1.未在 ResultMap 中配置的列，按列名自动映射
+        for (AutoMappingPlan.AutoMapping autoMapping : autoMappings) {
+            String property = autoMapping.getProperty();
+            // 不可变对象的 final 字段只能由构造函数赋值
+            if (constructorColumns.contains(autoMapping.getColumnIndex())
+                    || (resultConstructor != null && isFinalField(resultType, property))) {
+                continue;
+            }
+            ColumnMapping mapping = new ColumnMapping(autoMapping.getColumnIndex(), property, autoMapping.getTypeHandler(),
+                    setterOf(metaClass, property), !autoMapping.getPropertyType().isPrimitive());
+            mapping.primitiveSetter = primitiveSetterOf(resultType, mapping, autoMapping.getPropertyType());
+            mappings.add(mapping);
+        }
+        // 2.ResultMap 中配置的映射，值为 null 时不设置
+        for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+            String property = propertyMapping.getProperty();
+            if (propertyMapping.getUpperColumn() == null || property == null) {
+                continue;
+            }
+            int columnIndex = upperColumnNames.indexOf(propertyMapping.getUpperColumn());
+            if (columnIndex < 0 || constructorColumns.contains(columnIndex + 1)) {
+                continue;
+            }
+            mappings.add(new ColumnMapping(columnIndex + 1, property, propertyMapping.getTypeHandler(), setterOf(metaClass, property), false));
+        }
+        return new RowMappingPlan(resultType, resultConstructor, mappings);
+    }
+
+    private static boolean isFinalField(Class<?> type, String property) {
+        for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            try {
+                return Modifier.isFinal(clazz.getDeclaredField(property).getModifiers());
+            } catch (NoSuchFieldException ignore) {
+            }
+        }
+        return false;
+    }
+
+    // 简单属性直接使用 Reflector 的 setter，嵌套属性（a.b）返回 null，映射时交给 MetaObject
+    private static Invoker setterOf(MetaClass metaClass, String property) {
+        if (property.indexOf('.') >= 0 || property.indexOf('[') >= 0 || !metaClass.hasSetter(property)) {
+            return null;
+        }
+        return metaClass.getSetInvoker(property);
+    }
+
+    /**
+     * int、long、double 属性：类型处理器的基本类型取值直接传给不装箱的 setter，列值为 NULL 时与通用流程一样不设置
+     */
+    @SuppressWarnings("unchecked")
+    private static PrimitiveSetter primitiveSetterOf(Class<?> resultType, ColumnMapping mapping, Class<?> propertyType) {
+        if (!propertyType.isPrimitive() || mapping.setter == null) {
+            return null;
+        }
+        String property = mapping.property;
+        Method method;
+        try {
+            method = resultType.getMethod("set" + Character.toUpperCase(property.charAt(0)) + property.substring(1), propertyType);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        final int columnIndex = mapping.columnIndex;
+        final TypeHandler<?> typeHandler = mapping.typeHandler;
+        if (propertyType == int.class && typeHandler instanceof IntegerTypeHandler) {
+            ObjIntConsumer<Object> setter = (ObjIntConsumer<Object>) Invokers.forPrimitiveSetter(method);
+            IntegerTypeHandler handler = (IntegerTypeHandler) typeHandler;
+            return setter == null ? null : (rs, rowValue) -> {
+                int value = handler.getInt(rs, columnIndex);
+                if (!rs.wasNull()) {
+                    setter.accept(rowValue, value);
+                }
+            };
+        }
+        if (propertyType == long.class && typeHandler instanceof LongTypeHandler) {
+            ObjLongConsumer<Object> setter = (ObjLongConsumer<Object>) Invokers.forPrimitiveSetter(method);
+            LongTypeHandler handler = (LongTypeHandler) typeHandler;
+            return setter == null ? null : (rs, rowValue) -> {
+                long value = handler.getLong(rs, columnIndex);
+                if (!rs.wasNull()) {
+                    setter.accept(rowValue, value);
+                }
+            };
+        }
+        if (propertyType == double.class && typeHandler instanceof DoubleTypeHandler) {
+            ObjDoubleConsumer<Object> setter = (ObjDoubleConsumer<Object>) Invokers.forPrimitiveSetter(method);
+            DoubleTypeHandler handler = (DoubleTypeHandler) typeHandler;
+            return setter == null ? null : (rs, rowValue) -> {
+                double value = handler.getDouble(rs, columnIndex);
+                if (!rs.wasNull()) {
+                    setter.accept(rowValue, value);
+                }
+            };
+        }
+        return null;
+    }
+
+    /**
+     * 按计划映射当前行
+     */
+    public Object map(ResultSet rs, ObjectFactory objectFactory, Configuration configuration) throws SQLException {
+        final Object rowValue = resultConstructor != null ? resultConstructor.newInstance(rs) : objectFactory.create(resultType);
+        for (ColumnMapping mapping : columnMappings) {
+            if (mapping.primitiveSetter != null) {
+                mapping.primitiveSetter.set(rs, rowValue);
+                continue;
+            }
+            final Object value = mapping.typeHandler.getResult(rs, mapping.columnIndex);
+            if (value == null && !mapping.setNull) {
+                continue;
+            }
+            if (mapping.directSetter != null) {
+                try {
+                    mapping.directSetter.accept(rowValue, value);
+                } catch (RuntimeException e) {
+                    throw new RuntimeException("Could not set property '" + mapping.property + "' of '" + resultType + "' with value '" + value + "' Cause: " + e, e);
+                }
+            } else if (mapping.setter != null) {
+                try {
+                    mapping.setter.invoke(rowValue, new Object[]{value});
+                } catch (Throwable t) {
+                    throw new RuntimeException("Could not set property '" + mapping.property + "' of '" + resultType + "' with value '" + value + "' Cause: " + t, t);
+                }
+            } else {
+                configuration.newMetaObject(rowValue).setValue(mapping.property, value);
+            }
+        }
+        return rowValue;
+    }
+
+    public Class<?> getResultType() {
+        return resultType;
+    }
+
+    /**
+     * 单列映射：列序号、属性、类型处理器和 setter 都在编译时确定
+     */
+    private static final class ColumnMapping {
+
+        private final int columnIndex;
+        private final String property;
+        private final TypeHandler<?> typeHandler;
+        private final Invoker setter;
+        // LambdaMetafactory 生成的 setter，直接调用，不为每行每列创建参数数组；无法生成时为 null，走 setter
+        private final BiConsumer<Object, Object> directSetter;
+        // 自动映射的非基本类型属性，值为 null 时也要设置
+        private final boolean setNull;
+        // 基本类型属性的不装箱映射，为 null 时走 TypeHandler#getResult 和 setter
+        private PrimitiveSetter primitiveSetter;
+
+        ColumnMapping(int columnIndex, String property, TypeHandler<?> typeHandler, Invoker setter, boolean setNull) {
+            this.columnIndex = columnIndex;
+            this.property = property;
+            this.typeHandler = typeHandler;
+            this.setter = setter;
+            this.directSetter = setter instanceof LambdaSetterInvoker ? ((LambdaSetterInvoker) setter).getSetter() : null;
+            this.setNull = setNull;
+        }
+    }
+
+    private interface PrimitiveSetter {
+        void set(ResultSet rs, Object rowValue) throws SQLException;
+    }
+
+}
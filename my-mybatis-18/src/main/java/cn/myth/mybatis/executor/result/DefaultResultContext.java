@@ -10,10 +10,12 @@ public class DefaultResultContext implements ResultContext {
     // 结果数据对象
     private Object resultObject;
     private int resultCount;
+    private boolean stopped;
 
     public DefaultResultContext() {
         this.resultObject = null;
         this.resultCount = 0;
+        this.stopped = false;
     }
 
     @Override
@@ -26,6 +28,16 @@ public class DefaultResultContext implements ResultContext {
         return resultCount;
     }
 
+    @Override
+    public void stop() {
+        this.stopped = true;
+    }
+
+    @Override
+    public boolean isStopped() {
+        return stopped;
+    }
+
     public void nextResultObject(Object resultObject) {
         resultCount++;
         this.resultObject = resultObject;
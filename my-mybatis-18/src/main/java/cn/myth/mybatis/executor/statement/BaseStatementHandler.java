@@ -1,16 +1,19 @@
 package cn.myth.mybatis.executor.statement;
 
+import cn.myth.mybatis.dialect.Dialect;
 import cn.myth.mybatis.executor.Executor;
 import cn.myth.mybatis.executor.keygen.KeyGenerator;
 import cn.myth.mybatis.executor.parameter.ParameterHandler;
 import cn.myth.mybatis.executor.resulset.ResultSetHandler;
 import cn.myth.mybatis.mapping.BoundSql;
 import cn.myth.mybatis.mapping.MappedStatement;
+import cn.myth.mybatis.mapping.SqlCommandType;
 import cn.myth.mybatis.session.Configuration;
 import cn.myth.mybatis.session.ResultHandler;
 import cn.myth.mybatis.session.RowBounds;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -30,6 +33,8 @@ public abstract class BaseStatementHandler implements StatementHandler {
 
     protected final RowBounds rowBounds;
     protected BoundSql boundSql;
+    // 物理分页使用的方言，不需要物理分页时为 null
+    protected final Dialect pagingDialect;
 
     public BaseStatementHandler(Executor executor, MappedStatement mappedStatement, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
         this.configuration = mappedStatement.getConfiguration();
@@ -43,11 +48,47 @@ public abstract class BaseStatementHandler implements StatementHandler {
             generateKeys(parameterObject);
             boundSql = mappedStatement.getBoundSql(parameterObject);
         }
+
+        // 非默认的 RowBounds 由方言改写为 LIMIT/OFFSET，结果集处理器就不需要再跳过和截断了
+        this.pagingDialect = resolvePagingDialect(executor, mappedStatement, rowBounds);
+        RowBounds resultRowBounds = rowBounds;
+        if (pagingDialect != null) {
+            boundSql = boundSql.withSql(configuration, pagingDialect.getLimitSql(boundSql.getSql()));
+            resultRowBounds = RowBounds.DEFAULT;
+        }
         this.boundSql = boundSql;
 
         this.parameterObject = parameterObject;
         this.parameterHandler = configuration.newParameterHandler(mappedStatement, parameterObject, boundSql);
-        this.resultSetHandler = configuration.newResultSetHandler(executor, mappedStatement, rowBounds, resultHandler, boundSql);
+        this.resultSetHandler = configuration.newResultSetHandler(executor, mappedStatement, resultRowBounds, resultHandler, boundSql);
+    }
+
+    private Dialect resolvePagingDialect(Executor executor, MappedStatement mappedStatement, RowBounds rowBounds) {
+        if (rowBounds == null || mappedStatement.getSqlCommandType() != SqlCommandType.SELECT || !supportsPhysicalPaging()
+                || (rowBounds.getOffset() == RowBounds.NO_ROW_OFFSET && rowBounds.getLimit() == RowBounds.NO_ROW_LIMIT)) {
+            return null;
+        }
+        try {
+            Dialect dialect = configuration.getDialect(executor.getTransaction().getConnection());
+            return dialect.supportsLimit() ? dialect : null;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error resolving dialect.  Cause: " + e, e);
+        }
+    }
+
+    /**
+     * 是否可以做物理分页，分页参数通过占位符设置，只有预处理语句支持
+     */
+    protected boolean supportsPhysicalPaging() {
+        return false;
+    }
+
+    /**
+     * 方言不支持物理分页但需要跳过 offset 行时，使用可滚动结果集，以便结果集处理器调用 ResultSet.absolute()
+     */
+    protected boolean isScrollPaging() {
+        return pagingDialect == null && rowBounds != null && rowBounds.getOffset() > RowBounds.NO_ROW_OFFSET
+                && mappedStatement.getSqlCommandType() == SqlCommandType.SELECT;
     }
 
     @Override
@@ -71,6 +112,25 @@ public abstract class BaseStatementHandler implements StatementHandler {
     }
 
 
+    /**
+     * 游标查询的驱动相关 fetchSize 设置
+     * MySQL 驱动默认会把整个结果集读入内存，只有 fetchSize = Integer.MIN_VALUE（TYPE_FORWARD_ONLY、CONCUR_READ_ONLY）时才逐行流式读取；
+     * 如果连接串开启了 useCursorFetch=true 则使用服务端游标，按 fetchSize 分批读取。
+     * 其他数据库直接使用配置的游标 fetchSize（PostgreSQL 还需要关闭自动提交才会生效）。
+     */
+    protected void applyCursorFetchSize(Statement statement) throws SQLException {
+        int fetchSize = configuration.getCursorFetchSize();
+        DatabaseMetaData metaData = statement.getConnection().getMetaData();
+        String productName = metaData.getDatabaseProductName();
+        if ("MySQL".equalsIgnoreCase(productName) || "MariaDB".equalsIgnoreCase(productName)) {
+            String url = metaData.getURL();
+            if (url == null || !url.contains("useCursorFetch=true")) {
+                fetchSize = Integer.MIN_VALUE;
+            }
+        }
+        statement.setFetchSize(fetchSize);
+    }
+
     // 定义实例化的抽象方法，这个方法交由各个具体的实现子类进行处理（
     // 包括SimpleStatementHandler简单语句处理器和PreparedStatementHandler预处理语句处理器）
     // 简单语句处理器只是对SQL的最基本执行，没有参数的设置
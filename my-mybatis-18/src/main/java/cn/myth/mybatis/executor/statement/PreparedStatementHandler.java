@@ -1,6 +1,8 @@
 package cn.myth.mybatis.executor.statement;
 
+import cn.myth.mybatis.cursor.Cursor;
 import cn.myth.mybatis.executor.Executor;
+import cn.myth.mybatis.executor.keygen.JDBC3KeyGenerator;
 import cn.myth.mybatis.executor.keygen.KeyGenerator;
 import cn.myth.mybatis.mapping.BoundSql;
 import cn.myth.mybatis.mapping.MappedStatement;
@@ -9,6 +11,7 @@ import cn.myth.mybatis.session.RowBounds;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
@@ -26,15 +29,36 @@ public class PreparedStatementHandler extends BaseStatementHandler {
     @Override
     protected Statement instantiateStatement(Connection connection) throws SQLException {
         String sql = boundSql.getSql();
+        // 使用 JDBC3KeyGenerator 时需要声明返回自增主键，否则驱动不会生成 getGeneratedKeys 结果集
+        if (mappedStatement.getKeyGenerator() instanceof JDBC3KeyGenerator) {
+            String[] keyColumnNames = mappedStatement.getKeyColumns();
+            if (keyColumnNames == null) {
+                return connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            } else {
+                return connection.prepareStatement(sql, keyColumnNames);
+            }
+        }
+        if (isScrollPaging()) {
+            return connection.prepareStatement(sql, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        }
         return connection.prepareStatement(sql);
     }
 
+    @Override
+    protected boolean supportsPhysicalPaging() {
+        return true;
+    }
+
 
     @Override
     public void parameterize(Statement statement) throws SQLException {
 //        PreparedStatement ps = (PreparedStatement) statement;
 //        ps.setLong(1, Long.parseLong(((Object[]) parameterObject)[0].toString()));
         parameterHandler.setParameters((PreparedStatement) statement);
+        // 分页占位符在原SQL参数之后
+        if (pagingDialect != null) {
+            pagingDialect.setLimitParameters((PreparedStatement) statement, boundSql.getParameterMappings().size() + 1, rowBounds.getOffset(), rowBounds.getLimit());
+        }
     }
 
     // 执行查询和对结果的封装
@@ -45,6 +69,20 @@ public class PreparedStatementHandler extends BaseStatementHandler {
         return resultSetHandler.<E> handleResultSets(ps);
     }
 
+    @Override
+    public <E> Cursor<E> queryCursor(Statement statement) throws SQLException {
+        PreparedStatement ps = (PreparedStatement) statement;
+        applyCursorFetchSize(ps);
+        ps.execute();
+        return resultSetHandler.<E> handleCursorResultSets(ps);
+    }
+
+    @Override
+    public void batch(Statement statement) throws SQLException {
+        PreparedStatement ps = (PreparedStatement) statement;
+        ps.addBatch();
+    }
+
     @Override
     public int update(Statement statement) throws SQLException {
         PreparedStatement ps = (PreparedStatement) statement;
@@ -1,5 +1,6 @@
 package cn.myth.mybatis.executor.statement;
 
+import cn.myth.mybatis.cursor.Cursor;
 import cn.myth.mybatis.executor.Executor;
 import cn.myth.mybatis.mapping.BoundSql;
 import cn.myth.mybatis.mapping.MappedStatement;
@@ -7,6 +8,7 @@ import cn.myth.mybatis.session.ResultHandler;
 import cn.myth.mybatis.session.RowBounds;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
@@ -22,6 +24,9 @@ public class SimpleStatementHandler extends BaseStatementHandler {
 
     @Override
     protected Statement instantiateStatement(Connection connection) throws SQLException {
+        if (isScrollPaging()) {
+            return connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        }
         return connection.createStatement();
     }
 
@@ -37,6 +42,20 @@ public class SimpleStatementHandler extends BaseStatementHandler {
         return statement.getUpdateCount();
     }
 
+    @Override
+    public <E> Cursor<E> queryCursor(Statement statement) throws SQLException {
+        String sql = boundSql.getSql();
+        applyCursorFetchSize(statement);
+        statement.execute(sql);
+        return resultSetHandler.<E> handleCursorResultSets(statement);
+    }
+
+    @Override
+    public void batch(Statement statement) throws SQLException {
+        String sql = boundSql.getSql();
+        statement.addBatch(sql);
+    }
+
     @Override
     public <E> List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException {
         String sql = boundSql.getSql();
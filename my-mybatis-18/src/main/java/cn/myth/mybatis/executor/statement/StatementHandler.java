@@ -1,5 +1,6 @@
 package cn.myth.mybatis.executor.statement;
 
+import cn.myth.mybatis.cursor.Cursor;
 import cn.myth.mybatis.mapping.BoundSql;
 import cn.myth.mybatis.session.ResultHandler;
 
@@ -22,9 +23,15 @@ public interface StatementHandler {
     /** 执行更新 */
     int update(Statement statement) throws SQLException;
 
+    /** 加入批处理 */
+    void batch(Statement statement) throws SQLException;
+
     /** 执行查询 */
     <E> List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException;
 
+    /** 执行游标查询 */
+    <E> Cursor<E> queryCursor(Statement statement) throws SQLException;
+
     /** 获取绑定SQL */
     BoundSql getBoundSql();
 }
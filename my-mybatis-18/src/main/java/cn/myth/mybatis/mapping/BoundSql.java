@@ -1,5 +1,6 @@
 package cn.myth.mybatis.mapping;
 
+import cn.myth.mybatis.executor.parameter.ParameterBinder;
 import cn.myth.mybatis.reflection.MetaObject;
 import cn.myth.mybatis.session.Configuration;
 
@@ -17,6 +18,8 @@ public class BoundSql {
     private Object parameterObject;
     private Map<String, Object> additionalParameters;
     private MetaObject metaParameters;
+    // 设置参数和计算缓存 Key 共用的参数绑定器
+    private ParameterBinder parameterBinder;
 
     public BoundSql(Configuration configuration, String sql, List<ParameterMapping> parameterMappings, Object parameterObject) {
         this.sql = sql;
@@ -38,6 +41,31 @@ public class BoundSql {
         return parameterObject;
     }
 
+    /**
+     * 复制一份参数相同、SQL不同的BoundSql，分页和count改写时使用
+     */
+    public BoundSql withSql(Configuration configuration, String sql) {
+        BoundSql boundSql = new BoundSql(configuration, sql, parameterMappings, parameterObject);
+        boundSql.additionalParameters.putAll(additionalParameters);
+        boundSql.parameterBinder = parameterBinder;
+        return boundSql;
+    }
+
+    public ParameterBinder getParameterBinder() {
+        return parameterBinder;
+    }
+
+    public void setParameterBinder(ParameterBinder parameterBinder) {
+        this.parameterBinder = parameterBinder;
+    }
+
+    /**
+     * 是否有动态标签生成的附加参数，没有时省去逐个属性的查找
+     */
+    public boolean hasAdditionalParameters() {
+        return !additionalParameters.isEmpty();
+    }
+
     public boolean hasAdditionalParameter(String name) {
         return metaParameters.hasGetter(name);
     }
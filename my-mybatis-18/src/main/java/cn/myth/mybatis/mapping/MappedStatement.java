@@ -2,10 +2,14 @@ package cn.myth.mybatis.mapping;
 
 import cn.myth.mybatis.cache.Cache;
 import cn.myth.mybatis.executor.keygen.KeyGenerator;
+import cn.myth.mybatis.executor.parameter.ParameterBinder;
 import cn.myth.mybatis.scripting.LanguageDriver;
+import cn.myth.mybatis.scripting.xmltags.DynamicSqlSource;
 import cn.myth.mybatis.session.Configuration;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 映射语句类
@@ -28,7 +32,16 @@ public class MappedStatement {
 
     private Cache cache;
     private boolean useCache;
+    // 是否与其他会话的相同查询合并，以及结果是否只读（只读时等待方直接共享结果，不复制）
+    private boolean coalesce;
+    private boolean readOnly;
+    // 动态 SQL 按分支组合缓存的参数绑定器数量上限，foreach 按集合长度生成不同的占位符，数量可能很多
+    private static final int MAX_DYNAMIC_PARAMETER_BINDERS = 256;
 
+    // 参数绑定器，按参数类型缓存
+    private final Map<Class<?>, ParameterBinder> parameterBinders = new ConcurrentHashMap<>();
+    // 动态 SQL 每次生成新的 ParameterMapping 列表，按参数类型和各占位符的属性名、类型处理器、jdbcType 缓存
+    private final Map<DynamicBinderKey, ParameterBinder> dynamicParameterBinders = new ConcurrentHashMap<>();
 
     MappedStatement() {
         // constructor disabled
@@ -39,6 +52,87 @@ public class MappedStatement {
         return sqlSource.getBoundSql(parameterObject);
     }
 
+    /**
+     * 获取 BoundSql 对应的参数绑定器，同一个 BoundSql 只解析一次
+     */
+    public ParameterBinder getParameterBinder(BoundSql boundSql, Object parameterObject) {
+        ParameterBinder binder = boundSql.getParameterBinder();
+        if (binder != null) {
+            return binder;
+        }
+        Class<?> parameterType = parameterObject == null ? Void.class : parameterObject.getClass();
+        List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+        if (sqlSource instanceof DynamicSqlSource) {
+            DynamicBinderKey key = new DynamicBinderKey(parameterType, parameterMappings);
+            binder = dynamicParameterBinders.get(key);
+            if (binder == null) {
+                binder = ParameterBinder.compile(parameterMappings, parameterType, configuration);
+                // 超过上限后不再缓存，已缓存的分支组合继续复用
+                if (dynamicParameterBinders.size() < MAX_DYNAMIC_PARAMETER_BINDERS) {
+                    dynamicParameterBinders.putIfAbsent(key, binder);
+                }
+            }
+        } else {
+            binder = parameterBinders.get(parameterType);
+            if (binder == null || !binder.matches(parameterMappings)) {
+                binder = ParameterBinder.compile(parameterMappings, parameterType, configuration);
+                parameterBinders.put(parameterType, binder);
+            }
+        }
+        boundSql.setParameterBinder(binder);
+        return binder;
+    }
+
+    /**
+     * 动态 SQL 参数绑定器的缓存 Key：参数类型，以及各占位符的属性名、类型处理器和 jdbcType
+     * 类型处理器取自注册表，同一类型是同一个实例，按引用比较
+     */
+    private static final class DynamicBinderKey {
+
+        private final Class<?> parameterType;
+        private final Object[] slots;
+        private final int hashCode;
+
+        DynamicBinderKey(Class<?> parameterType, List<ParameterMapping> parameterMappings) {
+            this.parameterType = parameterType;
+            this.slots = new Object[parameterMappings.size() * 3];
+            int hash = parameterType.hashCode();
+            for (int i = 0; i < parameterMappings.size(); i++) {
+                ParameterMapping parameterMapping = parameterMappings.get(i);
+                slots[i * 3] = parameterMapping.getProperty();
+                slots[i * 3 + 1] = parameterMapping.getTypeHandler();
+                slots[i * 3 + 2] = parameterMapping.getJdbcType();
+                hash = 31 * hash + parameterMapping.getProperty().hashCode();
+            }
+            this.hashCode = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DynamicBinderKey)) {
+                return false;
+            }
+            DynamicBinderKey that = (DynamicBinderKey) o;
+            if (hashCode != that.hashCode || parameterType != that.parameterType || slots.length != that.slots.length) {
+                return false;
+            }
+            for (int i = 0; i < slots.length; i += 3) {
+                if (!slots[i].equals(that.slots[i]) || slots[i + 1] != that.slots[i + 1] || slots[i + 2] != that.slots[i + 2]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
     /**·
      * 建造者
      */
@@ -99,6 +193,16 @@ public class MappedStatement {
             return this;
         }
 
+        public Builder coalesce(boolean coalesce) {
+            mappedStatement.coalesce = coalesce;
+            return this;
+        }
+
+        public Builder readOnly(boolean readOnly) {
+            mappedStatement.readOnly = readOnly;
+            return this;
+        }
+
     }
 
     private static String[] delimitedStringToArray(String in) {
@@ -165,4 +269,12 @@ public class MappedStatement {
         return cache;
     }
 
+    public boolean isCoalesce() {
+        return coalesce;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
 }
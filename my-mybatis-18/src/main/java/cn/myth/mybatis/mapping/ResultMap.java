@@ -2,6 +2,7 @@ package cn.myth.mybatis.mapping;
 
 import cn.myth.mybatis.session.Configuration;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
@@ -15,6 +16,10 @@ public class ResultMap {
     private String id;
     private Class<?> type;
     private List<ResultMapping> resultMappings;
+    // <constructor> 中的参数映射，按参数顺序
+    private List<ResultMapping> constructorResultMappings;
+    // 通过 setter 设置的属性映射
+    private List<ResultMapping> propertyResultMappings;
     private Set<String> mappedColumns;
 
     private ResultMap() {
@@ -31,8 +36,15 @@ public class ResultMap {
 
         public ResultMap build() {
             resultMap.mappedColumns = new HashSet<>();
+            resultMap.constructorResultMappings = new ArrayList<>();
+            resultMap.propertyResultMappings = new ArrayList<>();
             // 添加mappedColumns字段
             for (ResultMapping resultMapping : resultMap.resultMappings) {
+                if (resultMapping.getFlags().contains(ResultFlag.CONSTRUCTOR)) {
+                    resultMap.constructorResultMappings.add(resultMapping);
+                } else {
+                    resultMap.propertyResultMappings.add(resultMapping);
+                }
                 final String column = resultMapping.getColumn();
                 if (column != null) {
                     // 填充到已映射的列转化为大写，后期和查询出来的属性对比
@@ -59,7 +71,11 @@ public class ResultMap {
         return resultMappings;
     }
 
+    public List<ResultMapping> getConstructorResultMappings() {
+        return constructorResultMappings;
+    }
+
     public List<ResultMapping> getPropertyResultMappings() {
-        return resultMappings;
+        return propertyResultMappings;
     }
 }
@@ -1,11 +1,14 @@
 package cn.myth.mybatis.mapping;
 
 import cn.myth.mybatis.session.Configuration;
+import cn.myth.mybatis.type.InterningStringTypeHandler;
+import cn.myth.mybatis.type.StringInternTable;
 import cn.myth.mybatis.type.TypeHandler;
 import cn.myth.mybatis.type.TypeHandlerRegistry;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * 结果映射
@@ -15,9 +18,13 @@ public class ResultMapping {
     private Configuration configuration;
     private String property;
     private String column;
+    // 大写列名，构建时计算一次，映射每行时用于匹配已映射列
+    private String upperColumn;
     private Class<?> javaType;
     private TypeHandler<?> typeHandler;
     private List<ResultFlag> flags;
+    // 读出的字符串是否经本映射的去重表去重
+    private boolean intern;
 
     ResultMapping() {
     }
@@ -29,6 +36,7 @@ public class ResultMapping {
             resultMapping.configuration = configuration;
             resultMapping.property = property;
             resultMapping.column = column;
+            resultMapping.upperColumn = column == null ? null : column.toUpperCase(Locale.ENGLISH);
             resultMapping.javaType = javaType;
             resultMapping.flags = new ArrayList<>();
         }
@@ -43,7 +51,18 @@ public class ResultMapping {
             return this;
         }
 
+        public Builder intern(boolean intern) {
+            resultMapping.intern = intern;
+            return this;
+        }
+
         public ResultMapping build() {
+            if (resultMapping.intern) {
+                if (resultMapping.javaType != String.class) {
+                    throw new RuntimeException("intern is only supported for String mappings, but column '" + resultMapping.column + "' maps to " + resultMapping.javaType);
+                }
+                resultMapping.typeHandler = new InterningStringTypeHandler(new StringInternTable(resultMapping.configuration.getStringInternTableSize()));
+            }
             // 构建ResultMapping时TypeHandler为空，再次获取TypeHandler
             resolveTypeHandler();
             return resultMapping;
@@ -70,6 +89,10 @@ public class ResultMapping {
         return column;
     }
 
+    public String getUpperColumn() {
+        return upperColumn;
+    }
+
     public Class<?> getJavaType() {
         return javaType;
     }
@@ -81,4 +104,8 @@ public class ResultMapping {
     public List<ResultFlag> getFlags() {
         return flags;
     }
+
+    public boolean isIntern() {
+        return intern;
+    }
 }
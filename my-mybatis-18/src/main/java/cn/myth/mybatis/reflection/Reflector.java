@@ -1,9 +1,7 @@
 package cn.myth.mybatis.reflection;
 
-import cn.myth.mybatis.reflection.invoker.GetFieldInvoker;
 import cn.myth.mybatis.reflection.invoker.Invoker;
-import cn.myth.mybatis.reflection.invoker.MethodInvoker;
-import cn.myth.mybatis.reflection.invoker.SetFieldInvoker;
+import cn.myth.mybatis.reflection.invoker.Invokers;
 import cn.myth.mybatis.reflection.property.PropertyNamer;
 
 import java.lang.reflect.*;
@@ -174,7 +172,7 @@ public class Reflector {
 
     private void addSetMethod(String name, Method method) {
         if (isValidPropertyName(name)) {
-            setMethods.put(name, new MethodInvoker(method));
+            setMethods.put(name, Invokers.forSetter(method));
             setTypes.put(name, method.getParameterTypes()[0]);
         }
     }
@@ -219,14 +217,14 @@ public class Reflector {
 
     private void addSetField(Field field) {
         if (isValidPropertyName(field.getName())) {
-            setMethods.put(field.getName(), new SetFieldInvoker(field));
+            setMethods.put(field.getName(), Invokers.forSetField(field));
             setTypes.put(field.getName(), field.getType());
         }
     }
 
     private void addGetField(Field field) {
         if (isValidPropertyName(field.getName())) {
-            getMethods.put(field.getName(), new GetFieldInvoker(field));
+            getMethods.put(field.getName(), Invokers.forGetField(field));
             getTypes.put(field.getName(), field.getType());
         }
     }
@@ -285,7 +283,7 @@ public class Reflector {
      */
     private void addGetMethod(String name, Method method) {
         if (isValidPropertyName(name)) {
-            getMethods.put(name, new MethodInvoker(method));
+            getMethods.put(name, Invokers.forGetter(method));
             getTypes.put(name, method.getReturnType());
         }
     }
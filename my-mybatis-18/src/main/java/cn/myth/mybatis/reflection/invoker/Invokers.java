@@ -0,0 +1,161 @@
+package cn.myth.mybatis.reflection.invoker;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * 调用者工厂，Reflector 构建 getMethods/setMethods 时使用
+ * 优先级：public 方法用 LambdaMetafactory 生成 Function/BiConsumer；其他方法和字段用 MethodHandle；
+ * 都失败时（访问受限、类加载器不可见等）退回到 Method.invoke / Field.get、Field.set 反射调用
+ */
+public final class Invokers {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType FUNCTION_TYPE = MethodType.methodType(Function.class);
+    private static final MethodType BI_CONSUMER_TYPE = MethodType.methodType(BiConsumer.class);
+    private static final MethodType APPLY_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType ACCEPT_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private Invokers() {
+        // Prevent Instantiation of Static Class
+    }
+
+    /**
+     * getter 方法调用者
+     */
+    public static Invoker forGetter(Method method) {
+        if (method.getParameterTypes().length != 0) {
+            return new MethodInvoker(method);
+        }
+        Class<?> type = method.getReturnType();
+        try {
+            if (isLambdaAccessible(method, type)) {
+                MethodHandle handle = LOOKUP.unreflect(method);
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply", FUNCTION_TYPE, APPLY_TYPE, handle,
+                        MethodType.methodType(type, method.getDeclaringClass()).wrap());
+                @SuppressWarnings("unchecked")
+                Function<Object, Object> getter = (Function<Object, Object>) site.getTarget().invoke();
+                return new LambdaGetterInvoker(getter, type);
+            }
+            return new MethodHandleInvoker(LOOKUP.unreflect(method), false, type);
+        } catch (Throwable t) {
+            return new MethodInvoker(method);
+        }
+    }
+
+    /**
+     * setter 方法调用者
+     */
+    public static Invoker forSetter(Method method) {
+        if (method.getParameterTypes().length != 1) {
+            return new MethodInvoker(method);
+        }
+        Class<?> type = method.getParameterTypes()[0];
+        try {
+            if (isLambdaAccessible(method, type)) {
+                MethodHandle handle = LOOKUP.unreflect(method);
+                Class<?> boxedType = MethodType.methodType(type).wrap().returnType();
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept", BI_CONSUMER_TYPE, ACCEPT_TYPE, handle,
+                        MethodType.methodType(void.class, method.getDeclaringClass(), boxedType));
+                @SuppressWarnings("unchecked")
+                BiConsumer<Object, Object> setter = (BiConsumer<Object, Object>) site.getTarget().invoke();
+                return new LambdaSetterInvoker(setter, type);
+            }
+            return new MethodHandleInvoker(LOOKUP.unreflect(method), true, type);
+        } catch (Throwable t) {
+            return new MethodInvoker(method);
+        }
+    }
+
+    /**
+     * 基本类型 setter 的不装箱形式：int、long、double 参数分别生成 ObjIntConsumer、ObjLongConsumer、ObjDoubleConsumer，
+     * 供预编译的行映射配合类型处理器的基本类型取值使用；其他参数类型或无法生成时返回 null
+     */
+    public static Object forPrimitiveSetter(Method method) {
+        if (method.getParameterTypes().length != 1) {
+            return null;
+        }
+        Class<?> type = method.getParameterTypes()[0];
+        final Class<?> consumerType;
+        if (type == int.class) {
+            consumerType = ObjIntConsumer.class;
+        } else if (type == long.class) {
+            consumerType = ObjLongConsumer.class;
+        } else if (type == double.class) {
+            consumerType = ObjDoubleConsumer.class;
+        } else {
+            return null;
+        }
+        try {
+            if (!isLambdaAccessible(method, type)) {
+                return null;
+            }
+            MethodHandle handle = LOOKUP.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept", MethodType.methodType(consumerType),
+                    MethodType.methodType(void.class, Object.class, type), handle,
+                    MethodType.methodType(void.class, method.getDeclaringClass(), type));
+            return site.getTarget().invoke();
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    /**
+     * 字段读取调用者，LambdaMetafactory 不支持字段句柄，直接使用 MethodHandle
+     */
+    public static Invoker forGetField(Field field) {
+        try {
+            return new MethodHandleInvoker(LOOKUP.unreflectGetter(field), false, field.getType());
+        } catch (Throwable t) {
+            return new GetFieldInvoker(field);
+        }
+    }
+
+    /**
+     * 字段写入调用者
+     */
+    public static Invoker forSetField(Field field) {
+        // final 字段的 setter 句柄只有在字段可访问且非 static 时才能获取，失败时退回反射
+        try {
+            return new MethodHandleInvoker(LOOKUP.unreflectSetter(field), true, field.getType());
+        } catch (Throwable t) {
+            return new SetFieldInvoker(field);
+        }
+    }
+
+    // 生成的 lambda 类定义在本类的类加载器中，目标类和属性类型都必须对它可见，方法和类也必须是 public
+    private static boolean isLambdaAccessible(Method method, Class<?> type) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(declaringClass.getModifiers())
+                || Modifier.isStatic(method.getModifiers())) {
+            return false;
+        }
+        return isVisible(declaringClass) && (type.isPrimitive() || isVisible(type));
+    }
+
+    private static boolean isVisible(Class<?> clazz) {
+        while (clazz.isArray()) {
+            clazz = clazz.getComponentType();
+        }
+        if (clazz.isPrimitive()) {
+            return true;
+        }
+        try {
+            return Class.forName(clazz.getName(), false, Invokers.class.getClassLoader()) == clazz;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+}
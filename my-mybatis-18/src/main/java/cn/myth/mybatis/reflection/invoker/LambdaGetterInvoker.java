@@ -0,0 +1,27 @@
+package cn.myth.mybatis.reflection.invoker;
+
+import java.util.function.Function;
+
+/**
+ * getter 调用者，由 LambdaMetafactory 生成的 Function 直接调用 getter，没有反射的访问检查和参数数组
+ */
+public class LambdaGetterInvoker implements Invoker {
+
+    private final Function<Object, Object> getter;
+    private final Class<?> type;
+
+    public LambdaGetterInvoker(Function<Object, Object> getter, Class<?> type) {
+        this.getter = getter;
+        this.type = type;
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] args) throws Exception {
+        return getter.apply(target);
+    }
+
+    @Override
+    public Class<?> getType() {
+        return type;
+    }
+}
@@ -0,0 +1,35 @@
+package cn.myth.mybatis.reflection.invoker;
+
+import java.util.function.BiConsumer;
+
+/**
+ * setter 调用者，由 LambdaMetafactory 生成的 BiConsumer 直接调用 setter，基本类型参数在生成的类中拆箱
+ */
+public class LambdaSetterInvoker implements Invoker {
+
+    private final BiConsumer<Object, Object> setter;
+    private final Class<?> type;
+
+    public LambdaSetterInvoker(BiConsumer<Object, Object> setter, Class<?> type) {
+        this.setter = setter;
+        this.type = type;
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] args) throws Exception {
+        setter.accept(target, args[0]);
+        return null;
+    }
+
+    /**
+     * 生成的 setter 本身，预编译的行映射直接调用，不经过 invoke 的参数数组
+     */
+    public BiConsumer<Object, Object> getSetter() {
+        return setter;
+    }
+
+    @Override
+    public Class<?> getType() {
+        return type;
+    }
+}
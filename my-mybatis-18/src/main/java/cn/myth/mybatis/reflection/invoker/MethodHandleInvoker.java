@@ -0,0 +1,47 @@
+package cn.myth.mybatis.reflection.invoker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+
+/**
+ * MethodHandle 调用者，用于非 public 的方法和字段（LambdaMetafactory 无法直接访问），
+ * 句柄在创建时已做过访问检查，调用时不再检查
+ */
+public class MethodHandleInvoker implements Invoker {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final MethodHandle handle;
+    private final boolean setter;
+    private final Class<?> type;
+
+    /**
+     * @param handle getter 形如 (T)R，setter 形如 (T,V)void
+     */
+    public MethodHandleInvoker(MethodHandle handle, boolean setter, Class<?> type) {
+        this.handle = handle.asType(setter ? SETTER_TYPE : GETTER_TYPE);
+        this.setter = setter;
+        this.type = type;
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] args) throws Exception {
+        try {
+            if (setter) {
+                handle.invokeExact(target, args[0]);
+                return null;
+            }
+            return (Object) handle.invokeExact(target);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    @Override
+    public Class<?> getType() {
+        return type;
+    }
+}
@@ -1,17 +1,10 @@
 package cn.myth.mybatis.scripting.defaults;
 
+import cn.myth.mybatis.executor.parameter.ParameterBinder;
 import cn.myth.mybatis.executor.parameter.ParameterHandler;
 import cn.myth.mybatis.mapping.BoundSql;
 import cn.myth.mybatis.mapping.MappedStatement;
 import cn.myth.mybatis.mapping.ParameterMapping;
-import cn.myth.mybatis.reflection.MetaObject;
-import cn.myth.mybatis.session.Configuration;
-import cn.myth.mybatis.type.JdbcType;
-import cn.myth.mybatis.type.TypeHandler;
-import cn.myth.mybatis.type.TypeHandlerRegistry;
-import com.alibaba.fastjson.JSON;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -22,25 +15,16 @@ import java.util.List;
  */
 public class DefaultParameterHandler implements ParameterHandler {
 
-    private Logger logger = LoggerFactory.getLogger(DefaultParameterHandler.class);
-
-    private final TypeHandlerRegistry typeHandlerRegistry;
-
     private final MappedStatement mappedStatement;
     private final Object parameterObject;
     private BoundSql boundSql;
-    private Configuration configuration;
 
     public DefaultParameterHandler(MappedStatement mappedStatement, Object parameterObject, BoundSql boundSql) {
         this.mappedStatement = mappedStatement;
-        this.configuration = mappedStatement.getConfiguration();
-        this.typeHandlerRegistry = mappedStatement.getConfiguration().getTypeHandlerRegistry();
         this.parameterObject = parameterObject;
         this.boundSql = boundSql;
     }
 
-
-
     @Override
     public Object getParameterObject() {
         return parameterObject;
@@ -49,25 +33,10 @@ public class DefaultParameterHandler implements ParameterHandler {
     @Override
     public void setParameters(PreparedStatement ps) throws SQLException {
         List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
-        if (null != parameterMappings) {
-            for (int i = 0; i < parameterMappings.size(); i++) {
-                ParameterMapping parameterMapping = parameterMappings.get(i);
-                String propertyName = parameterMapping.getProperty();
-                Object value;
-                if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
-                    value = parameterObject;
-                } else {
-                    // 通过 MeatObject.getValue 反射获取值设置进去
-                    MetaObject metaObject = configuration.newMetaObject(parameterObject);
-                    value = metaObject.getValue(propertyName);
-                }
-                JdbcType jdbcType = parameterMapping.getJdbcType();
-
-                // 设置参数
-                logger.info("根据每个ParameterMapping中的TypeHandler设置对应的参数信息 value：{}", JSON.toJSONString(value));
-                TypeHandler typeHandler = parameterMapping.getTypeHandler();
-                typeHandler.setParameter(ps, i + 1, value, jdbcType);
-            }
+        if (null != parameterMappings && !parameterMappings.isEmpty()) {
+            // 按预编译的槽位设置参数，getter、TypeHandler 和 jdbcType 在绑定器中已经确定
+            ParameterBinder binder = mappedStatement.getParameterBinder(boundSql, parameterObject);
+            binder.bind(ps, parameterObject, boundSql);
         }
     }
 }
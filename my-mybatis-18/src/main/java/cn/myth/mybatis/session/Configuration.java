@@ -7,12 +7,20 @@ import cn.myth.mybatis.cache.impl.PerpetualCache;
 import cn.myth.mybatis.datasource.druid.DruidDataSourceFactory;
 import cn.myth.mybatis.datasource.pooled.PooledDataSourceFactory;
 import cn.myth.mybatis.datasource.unpooled.UnpooledDataSourceFactory;
+import cn.myth.mybatis.dialect.Dialect;
+import cn.myth.mybatis.dialect.DialectRegistry;
+import cn.myth.mybatis.executor.BatchExecutor;
 import cn.myth.mybatis.executor.CachingExecutor;
+import cn.myth.mybatis.executor.CoalescingExecutor;
 import cn.myth.mybatis.executor.Executor;
+import cn.myth.mybatis.executor.QueryCoalescer;
+import cn.myth.mybatis.executor.ReuseExecutor;
 import cn.myth.mybatis.executor.SimpleExecutor;
+import cn.myth.mybatis.executor.async.AsyncExecutorServices;
 import cn.myth.mybatis.executor.keygen.KeyGenerator;
 import cn.myth.mybatis.executor.parameter.ParameterHandler;
 import cn.myth.mybatis.executor.resulset.DefaultResultSetHandler;
+import cn.myth.mybatis.executor.resulset.AutoMappingPlanCache;
 import cn.myth.mybatis.executor.resulset.ResultSetHandler;
 import cn.myth.mybatis.executor.statement.PreparedStatementHandler;
 import cn.myth.mybatis.executor.statement.StatementHandler;
@@ -35,10 +43,13 @@ import cn.myth.mybatis.transaction.jdbc.JdbcTransactionFactory;
 import cn.myth.mybatis.type.TypeAliasRegistry;
 import cn.myth.mybatis.type.TypeHandlerRegistry;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 /**
  *  配置项
@@ -53,6 +64,33 @@ public class Configuration {
     protected boolean cacheEnabled = true;
     // 缓存机制，默认不配置的情况是 SESSION
     protected LocalCacheScope localCacheScope = LocalCacheScope.SESSION;
+    // 默认执行器类型
+    protected ExecutorType defaultExecutorType = ExecutorType.SIMPLE;
+    // 批量执行器积累多少条语句后执行一次 executeBatch
+    protected int batchSize = 1000;
+    // 游标查询的 fetchSize，MySQL 未开启 useCursorFetch 时会改用 Integer.MIN_VALUE 流式读取
+    protected int cursorFetchSize = 1000;
+
+    // 分页方言，未配置时根据数据库产品名称自动识别
+    protected volatile Dialect dialect;
+    protected final DialectRegistry dialectRegistry = new DialectRegistry();
+
+    // 是否默认合并相同的并发查询，语句上的 coalesce 属性可以单独覆盖
+    protected boolean coalesceQueries = false;
+    // 开启合并的语句数，为 0 时不创建合并执行器
+    protected int coalescingStatementCount;
+    protected final QueryCoalescer queryCoalescer = new QueryCoalescer();
+
+    // 自动映射计划缓存（含行映射计划），key：ResultMap id + 列前缀 + 列标签 + JDBC类型
+    protected final AutoMappingPlanCache autoMappingPlanCache = new AutoMappingPlanCache(1024);
+
+    // 字符串去重表容量，映射上配置 intern="true" 的列各自一张表
+    protected int stringInternTableSize = 4096;
+
+    // 异步语句使用的线程池，未配置时首次使用才创建
+    protected volatile ExecutorService asyncExecutorService;
+    // 有界线程池的线程数，0 表示默认策略（JDK 21+ 虚拟线程，否则 CPU 核数 * 2）
+    protected int asyncPoolSize = 0;
 
     // 映射注册机
     protected MapperRegistry mapperRegistry = new MapperRegistry(this);
@@ -117,6 +155,9 @@ public class Configuration {
 
     public void addMappedStatement(MappedStatement ms) {
         mappedStatements.put(ms.getId(), ms);
+        if (ms.isCoalesce()) {
+            coalescingStatementCount++;
+        }
     }
 
     public MappedStatement getMappedStatement(String id) {
@@ -151,7 +192,23 @@ public class Configuration {
      * 生产执行器
      */
     public Executor newExecutor(Transaction transaction) {
-        Executor executor = new SimpleExecutor(this, transaction);
+        return newExecutor(transaction, defaultExecutorType);
+    }
+
+    public Executor newExecutor(Transaction transaction, ExecutorType executorType) {
+        executorType = executorType == null ? defaultExecutorType : executorType;
+        Executor executor;
+        if (ExecutorType.BATCH == executorType) {
+            executor = new BatchExecutor(this, transaction);
+        } else if (ExecutorType.REUSE == executorType) {
+            executor = new ReuseExecutor(this, transaction);
+        } else {
+            executor = new SimpleExecutor(this, transaction);
+        }
+        // 有语句开启查询合并时，在二级缓存执行器之内装饰合并执行器
+        if (coalescingStatementCount > 0) {
+            executor = new CoalescingExecutor(executor, queryCoalescer);
+        }
         // 配置开启缓存，创建 CachingExecutor(默认就是缓存)装饰者模式
         if (cacheEnabled) {
             executor = new CachingExecutor(executor);
@@ -264,4 +321,110 @@ public class Configuration {
     public Cache getCache(String id) {
         return caches.get(id);
     }
+
+    public ExecutorType getDefaultExecutorType() {
+        return defaultExecutorType;
+    }
+
+    public void setDefaultExecutorType(ExecutorType defaultExecutorType) {
+        this.defaultExecutorType = defaultExecutorType;
+    }
+
+    /**
+     * 获取分页方言，没有配置 dialect 时通过连接的元数据识别一次并记住
+     */
+    public Dialect getDialect(Connection connection) throws SQLException {
+        Dialect dialect = this.dialect;
+        if (dialect == null) {
+            dialect = dialectRegistry.resolve(connection.getMetaData().getDatabaseProductName());
+            this.dialect = dialect;
+        }
+        return dialect;
+    }
+
+    public Dialect getDialect() {
+        return dialect;
+    }
+
+    public void setDialect(Dialect dialect) {
+        this.dialect = dialect;
+    }
+
+    public DialectRegistry getDialectRegistry() {
+        return dialectRegistry;
+    }
+
+    public int getCursorFetchSize() {
+        return cursorFetchSize;
+    }
+
+    public void setCursorFetchSize(int cursorFetchSize) {
+        this.cursorFetchSize = cursorFetchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 获取异步语句线程池，双重检查延迟创建
+     */
+    public ExecutorService getAsyncExecutorService() {
+        ExecutorService executorService = this.asyncExecutorService;
+        if (executorService == null) {
+            synchronized (this) {
+                executorService = this.asyncExecutorService;
+                if (executorService == null) {
+                    executorService = asyncPoolSize > 0 ? AsyncExecutorServices.newBoundedExecutorService(asyncPoolSize)
+                            : AsyncExecutorServices.newDefaultExecutorService();
+                    this.asyncExecutorService = executorService;
+                }
+            }
+        }
+        return executorService;
+    }
+
+    public void setAsyncExecutorService(ExecutorService asyncExecutorService) {
+        this.asyncExecutorService = asyncExecutorService;
+    }
+
+    public int getAsyncPoolSize() {
+        return asyncPoolSize;
+    }
+
+    public void setAsyncPoolSize(int asyncPoolSize) {
+        this.asyncPoolSize = asyncPoolSize;
+    }
+
+    public boolean isCoalesceQueries() {
+        return coalesceQueries;
+    }
+
+    public void setCoalesceQueries(boolean coalesceQueries) {
+        this.coalesceQueries = coalesceQueries;
+    }
+
+    public QueryCoalescer getQueryCoalescer() {
+        return queryCoalescer;
+    }
+
+    public AutoMappingPlanCache getAutoMappingPlanCache() {
+        return autoMappingPlanCache;
+    }
+
+    public void setAutoMappingPlanCacheSize(int autoMappingPlanCacheSize) {
+        autoMappingPlanCache.setMaxSize(autoMappingPlanCacheSize);
+    }
+
+    public int getStringInternTableSize() {
+        return stringInternTableSize;
+    }
+
+    public void setStringInternTableSize(int stringInternTableSize) {
+        this.stringInternTableSize = stringInternTableSize;
+    }
 }
@@ -0,0 +1,13 @@
+package cn.myth.mybatis.session;
+
+/**
+ * 执行器类型：
+ * SIMPLE 默认值，每次执行都会创建、关闭一个新的语句
+ * REUSE 可重用执行器，会话内按SQL复用预处理语句
+ * BATCH 批量执行器，相同SQL的连续更新合并为一个JDBC批次，在提交或刷新时统一执行
+ */
+public enum ExecutorType {
+    SIMPLE,
+    REUSE,
+    BATCH
+}
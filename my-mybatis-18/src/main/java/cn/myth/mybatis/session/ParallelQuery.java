@@ -0,0 +1,54 @@
+package cn.myth.mybatis.session;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 并行查询请求，按添加顺序记录若干互不相关的 (statement, parameter)，
+ * 由 SqlSessionFactory#parallelQuery 在各自的连接上同时执行
+ */
+public class ParallelQuery {
+
+    private final List<Call> calls = new ArrayList<>();
+
+    public ParallelQuery add(String statement, Object parameter) {
+        calls.add(new Call(statement, parameter));
+        return this;
+    }
+
+    public ParallelQuery add(String statement) {
+        return add(statement, null);
+    }
+
+    public List<Call> getCalls() {
+        return Collections.unmodifiableList(calls);
+    }
+
+    public int size() {
+        return calls.size();
+    }
+
+    /**
+     * 单个查询
+     */
+    public static class Call {
+
+        private final String statement;
+        private final Object parameter;
+
+        public Call(String statement, Object parameter) {
+            this.statement = statement;
+            this.parameter = parameter;
+        }
+
+        public String getStatement() {
+            return statement;
+        }
+
+        public Object getParameter() {
+            return parameter;
+        }
+    }
+
+}
@@ -14,4 +14,14 @@ public interface ResultContext {
      * 获取记录数
      */
     int getResultCount();
+
+    /**
+     * 停止处理，不再读取后续的行
+     */
+    void stop();
+
+    /**
+     * 是否已停止
+     */
+    boolean isStopped();
 }
@@ -1,6 +1,11 @@
 package cn.myth.mybatis.session;
 
+import cn.myth.mybatis.cursor.Cursor;
+import cn.myth.mybatis.cursor.KeysetIterator;
+import cn.myth.mybatis.executor.BatchResult;
+
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * SqlSession 用来执行SQL，获取映射器，管理事务。
@@ -41,6 +46,92 @@ public interface SqlSession {
      */
     <E> List<E> selectList(String statement, Object parameter);
 
+    /**
+     * Retrieve a list of mapped objects from the statement key and parameter, within the specified row bounds.
+     * 获取多条记录，容许传入参数和分页限制
+     *
+     * @param <E>       the returned list element type
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @param rowBounds Bounds to limit object retrieval
+     * @return List of mapped object
+     */
+    <E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds);
+
+    /**
+     * 由查询语句推导 count 语句，返回不分页时的总记录数，同一会话内相同查询条件的结果会被缓存
+     *
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @return total count of the rows the statement would return
+     */
+    long selectCount(String statement, Object parameter);
+
+    /**
+     * Retrieve a single row mapped from the statement key and parameter using a {@code ResultHandler}.
+     * 查询结果逐行交给 ResultHandler 处理，不会在内存中构建结果List
+     *
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @param handler   ResultHandler that will handle each retrieved row
+     */
+    void select(String statement, Object parameter, ResultHandler handler);
+
+    /**
+     * Retrieve a single row mapped from the statement key and parameter using a {@code ResultHandler} and {@code RowBounds}.
+     * 查询结果逐行交给 ResultHandler 处理，容许传入分页限制，可通过 ResultContext.stop() 提前结束
+     *
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @param rowBounds RowBound instance to limit the query results
+     * @param handler   ResultHandler that will handle each retrieved row
+     */
+    void select(String statement, Object parameter, RowBounds rowBounds, ResultHandler handler);
+
+    /**
+     * A Cursor offers the same results as a List, except it fetches data lazily using an Iterator.
+     * 以游标方式查询，迭代时逐行读取并映射，适合大结果集
+     *
+     * @param <T>       the returned cursor element type.
+     * @param statement Unique identifier matching the statement to use.
+     * @return Cursor of mapped objects
+     */
+    <T> Cursor<T> selectCursor(String statement);
+
+    /**
+     * 以游标方式查询，容许传入参数
+     *
+     * @param <T>       the returned cursor element type.
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @return Cursor of mapped objects
+     */
+    <T> Cursor<T> selectCursor(String statement, Object parameter);
+
+    /**
+     * 以游标方式查询，容许传入参数和分页限制
+     *
+     * @param <T>       the returned cursor element type.
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @param rowBounds Bounds to limit object retrieval
+     * @return Cursor of mapped objects
+     */
+    <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds);
+
+    /**
+     * 键集（seek）分页查询，按 keyProperty 升序每次查询一页，下一页以上一页最后一行的键值作为 key > ? 条件，
+     * 并在使用方消费当前页时后台预读下一页
+     *
+     * @param <T>         the returned element type
+     * @param statement   Unique identifier matching the statement to use.
+     * @param parameter   A parameter object to pass to the statement.
+     * @param keyProperty 排序键属性，需唯一且递增，如 id
+     * @param pageSize    每页行数
+     * @return iterator over all rows, page by page
+     */
+    <T> KeysetIterator<T> selectKeyset(String statement, Object parameter, String keyProperty, int pageSize);
+
     /**
      * Execute an insert statement with the given parameter object. Any generated
      * autoincrement values or selectKey entries will modify the given parameter
@@ -73,6 +164,65 @@ public interface SqlSession {
      */
     Object delete(String statement, Object parameter);
 
+    /**
+     * 异步查询一条记录，在 Configuration 配置的线程池中执行。
+     * 同一会话的异步语句共用一个连接，按提交顺序逐个执行；会话上的同步调用会先等待已提交的异步语句完成。
+     *
+     * @param <T>       the returned object type
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @return future of mapped object
+     */
+    <T> CompletableFuture<T> selectOneAsync(String statement, Object parameter);
+
+    /**
+     * 异步查询多条记录
+     *
+     * @param <E>       the returned list element type
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @return future of mapped object list
+     */
+    <E> CompletableFuture<List<E>> selectListAsync(String statement, Object parameter);
+
+    /**
+     * 异步查询多条记录，容许传入分页限制
+     *
+     * @param <E>       the returned list element type
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @param rowBounds Bounds to limit object retrieval
+     * @return future of mapped object list
+     */
+    <E> CompletableFuture<List<E>> selectListAsync(String statement, Object parameter, RowBounds rowBounds);
+
+    /**
+     * 异步插入记录
+     *
+     * @param statement Unique identifier matching the statement to execute.
+     * @param parameter A parameter object to pass to the statement.
+     * @return future of the number of rows affected
+     */
+    CompletableFuture<Integer> insertAsync(String statement, Object parameter);
+
+    /**
+     * 异步更新记录
+     *
+     * @param statement Unique identifier matching the statement to execute.
+     * @param parameter A parameter object to pass to the statement.
+     * @return future of the number of rows affected
+     */
+    CompletableFuture<Integer> updateAsync(String statement, Object parameter);
+
+    /**
+     * 异步删除记录
+     *
+     * @param statement Unique identifier matching the statement to execute.
+     * @param parameter A parameter object to pass to the statement.
+     * @return future of the number of rows affected
+     */
+    CompletableFuture<Integer> deleteAsync(String statement, Object parameter);
+
     /**
      * 以下是事物控制方法 commit,rollback
      * Flushes batch statements and commits database connection.
@@ -80,6 +230,14 @@ public interface SqlSession {
      */
     void commit();
 
+    /**
+     * Flushes batch statements.
+     * 刷新批处理语句，返回各批次的执行结果
+     *
+     * @return BatchResult list of updated records
+     */
+    List<BatchResult> flushStatements();
+
     /**
      * 关闭Session
      */
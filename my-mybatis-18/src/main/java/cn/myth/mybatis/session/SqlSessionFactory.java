@@ -1,5 +1,8 @@
 package cn.myth.mybatis.session;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 /**
  *  工厂模式接口，构建SqlSession的工厂
  */
@@ -10,4 +13,23 @@ public interface SqlSessionFactory {
      * @return SqlSession
      */
     SqlSession openSession();
+
+    /**
+     * 按指定执行器类型打开一个 session
+     * @param execType SIMPLE/REUSE/BATCH
+     * @return SqlSession
+     */
+    SqlSession openSession(ExecutorType execType);
+
+    /**
+     * 并行执行互不相关的查询，每个查询从数据源取一个独立连接，总耗时取决于最慢的查询而不是各查询之和。
+     * 超过截止时间仍未完成的查询会被取消（中止其物理连接），任一查询失败时同样取消其余查询。
+     * 同时执行的数量受连接池最大活跃连接数限制。
+     *
+     * @param query   要执行的查询
+     * @param timeout 全部查询的总截止时间
+     * @param unit    时间单位
+     * @return 各查询结果，顺序与添加顺序一致
+     */
+    List<List<Object>> parallelQuery(ParallelQuery query, long timeout, TimeUnit unit);
 }
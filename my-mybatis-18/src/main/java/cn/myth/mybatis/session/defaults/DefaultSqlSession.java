@@ -1,16 +1,24 @@
 package cn.myth.mybatis.session.defaults;
 
+import cn.myth.mybatis.cursor.Cursor;
+import cn.myth.mybatis.cursor.KeysetIterator;
+import cn.myth.mybatis.executor.BatchResult;
 import cn.myth.mybatis.executor.Executor;
+import cn.myth.mybatis.executor.async.SerialTaskQueue;
 import cn.myth.mybatis.mapping.MappedStatement;
 import cn.myth.mybatis.session.Configuration;
+import cn.myth.mybatis.session.ResultHandler;
 import cn.myth.mybatis.session.RowBounds;
 import cn.myth.mybatis.session.SqlSession;
 import com.alibaba.fastjson.JSON;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 默认SqlSession实现类
@@ -21,6 +29,12 @@ public class DefaultSqlSession implements SqlSession {
 
     private Configuration configuration;
     private Executor executor;
+    // 本会话打开的游标，关闭会话时一并关闭
+    private List<Cursor<?>> cursorList;
+    // 本会话打开的键集分页迭代器，关闭会话时一并关闭
+    private List<KeysetIterator<?>> keysetIteratorList;
+    // 异步语句队列，首次异步调用时创建，保证本会话的语句在同一连接上按顺序执行
+    private volatile SerialTaskQueue asyncQueue;
 
     public DefaultSqlSession(Configuration configuration, Executor executor) {
         this.configuration = configuration;
@@ -34,7 +48,10 @@ public class DefaultSqlSession implements SqlSession {
 
     @Override
     public <T> T selectOne(String statement, Object parameter) {
-        List<T> list = this.<T>selectList(statement, parameter);
+        return single(this.<T>selectList(statement, parameter));
+    }
+
+    private <T> T single(List<T> list) {
         if (list.size() == 1) {
             return list.get(0);
         } else if (list.size() > 1) {
@@ -46,16 +63,123 @@ public class DefaultSqlSession implements SqlSession {
 
     @Override
     public <E> List<E> selectList(String statement, Object parameter) {
+        return selectList(statement, parameter, RowBounds.DEFAULT);
+    }
+
+    @Override
+    public <E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds) {
+        awaitAsync();
+        return doSelectList(statement, parameter, rowBounds);
+    }
+
+    private <E> List<E> doSelectList(String statement, Object parameter, RowBounds rowBounds) {
         // 链路关系 Executor#query -> SimpleExecutor#doQuery -> StatementHandler#parameterize -> PreparedStatement#parameterize -> ParameterHandler#setParameters
         logger.info("执行查询 statement：{} parameter：{}", statement, JSON.toJSONString(parameter));
         MappedStatement ms = configuration.getMappedStatement(statement);
         try {
-            return executor.query(ms, parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+            return executor.query(ms, parameter, rowBounds, Executor.NO_RESULT_HANDLER);
         } catch (SQLException e) {
             throw new RuntimeException("Error querying database.  Cause: " + e);
         }
     }
 
+    @Override
+    public long selectCount(String statement, Object parameter) {
+        awaitAsync();
+        MappedStatement ms = configuration.getMappedStatement(statement);
+        try {
+            return executor.queryCount(ms, parameter);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error querying database.  Cause: " + e);
+        }
+    }
+
+    @Override
+    public void select(String statement, Object parameter, ResultHandler handler) {
+        select(statement, parameter, RowBounds.DEFAULT, handler);
+    }
+
+    @Override
+    public void select(String statement, Object parameter, RowBounds rowBounds, ResultHandler handler) {
+        awaitAsync();
+        MappedStatement ms = configuration.getMappedStatement(statement);
+        try {
+            executor.query(ms, parameter, rowBounds, handler);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error querying database.  Cause: " + e);
+        }
+    }
+
+
+    @Override
+    public <T> Cursor<T> selectCursor(String statement) {
+        return selectCursor(statement, null);
+    }
+
+    @Override
+    public <T> Cursor<T> selectCursor(String statement, Object parameter) {
+        return selectCursor(statement, parameter, RowBounds.DEFAULT);
+    }
+
+    @Override
+    public <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds) {
+        awaitAsync();
+        MappedStatement ms = configuration.getMappedStatement(statement);
+        try {
+            Cursor<T> cursor = executor.queryCursor(ms, parameter, rowBounds);
+            registerCursor(cursor);
+            return cursor;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error querying database.  Cause: " + e);
+        }
+    }
+
+    @Override
+    public <T> KeysetIterator<T> selectKeyset(String statement, Object parameter, String keyProperty, int pageSize) {
+        awaitAsync();
+        MappedStatement ms = configuration.getMappedStatement(statement);
+        KeysetIterator<T> iterator = new KeysetIterator<>(executor, getAsyncQueue(), ms, parameter, keyProperty, pageSize);
+        registerKeysetIterator(iterator);
+        return iterator;
+    }
+
+    private <T> void registerKeysetIterator(KeysetIterator<T> iterator) {
+        if (keysetIteratorList == null) {
+            keysetIteratorList = new ArrayList<>();
+        }
+        // 已经读完或关闭的迭代器不再持有
+        keysetIteratorList.removeIf(KeysetIterator::isDone);
+        keysetIteratorList.add(iterator);
+    }
+
+    private void closeKeysetIterators() {
+        if (keysetIteratorList != null && !keysetIteratorList.isEmpty()) {
+            for (KeysetIterator<?> iterator : keysetIteratorList) {
+                iterator.close();
+            }
+            keysetIteratorList.clear();
+        }
+    }
+
+    private <T> void registerCursor(Cursor<T> cursor) {
+        if (cursorList == null) {
+            cursorList = new ArrayList<>();
+        }
+        cursorList.add(cursor);
+    }
+
+    private void closeCursors() {
+        if (cursorList != null && !cursorList.isEmpty()) {
+            for (Cursor<?> cursor : cursorList) {
+                try {
+                    cursor.close();
+                } catch (IOException e) {
+                    throw new RuntimeException("Error closing cursor.  Cause: " + e, e);
+                }
+            }
+            cursorList.clear();
+        }
+    }
 
     @Override
     public int insert(String statement, Object parameter) {
@@ -65,6 +189,11 @@ public class DefaultSqlSession implements SqlSession {
 
     @Override
     public int update(String statement, Object parameter) {
+        awaitAsync();
+        return doUpdate(statement, parameter);
+    }
+
+    private int doUpdate(String statement, Object parameter) {
         // 查询要处理哪个mapper语句
         MappedStatement ms = configuration.getMappedStatement(statement);
         try {
@@ -79,8 +208,63 @@ public class DefaultSqlSession implements SqlSession {
         return update(statement, parameter);
     }
 
+    @Override
+    public <T> CompletableFuture<T> selectOneAsync(String statement, Object parameter) {
+        return getAsyncQueue().submit(() -> single(this.<T>doSelectList(statement, parameter, RowBounds.DEFAULT)));
+    }
+
+    @Override
+    public <E> CompletableFuture<List<E>> selectListAsync(String statement, Object parameter) {
+        return selectListAsync(statement, parameter, RowBounds.DEFAULT);
+    }
+
+    @Override
+    public <E> CompletableFuture<List<E>> selectListAsync(String statement, Object parameter, RowBounds rowBounds) {
+        return getAsyncQueue().submit(() -> doSelectList(statement, parameter, rowBounds));
+    }
+
+    @Override
+    public CompletableFuture<Integer> insertAsync(String statement, Object parameter) {
+        return updateAsync(statement, parameter);
+    }
+
+    @Override
+    public CompletableFuture<Integer> updateAsync(String statement, Object parameter) {
+        return getAsyncQueue().submit(() -> doUpdate(statement, parameter));
+    }
+
+    @Override
+    public CompletableFuture<Integer> deleteAsync(String statement, Object parameter) {
+        return updateAsync(statement, parameter);
+    }
+
+    private SerialTaskQueue getAsyncQueue() {
+        SerialTaskQueue queue = asyncQueue;
+        if (queue == null) {
+            synchronized (this) {
+                queue = asyncQueue;
+                if (queue == null) {
+                    queue = new SerialTaskQueue(configuration.getAsyncExecutorService());
+                    asyncQueue = queue;
+                }
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * 同步调用前等待已提交的异步语句执行完，连接和执行器不支持并发使用
+     */
+    private void awaitAsync() {
+        SerialTaskQueue queue = asyncQueue;
+        if (queue != null) {
+            queue.awaitPending();
+        }
+    }
+
     @Override
     public void commit() {
+        awaitAsync();
         try {
             executor.commit(true);
         } catch (SQLException e) {
@@ -88,6 +272,15 @@ public class DefaultSqlSession implements SqlSession {
         }
     }
 
+    @Override
+    public List<BatchResult> flushStatements() {
+        awaitAsync();
+        try {
+            return executor.flushStatements();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error flushing statements.  Cause: " + e);
+        }
+    }
 
 //    @Override
 //    public <T> T selectOne(String statement, Object parameter) {
@@ -141,11 +334,19 @@ public class DefaultSqlSession implements SqlSession {
     @Override
     public void close() {
         // isCommitOrRollbackRequired(false)
-        executor.close(false);
+        // 先关闭游标，MySQL 流式结果集未关闭前连接上不能执行其他操作
+        closeKeysetIterators();
+        awaitAsync();
+        try {
+            closeCursors();
+        } finally {
+            executor.close(false);
+        }
     }
 
     @Override
     public void clearCache() {
+        awaitAsync();
         executor.clearLocalCache();
     }
 
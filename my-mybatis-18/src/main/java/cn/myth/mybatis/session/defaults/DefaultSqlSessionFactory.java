@@ -3,13 +3,25 @@ package cn.myth.mybatis.session.defaults;
 import cn.myth.mybatis.executor.Executor;
 import cn.myth.mybatis.mapping.Environment;
 import cn.myth.mybatis.session.Configuration;
+import cn.myth.mybatis.session.ExecutorType;
+import cn.myth.mybatis.session.ParallelQuery;
+import cn.myth.mybatis.session.RowBounds;
 import cn.myth.mybatis.session.SqlSession;
 import cn.myth.mybatis.session.SqlSessionFactory;
 import cn.myth.mybatis.session.TransactionIsolationLevel;
 import cn.myth.mybatis.transaction.Transaction;
 import cn.myth.mybatis.transaction.TransactionFactory;
 
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class DefaultSqlSessionFactory implements SqlSessionFactory {
 
@@ -21,13 +33,22 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
 
     @Override
     public SqlSession openSession() {
+        return openSessionFromDataSource(configuration.getDefaultExecutorType());
+    }
+
+    @Override
+    public SqlSession openSession(ExecutorType execType) {
+        return openSessionFromDataSource(execType);
+    }
+
+    private SqlSession openSessionFromDataSource(ExecutorType execType) {
         Transaction tx = null;
         try {
             final Environment environment = configuration.getEnvironment();
             TransactionFactory transactionFactory = environment.getTransactionFactory();
             tx = transactionFactory.newTransaction(configuration.getEnvironment().getDataSource(), TransactionIsolationLevel.READ_COMMITTED, false);
             // 创建执行器
-            final Executor executor = configuration.newExecutor(tx);
+            final Executor executor = configuration.newExecutor(tx, execType);
             // 创建DefaultSqlSession
             return new DefaultSqlSession(configuration, executor);
         } catch (Exception e) {
@@ -40,4 +61,94 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
         }
     }
 
+    @Override
+    public List<List<Object>> parallelQuery(ParallelQuery query, long timeout, TimeUnit unit) {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        final ExecutorService executorService = configuration.getAsyncExecutorService();
+        final List<FanOutTask> tasks = new ArrayList<>(query.size());
+        final List<Future<List<Object>>> futures = new ArrayList<>(query.size());
+        for (ParallelQuery.Call call : query.getCalls()) {
+            FanOutTask task = new FanOutTask(call);
+            tasks.add(task);
+            futures.add(executorService.submit(task));
+        }
+        List<List<Object>> results = new ArrayList<>(futures.size());
+        int i = 0;
+        try {
+            for (; i < futures.size(); i++) {
+                results.add(futures.get(i).get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+            return results;
+        } catch (TimeoutException e) {
+            cancel(tasks, futures);
+            throw new RuntimeException("Parallel query exceeded deadline of " + unit.toMillis(timeout) + "ms waiting for "
+                    + tasks.get(i).call.getStatement() + ".  Cause: " + e, e);
+        } catch (ExecutionException e) {
+            cancel(tasks, futures);
+            throw new RuntimeException("Error querying database in parallel (" + tasks.get(i).call.getStatement() + ").  Cause: " + e.getCause(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(tasks, futures);
+            throw new RuntimeException("Interrupted while waiting for parallel query.  Cause: " + e, e);
+        }
+    }
+
+    // 取消还未完成的查询：未开始的直接从线程池撤销，执行中的中止其物理连接
+    private void cancel(List<FanOutTask> tasks, List<Future<List<Object>>> futures) {
+        for (int i = 0; i < futures.size(); i++) {
+            if (!futures.get(i).isDone()) {
+                futures.get(i).cancel(true);
+                tasks.get(i).abort(configuration.getAsyncExecutorService());
+            }
+        }
+    }
+
+    /**
+     * 并行查询中的单个任务，使用独立的事务（连接）和执行器，结束时关闭会话把连接归还连接池
+     */
+    private class FanOutTask implements Callable<List<Object>> {
+
+        private final ParallelQuery.Call call;
+        private Connection connection;
+        private boolean finished;
+
+        FanOutTask(ParallelQuery.Call call) {
+            this.call = call;
+        }
+
+        @Override
+        public List<Object> call() throws Exception {
+            final Environment environment = configuration.getEnvironment();
+            final Transaction tx = environment.getTransactionFactory().newTransaction(environment.getDataSource(), TransactionIsolationLevel.READ_COMMITTED, false);
+            final SqlSession session = new DefaultSqlSession(configuration, configuration.newExecutor(tx, ExecutorType.SIMPLE));
+            try {
+                Connection conn = tx.getConnection();
+                synchronized (this) {
+                    connection = conn;
+                }
+                return session.selectList(call.getStatement(), call.getParameter(), RowBounds.DEFAULT);
+            } finally {
+                // 先标记结束，之后关闭会话时连接归还连接池，可能已被其他使用方借出，不能再被中止
+                synchronized (this) {
+                    finished = true;
+                }
+                session.close();
+            }
+        }
+
+        /**
+         * 中止执行中的查询，池化连接被标记为驱逐，任务线程关闭会话归还时由连接池丢弃
+         */
+        synchronized void abort(ExecutorService executorService) {
+            if (finished || connection == null) {
+                return;
+            }
+            try {
+                connection.abort(executorService);
+            } catch (SQLException | AbstractMethodError ignore) {
+                // 驱动不支持 abort 时只能等待查询自然结束
+            }
+        }
+    }
+
 }
@@ -34,8 +34,13 @@ public class JdbcTransaction implements Transaction {
             return connection;
         }
         connection = dataSource.getConnection();
-        connection.setTransactionIsolation(level.getLevel());
-        connection.setAutoCommit(autoCommit);
+        // 池化连接在本地记录会话状态，取值不变时不会发往数据库；NONE 表示沿用连接当前的隔离级别
+        if (level != null && level != TransactionIsolationLevel.NONE) {
+            connection.setTransactionIsolation(level.getLevel());
+        }
+        if (connection.getAutoCommit() != autoCommit) {
+            connection.setAutoCommit(autoCommit);
+        }
         return connection;
     }
 
@@ -55,7 +60,7 @@ public class JdbcTransaction implements Transaction {
 
     @Override
     public void close() throws SQLException {
-        if (connection != null && !connection.getAutoCommit()) {
+        if (connection != null) {
             connection.close();
         }
     }
@@ -5,6 +5,7 @@ import cn.myth.mybatis.session.Configuration;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 
 public abstract class BaseTypeHandler<T> implements TypeHandler<T> {
 
@@ -16,6 +17,11 @@ public abstract class BaseTypeHandler<T> implements TypeHandler<T> {
 
     @Override
     public void setParameter(PreparedStatement ps, int i, T parameter, JdbcType jdbcType) throws SQLException {
+        // 包装类型、枚举等参数可能为 null，统一按 setNull 处理，未指定 jdbcType 时交给驱动推断
+        if (parameter == null) {
+            ps.setNull(i, jdbcType == null ? Types.NULL : jdbcType.TYPE_CODE);
+            return;
+        }
         // 定义抽象方法，由子类实现不同类型的属性设置
         setNonNullParameter(ps, i, parameter, jdbcType);
     }
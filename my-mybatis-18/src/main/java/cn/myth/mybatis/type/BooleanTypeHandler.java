@@ -0,0 +1,45 @@
+package cn.myth.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Boolean类型处理器
+ * 同时处理 Boolean 和 boolean，getBoolean/setBoolean 是不装箱的快速通道，供映射计划等预编译的映射直接调用
+ */
+public class BooleanTypeHandler extends BaseTypeHandler<Boolean> {
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, Boolean parameter, JdbcType jdbcType) throws SQLException {
+        ps.setBoolean(i, parameter);
+    }
+
+    // JDBC 对 NULL 返回 false，需要通过 wasNull 区分
+    @Override
+    protected Boolean getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        boolean result = rs.getBoolean(columnName);
+        return !result && rs.wasNull() ? null : result;
+    }
+
+    @Override
+    public Boolean getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        boolean result = rs.getBoolean(columnIndex);
+        return !result && rs.wasNull() ? null : result;
+    }
+
+    /**
+     * 基本类型取值，NULL 时返回 false，调用方可以紧接着用 ResultSet#wasNull 判断
+     */
+    public boolean getBoolean(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getBoolean(columnIndex);
+    }
+
+    /**
+     * 基本类型设置参数
+     */
+    public void setBoolean(PreparedStatement ps, int i, boolean parameter) throws SQLException {
+        ps.setBoolean(i, parameter);
+    }
+
+}
@@ -0,0 +1,27 @@
+package cn.myth.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * byte[]类型处理器，对应 BINARY、VARBINARY、BLOB 等二进制列
+ */
+public class ByteArrayTypeHandler extends BaseTypeHandler<byte[]> {
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, byte[] parameter, JdbcType jdbcType) throws SQLException {
+        ps.setBytes(i, parameter);
+    }
+
+    @Override
+    protected byte[] getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return rs.getBytes(columnName);
+    }
+
+    @Override
+    public byte[] getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getBytes(columnIndex);
+    }
+
+}
@@ -0,0 +1,45 @@
+package cn.myth.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Byte类型处理器
+ * 同时处理 Byte 和 byte，getByte/setByte 是不装箱的快速通道，供映射计划等预编译的映射直接调用
+ */
+public class ByteTypeHandler extends BaseTypeHandler<Byte> {
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, Byte parameter, JdbcType jdbcType) throws SQLException {
+        ps.setByte(i, parameter);
+    }
+
+    // JDBC 对 NULL 返回 0，需要通过 wasNull 区分
+    @Override
+    protected Byte getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        byte result = rs.getByte(columnName);
+        return result == 0 && rs.wasNull() ? null : result;
+    }
+
+    @Override
+    public Byte getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        byte result = rs.getByte(columnIndex);
+        return result == 0 && rs.wasNull() ? null : result;
+    }
+
+    /**
+     * 基本类型取值，NULL 时返回 0，调用方可以紧接着用 ResultSet#wasNull 判断
+     */
+    public byte getByte(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getByte(columnIndex);
+    }
+
+    /**
+     * 基本类型设置参数
+     */
+    public void setByte(PreparedStatement ps, int i, byte parameter) throws SQLException {
+        ps.setByte(i, parameter);
+    }
+
+}
@@ -0,0 +1,45 @@
+package cn.myth.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Double类型处理器
+ * 同时处理 Double 和 double，getDouble/setDouble 是不装箱的快速通道，供映射计划等预编译的映射直接调用
+ */
+public class DoubleTypeHandler extends BaseTypeHandler<Double> {
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, Double parameter, JdbcType jdbcType) throws SQLException {
+        ps.setDouble(i, parameter);
+    }
+
+    // JDBC 对 NULL 返回 0，需要通过 wasNull 区分
+    @Override
+    protected Double getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        double result = rs.getDouble(columnName);
+        return result == 0 && rs.wasNull() ? null : result;
+    }
+
+    @Override
+    public Double getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        double result = rs.getDouble(columnIndex);
+        return result == 0 && rs.wasNull() ? null : result;
+    }
+
+    /**
+     * 基本类型取值，NULL 时返回 0，调用方可以紧接着用 ResultSet#wasNull 判断
+     */
+    public double getDouble(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getDouble(columnIndex);
+    }
+
+    /**
+     * 基本类型设置参数
+     */
+    public void setDouble(PreparedStatement ps, int i, double parameter) throws SQLException {
+        ps.setDouble(i, parameter);
+    }
+
+}
@@ -0,0 +1,49 @@
+package cn.myth.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 枚举类型处理器，按序号存取
+ * 默认注册的是按名称存取的 EnumTypeHandler，需要按序号存储时通过 TypeHandlerRegistry#register 为具体枚举注册本处理器
+ */
+public class EnumOrdinalTypeHandler<E extends Enum<E>> extends BaseTypeHandler<E> {
+
+    private final Class<E> type;
+    // 序号即数组下标
+    private final E[] constants;
+
+    public EnumOrdinalTypeHandler(Class<E> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Type argument cannot be null");
+        }
+        this.type = type;
+        this.constants = type.getEnumConstants();
+    }
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, E parameter, JdbcType jdbcType) throws SQLException {
+        ps.setInt(i, parameter.ordinal());
+    }
+
+    @Override
+    protected E getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        int ordinal = rs.getInt(columnName);
+        return ordinal == 0 && rs.wasNull() ? null : toEnum(ordinal);
+    }
+
+    @Override
+    public E getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        int ordinal = rs.getInt(columnIndex);
+        return ordinal == 0 && rs.wasNull() ? null : toEnum(ordinal);
+    }
+
+    private E toEnum(int ordinal) {
+        if (ordinal < 0 || ordinal >= constants.length) {
+            throw new IllegalArgumentException("Cannot convert " + ordinal + " to " + type.getSimpleName() + " by ordinal value.");
+        }
+        return constants[ordinal];
+    }
+
+}
@@ -0,0 +1,56 @@
+package cn.myth.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 枚举类型处理器，按名称存取
+ * 名称到常量的查找表在创建时一次算好，取值时不再调用 Enum.valueOf
+ */
+public class EnumTypeHandler<E extends Enum<E>> extends BaseTypeHandler<E> {
+
+    private final Class<E> type;
+    private final Map<String, E> constants;
+
+    public EnumTypeHandler(Class<E> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Type argument cannot be null");
+        }
+        this.type = type;
+        E[] enums = type.getEnumConstants();
+        this.constants = new HashMap<>(enums.length * 2);
+        for (E e : enums) {
+            constants.put(e.name(), e);
+        }
+    }
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, E parameter, JdbcType jdbcType) throws SQLException {
+        ps.setString(i, parameter.name());
+    }
+
+    @Override
+    protected E getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return toEnum(rs.getString(columnName));
+    }
+
+    @Override
+    public E getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return toEnum(rs.getString(columnIndex));
+    }
+
+    private E toEnum(String name) {
+        if (name == null) {
+            return null;
+        }
+        E e = constants.get(name);
+        if (e == null) {
+            throw new IllegalArgumentException("Cannot convert " + name + " to " + type.getSimpleName() + " by name.");
+        }
+        return e;
+    }
+
+}
@@ -0,0 +1,45 @@
+package cn.myth.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Float类型处理器
+ * 同时处理 Float 和 float，getFloat/setFloat 是不装箱的快速通道，供映射计划等预编译的映射直接调用
+ */
+public class FloatTypeHandler extends BaseTypeHandler<Float> {
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, Float parameter, JdbcType jdbcType) throws SQLException {
+        ps.setFloat(i, parameter);
+    }
+
+    // JDBC 对 NULL 返回 0，需要通过 wasNull 区分
+    @Override
+    protected Float getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        float result = rs.getFloat(columnName);
+        return result == 0 && rs.wasNull() ? null : result;
+    }
+
+    @Override
+    public Float getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        float result = rs.getFloat(columnIndex);
+        return result == 0 && rs.wasNull() ? null : result;
+    }
+
+    /**
+     * 基本类型取值，NULL 时返回 0，调用方可以紧接着用 ResultSet#wasNull 判断
+     */
+    public float getFloat(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getFloat(columnIndex);
+    }
+
+    /**
+     * 基本类型设置参数
+     */
+    public void setFloat(PreparedStatement ps, int i, float parameter) throws SQLException {
+        ps.setFloat(i, parameter);
+    }
+
+}
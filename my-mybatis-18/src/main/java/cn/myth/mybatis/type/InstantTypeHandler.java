@@ -0,0 +1,31 @@
+package cn.myth.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Instant类型处理器
+ */
+public class InstantTypeHandler extends BaseTypeHandler<Instant> {
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, Instant parameter, JdbcType jdbcType) throws SQLException {
+        ps.setTimestamp(i, Timestamp.from(parameter));
+    }
+
+    @Override
+    protected Instant getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(columnName);
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+
+    @Override
+    public Instant getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(columnIndex);
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+
+}
@@ -0,0 +1,45 @@
+package cn.myth.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Integer类型处理器
+ * 同时处理 Integer 和 int，getInt/setInt 是不装箱的快速通道，供映射计划等预编译的映射直接调用
+ */
+public class IntegerTypeHandler extends BaseTypeHandler<Integer> {
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, Integer parameter, JdbcType jdbcType) throws SQLException {
+        ps.setInt(i, parameter);
+    }
+
+    // JDBC 对 NULL 返回 0，需要通过 wasNull 区分
+    @Override
+    protected Integer getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        int result = rs.getInt(columnName);
+        return result == 0 && rs.wasNull() ? null : result;
+    }
+
+    @Override
+    public Integer getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        int result = rs.getInt(columnIndex);
+        return result == 0 && rs.wasNull() ? null : result;
+    }
+
+    /**
+     * 基本类型取值，NULL 时返回 0，调用方可以紧接着用 ResultSet#wasNull 判断
+     */
+    public int getInt(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getInt(columnIndex);
+    }
+
+    /**
+     * 基本类型设置参数
+     */
+    public void setInt(PreparedStatement ps, int i, int parameter) throws SQLException {
+        ps.setInt(i, parameter);
+    }
+
+}
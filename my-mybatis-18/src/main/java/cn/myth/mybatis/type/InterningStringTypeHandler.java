@@ -0,0 +1,38 @@
+package cn.myth.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 去重的 String 类型处理器，读出的值经 StringInternTable 去重
+ * 在 ResultMap 的映射上配置 intern="true" 时使用：<result column="status" property="status" intern="true"/>，每个映射持有自己的去重表
+ */
+public class InterningStringTypeHandler extends BaseTypeHandler<String> {
+
+    private final StringInternTable internTable;
+
+    public InterningStringTypeHandler(StringInternTable internTable) {
+        this.internTable = internTable;
+    }
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, String parameter, JdbcType jdbcType) throws SQLException {
+        ps.setString(i, parameter);
+    }
+
+    @Override
+    protected String getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return internTable.intern(rs.getString(columnName));
+    }
+
+    @Override
+    public String getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return internTable.intern(rs.getString(columnIndex));
+    }
+
+    public StringInternTable getInternTable() {
+        return internTable;
+    }
+
+}
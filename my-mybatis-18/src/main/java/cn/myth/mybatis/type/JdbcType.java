@@ -9,14 +9,29 @@ import java.util.Map;
  */
 public enum JdbcType {
 
+    BIT(Types.BIT),
+    BOOLEAN(Types.BOOLEAN),
+    TINYINT(Types.TINYINT),
+    SMALLINT(Types.SMALLINT),
     INTEGER(Types.INTEGER),
     BIGINT(Types.BIGINT),
     FLOAT(Types.FLOAT),
+    REAL(Types.REAL),
     DOUBLE(Types.DOUBLE),
+    NUMERIC(Types.NUMERIC),
     DECIMAL(Types.DECIMAL),
     VARCHAR(Types.VARCHAR),
     CHAR(Types.CHAR),
-    TIMESTAMP(Types.TIMESTAMP);
+    LONGVARCHAR(Types.LONGVARCHAR),
+    DATE(Types.DATE),
+    TIME(Types.TIME),
+    TIMESTAMP(Types.TIMESTAMP),
+    BINARY(Types.BINARY),
+    VARBINARY(Types.VARBINARY),
+    LONGVARBINARY(Types.LONGVARBINARY),
+    BLOB(Types.BLOB),
+    CLOB(Types.CLOB),
+    OTHER(Types.OTHER);
 
     public final int TYPE_CODE;
     private static Map<Integer,JdbcType> codeLookup = new HashMap<>();
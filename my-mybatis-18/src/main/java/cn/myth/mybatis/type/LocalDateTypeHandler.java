@@ -0,0 +1,32 @@
+package cn.myth.mybatis.type;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * LocalDate类型处理器
+ * 通过 java.sql.Date 转换，不依赖驱动对 JDBC 4.2 getObject(int, Class) 的支持
+ */
+public class LocalDateTypeHandler extends BaseTypeHandler<LocalDate> {
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, LocalDate parameter, JdbcType jdbcType) throws SQLException {
+        ps.setDate(i, Date.valueOf(parameter));
+    }
+
+    @Override
+    protected LocalDate getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        Date date = rs.getDate(columnName);
+        return date == null ? null : date.toLocalDate();
+    }
+
+    @Override
+    public LocalDate getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        Date date = rs.getDate(columnIndex);
+        return date == null ? null : date.toLocalDate();
+    }
+
+}
@@ -6,22 +6,40 @@ import java.sql.SQLException;
 
 /**
  * Long类型处理器
+ * 同时处理 Long 和 long，getLong/setLong 是不装箱的快速通道，供映射计划等预编译的映射直接调用
  */
 public class LongTypeHandler extends BaseTypeHandler<Long> {
+
     @Override
     protected void setNonNullParameter(PreparedStatement ps, int i, Long parameter, JdbcType jdbcType) throws SQLException {
         ps.setLong(i, parameter);
     }
 
-    // Long类型处理器获取返回值，则从JDBC的结果集中getLong就可以获取相应类型的值
+    // JDBC 对 NULL 返回 0，需要通过 wasNull 区分
     @Override
     protected Long getNullableResult(ResultSet rs, String columnName) throws SQLException {
-        return rs.getLong(columnName);
+        long result = rs.getLong(columnName);
+        return result == 0 && rs.wasNull() ? null : result;
     }
 
     @Override
     public Long getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        long result = rs.getLong(columnIndex);
+        return result == 0 && rs.wasNull() ? null : result;
+    }
+
+    /**
+     * 基本类型取值，NULL 时返回 0，调用方可以紧接着用 ResultSet#wasNull 判断
+     */
+    public long getLong(ResultSet rs, int columnIndex) throws SQLException {
         return rs.getLong(columnIndex);
     }
 
+    /**
+     * 基本类型设置参数
+     */
+    public void setLong(PreparedStatement ps, int i, long parameter) throws SQLException {
+        ps.setLong(i, parameter);
+    }
+
 }
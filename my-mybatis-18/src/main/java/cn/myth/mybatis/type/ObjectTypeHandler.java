@@ -0,0 +1,27 @@
+package cn.myth.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Object类型处理器，直接使用驱动的 getObject/setObject，列的 Java 类型未知或没有对应处理器时兜底
+ */
+public class ObjectTypeHandler extends BaseTypeHandler<Object> {
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, Object parameter, JdbcType jdbcType) throws SQLException {
+        ps.setObject(i, parameter);
+    }
+
+    @Override
+    protected Object getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return rs.getObject(columnName);
+    }
+
+    @Override
+    public Object getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getObject(columnIndex);
+    }
+
+}
@@ -0,0 +1,45 @@
+package cn.myth.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Short类型处理器
+ * 同时处理 Short 和 short，getShort/setShort 是不装箱的快速通道，供映射计划等预编译的映射直接调用
+ */
+public class ShortTypeHandler extends BaseTypeHandler<Short> {
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, Short parameter, JdbcType jdbcType) throws SQLException {
+        ps.setShort(i, parameter);
+    }
+
+    // JDBC 对 NULL 返回 0，需要通过 wasNull 区分
+    @Override
+    protected Short getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        short result = rs.getShort(columnName);
+        return result == 0 && rs.wasNull() ? null : result;
+    }
+
+    @Override
+    public Short getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        short result = rs.getShort(columnIndex);
+        return result == 0 && rs.wasNull() ? null : result;
+    }
+
+    /**
+     * 基本类型取值，NULL 时返回 0，调用方可以紧接着用 ResultSet#wasNull 判断
+     */
+    public short getShort(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getShort(columnIndex);
+    }
+
+    /**
+     * 基本类型设置参数
+     */
+    public void setShort(PreparedStatement ps, int i, short parameter) throws SQLException {
+        ps.setShort(i, parameter);
+    }
+
+}
@@ -0,0 +1,69 @@
+package cn.myth.mybatis.type;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 字符串去重表，每个配置了 intern="true" 的映射一张，所有会话共享
+ * 用于状态、国家、币种这类取值很少的列：相同的值返回同一个 String 实例，大结果集或二级缓存中的结果不再各自持有一份副本。
+ * 有界：表满后不再加入新值，直接返回原字符串；已有的值不淘汰，低基数列的取值在最初几行就会全部进入表中。
+ * 按映射分表，误配在高基数列上只会填满该列自己的表，不影响其他列的去重。
+ */
+public class StringInternTable {
+
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+    private volatile int maxSize;
+
+    // 每次读取都会计数，用 LongAdder 避免多线程映射时争用同一个计数器
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    public StringInternTable(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 返回表中与 value 相等的实例，没有且表未满时加入
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String interned = strings.get(value);
+        if (interned != null) {
+            hitCount.increment();
+            return interned;
+        }
+        missCount.increment();
+        if (strings.size() >= maxSize) {
+            return value;
+        }
+        interned = strings.putIfAbsent(value, value);
+        return interned != null ? interned : value;
+    }
+
+    public void clear() {
+        strings.clear();
+    }
+
+    public int size() {
+        return strings.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+}
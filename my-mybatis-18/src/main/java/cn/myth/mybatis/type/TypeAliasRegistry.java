@@ -26,6 +26,19 @@ public class TypeAliasRegistry {
         registerAlias("double", Double.class);
         registerAlias("float", Float.class);
         registerAlias("boolean", Boolean.class);
+
+        // 基本类型，构造函数参数是基本类型时使用
+        registerAlias("_byte", byte.class);
+        registerAlias("_long", long.class);
+        registerAlias("_short", short.class);
+        registerAlias("_int", int.class);
+        registerAlias("_integer", int.class);
+        registerAlias("_double", double.class);
+        registerAlias("_float", float.class);
+        registerAlias("_boolean", boolean.class);
+
+        // resultType="map" 的结果为紧凑行 Map
+        registerAlias("map", Map.class);
     }
 
     public void registerAlias(String alias, Class<?> value) {
@@ -1,43 +1,111 @@
 package cn.myth.mybatis.type;
 
 import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.Date;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 
 /**
  * 类型处理器注册机
+ * 配置阶段直接修改注册表；解析完配置后冻结，之后的注册改为写时复制：复制注册表、修改后整体替换，读取不加锁。
+ * 按 Class 查找通过 ClassValue 缓存每个类的解析结果（包括父类、接口上注册的处理器，以及没有处理器的否定结果），
+ * 热路径上一次查找就是一次 ClassValue#get；注册后丢弃整个缓存重新解析。
  */
 public final class TypeHandlerRegistry {
 
-    private final Map<JdbcType, TypeHandler<?>> JDBC_TYPE_HANDLER_MAP = new EnumMap<>(JdbcType.class);
-    private final Map<Type, Map<JdbcType, TypeHandler<?>>> TYPE_HANDLER_MAP = new HashMap<>();
-    private final Map<Class<?>, TypeHandler<?>> ALL_TYPE_HANDLERS_MAP = new HashMap<>();
+    private volatile Registrations registrations = new Registrations();
+    private volatile ClassValue<ResolvedType> resolvedTypes = newResolvedTypes();
+    private volatile boolean frozen;
+    // 注册表版本，每次发布新注册表时递增；缓存了已解析处理器的地方（如自动映射计划）用它区分新旧注册表
+    private volatile int generation;
 
     public TypeHandlerRegistry() {
-        register(Long.class, new LongTypeHandler());
-        register(long.class, new LongTypeHandler());
+        // 基本类型与包装类型共用一个处理器实例
+        register(Boolean.class, boolean.class, new BooleanTypeHandler());
+        register(Byte.class, byte.class, new ByteTypeHandler());
+        register(Short.class, short.class, new ShortTypeHandler());
+        register(Integer.class, int.class, new IntegerTypeHandler());
+        register(Long.class, long.class, new LongTypeHandler());
+        register(Float.class, float.class, new FloatTypeHandler());
+        register(Double.class, double.class, new DoubleTypeHandler());
+
+        register(BigDecimal.class, new BigDecimalTypeHandler());
+        register(byte[].class, new ByteArrayTypeHandler());
 
         register(String.class, new StringTypeHandler());
         register(String.class, JdbcType.CHAR, new StringTypeHandler());
         register(String.class, JdbcType.VARCHAR, new StringTypeHandler());
         register(Date.class, new DateTypeHandler());
+        register(LocalDate.class, new LocalDateTypeHandler());
+        register(LocalDateTime.class, new LocalDateTimeTypeHandler());
+        register(Instant.class, new InstantTypeHandler());
+    }
+
+    private <T> void register(Class<T> boxedType, Class<?> primitiveType, TypeHandler<T> handler) {
+        register(boxedType, (JdbcType) null, handler);
+        register(primitiveType, (JdbcType) null, handler);
     }
 
-    private <T> void register(Class<T> javaType, TypeHandler<T> handler) {
-        register(javaType, null, handler);;
+    /**
+     * 注册 Java 类型的默认处理器，例如为某个枚举注册 EnumOrdinalTypeHandler
+     */
+    public <T> void register(Class<T> javaType, TypeHandler<? extends T> handler) {
+        register(javaType, (JdbcType) null, handler);
     }
 
-    public void register(JdbcType jdbcType, TypeHandler<?> handler) {
-        JDBC_TYPE_HANDLER_MAP.put(jdbcType, handler);
+    public synchronized void register(JdbcType jdbcType, TypeHandler<?> handler) {
+        Registrations target = writable();
+        target.jdbcTypeHandlerMap.put(jdbcType, handler);
+        publish(target);
     }
 
-    private void register(Type javaType, JdbcType jdbcType, TypeHandler<?> handler) {
+    private synchronized void register(Type javaType, JdbcType jdbcType, TypeHandler<?> handler) {
+        Registrations target = writable();
         if (null != javaType) {
-            Map<JdbcType, TypeHandler<?>> map = TYPE_HANDLER_MAP.computeIfAbsent(javaType, k -> new HashMap<>());            map.put(jdbcType, handler);
+            Map<JdbcType, TypeHandler<?>> map = target.typeHandlerMap.computeIfAbsent(javaType, k -> new HashMap<>());
+            map.put(jdbcType, handler);
         }
-        ALL_TYPE_HANDLERS_MAP.put(handler.getClass(), handler);
+        target.allTypeHandlersMap.put(handler.getClass(), handler);
+        publish(target);
+    }
+
+    /**
+     * 冻结注册表，配置解析完成后调用
+     */
+    public synchronized void freeze() {
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    // 冻结前原地修改；冻结后复制一份，修改完成前读取方看到的仍是旧注册表
+    private Registrations writable() {
+        return frozen ? registrations.copy() : registrations;
+    }
+
+    private void publish(Registrations target) {
+        registrations = target;
+        resolvedTypes = newResolvedTypes();
+        generation++;
+    }
+
+    /**
+     * 注册表版本，注册处理器后变化
+     */
+    public int getGeneration() {
+        return generation;
     }
 
     @SuppressWarnings("unchecked")
@@ -46,28 +114,136 @@ public final class TypeHandlerRegistry {
     }
 
     public boolean hasTypeHandler(Class<?> javaType) {
-        return hasTypeHandler(javaType, null);
+        return javaType != null && resolvedTypes.get(javaType).defaultHandler != null;
     }
 
     public boolean hasTypeHandler(Class<?> javaType, JdbcType jdbcType) {
         return javaType != null && getTypeHandler((Type) javaType, jdbcType) != null;
     }
 
-
+    @SuppressWarnings("unchecked")
     private <T> TypeHandler<T> getTypeHandler(Type type, JdbcType jdbcType) {
-        Map<JdbcType, TypeHandler<?>> jdbcHandlerMap = TYPE_HANDLER_MAP.get(type);
-        TypeHandler<?> handler = null;
+        if (type instanceof Class) {
+            return (TypeHandler<T>) resolvedTypes.get((Class<?>) type).get(jdbcType);
+        }
+        // 参数化类型等非 Class 类型只做精确匹配
+        return (TypeHandler<T>) ResolvedType.of(registrations.typeHandlerMap.get(type)).get(jdbcType);
+    }
+
+    public TypeHandler<?> getMappingTypeHandler(Class<? extends TypeHandler<?>> handlerType) {
+        return registrations.allTypeHandlersMap.get(handlerType);
+    }
+
+    private ClassValue<ResolvedType> newResolvedTypes() {
+        return new ClassValue<ResolvedType>() {
+            @Override
+            protected ResolvedType computeValue(Class<?> type) {
+                return resolve(type);
+            }
+        };
+    }
+
+    /**
+     * 解析顺序：类本身、枚举默认处理器、父类链、接口（广度优先），都没有时得到否定结果
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private ResolvedType resolve(Class<?> type) {
+        final Map<Type, Map<JdbcType, TypeHandler<?>>> typeHandlerMap = registrations.typeHandlerMap;
+        Map<JdbcType, TypeHandler<?>> jdbcHandlerMap = typeHandlerMap.get(type);
         if (jdbcHandlerMap != null) {
-            handler = jdbcHandlerMap.get(jdbcType);
-            if (handler == null) {
-                handler = jdbcHandlerMap.get(null);
+            return ResolvedType.of(jdbcHandlerMap);
+        }
+        // 带常量体的枚举常量是枚举的匿名子类
+        Class<?> enumType = type.isEnum() ? type : (type.getSuperclass() != null && type.getSuperclass().isEnum() ? type.getSuperclass() : null);
+        if (enumType != null) {
+            jdbcHandlerMap = typeHandlerMap.get(enumType);
+            if (jdbcHandlerMap != null) {
+                return ResolvedType.of(jdbcHandlerMap);
             }
+            return ResolvedType.of(Collections.singletonMap(null, new EnumTypeHandler(enumType)));
         }
-        // type drives generics here
-        return (TypeHandler<T>) handler;
+        for (Class<?> superclass = type.getSuperclass(); superclass != null && superclass != Object.class; superclass = superclass.getSuperclass()) {
+            jdbcHandlerMap = typeHandlerMap.get(superclass);
+            if (jdbcHandlerMap != null) {
+                return ResolvedType.of(jdbcHandlerMap);
+            }
+        }
+        Queue<Class<?>> interfaces = new ArrayDeque<>();
+        Set<Class<?>> visited = new HashSet<>();
+        for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+            Collections.addAll(interfaces, clazz.getInterfaces());
+        }
+        while (!interfaces.isEmpty()) {
+            Class<?> iface = interfaces.poll();
+            if (!visited.add(iface)) {
+                continue;
+            }
+            jdbcHandlerMap = typeHandlerMap.get(iface);
+            if (jdbcHandlerMap != null) {
+                return ResolvedType.of(jdbcHandlerMap);
+            }
+            Collections.addAll(interfaces, iface.getInterfaces());
+        }
+        return ResolvedType.NONE;
     }
 
-    public TypeHandler<?> getMappingTypeHandler(Class<? extends TypeHandler<?>> handlerType) {
-        return ALL_TYPE_HANDLERS_MAP.get(handlerType);
+    /**
+     * 注册表快照
+     */
+    private static final class Registrations {
+
+        private final Map<JdbcType, TypeHandler<?>> jdbcTypeHandlerMap;
+        private final Map<Type, Map<JdbcType, TypeHandler<?>>> typeHandlerMap;
+        private final Map<Class<?>, TypeHandler<?>> allTypeHandlersMap;
+
+        Registrations() {
+            this.jdbcTypeHandlerMap = new EnumMap<>(JdbcType.class);
+            this.typeHandlerMap = new HashMap<>();
+            this.allTypeHandlersMap = new HashMap<>();
+        }
+
+        Registrations copy() {
+            Registrations copy = new Registrations();
+            copy.jdbcTypeHandlerMap.putAll(jdbcTypeHandlerMap);
+            for (Map.Entry<Type, Map<JdbcType, TypeHandler<?>>> entry : typeHandlerMap.entrySet()) {
+                copy.typeHandlerMap.put(entry.getKey(), new HashMap<>(entry.getValue()));
+            }
+            copy.allTypeHandlersMap.putAll(allTypeHandlersMap);
+            return copy;
+        }
     }
+
+    /**
+     * 一个 Java 类型解析出的处理器：默认处理器单独存放，未指定 jdbcType 时不再查 Map
+     */
+    private static final class ResolvedType {
+
+        private static final ResolvedType NONE = new ResolvedType(null, Collections.<JdbcType, TypeHandler<?>>emptyMap());
+
+        private final TypeHandler<?> defaultHandler;
+        private final Map<JdbcType, TypeHandler<?>> jdbcHandlerMap;
+
+        private ResolvedType(TypeHandler<?> defaultHandler, Map<JdbcType, TypeHandler<?>> jdbcHandlerMap) {
+            this.defaultHandler = defaultHandler;
+            this.jdbcHandlerMap = jdbcHandlerMap;
+        }
+
+        static ResolvedType of(Map<JdbcType, TypeHandler<?>> jdbcHandlerMap) {
+            if (jdbcHandlerMap == null) {
+                return NONE;
+            }
+            // 复制一份，冻结前的原地修改不会影响已解析的结果
+            Map<JdbcType, TypeHandler<?>> handlers = new HashMap<>(jdbcHandlerMap);
+            return new ResolvedType(handlers.get(null), handlers);
+        }
+
+        TypeHandler<?> get(JdbcType jdbcType) {
+            if (jdbcType == null) {
+                return defaultHandler;
+            }
+            TypeHandler<?> handler = jdbcHandlerMap.get(jdbcType);
+            return handler != null ? handler : defaultHandler;
+        }
+    }
+
 }
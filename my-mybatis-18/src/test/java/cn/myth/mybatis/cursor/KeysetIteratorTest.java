@@ -0,0 +1,100 @@
+package cn.myth.mybatis.cursor;
+
+import cn.myth.mybatis.builder.xml.XMLConfigBuilder;
+import cn.myth.mybatis.datasource.pooled.PooledDataSource;
+import cn.myth.mybatis.io.Resources;
+import cn.myth.mybatis.session.Configuration;
+import cn.myth.mybatis.session.SqlSession;
+import cn.myth.mybatis.session.SqlSessionFactory;
+import cn.myth.mybatis.session.SqlSessionFactoryBuilder;
+import cn.myth.mybatis.test.jdbc.FakeDatabase;
+import cn.myth.mybatis.test.po.Activity;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 键集分页迭代器测试：预读与会话上的其他语句串行执行，关闭会话时迭代器一并关闭
+ */
+public class KeysetIteratorTest {
+
+    private static final String QUERY_LIST = "cn.myth.mybatis.test.dao.IActivityDao.queryActivityList";
+    private static final String SQL = "SELECT id, activity_id, activity_name FROM activity";
+    private static final String[] COLUMNS = {"id", "activity_id", "activity_name"};
+    private static final int[] TYPES = {Types.BIGINT, Types.BIGINT, Types.VARCHAR};
+
+    private FakeDatabase database;
+    private Configuration configuration;
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Before
+    public void setUp() throws Exception {
+        database = FakeDatabase.create("session");
+        // MySQL 方言下第一页没有键值条件，之后每页带 id > ?；假驱动不看参数，按 SQL 返回登记的行
+        database.addResult("SELECT * FROM (" + SQL + ") tmp_keyset ORDER BY id LIMIT ?, ?", COLUMNS, TYPES,
+                new Object[]{1L, 100001L, "a1"}, new Object[]{2L, 100002L, "a2"});
+        database.addResult("SELECT * FROM (" + SQL + ") tmp_keyset WHERE id > ? ORDER BY id LIMIT ?, ?", COLUMNS, TYPES,
+                new Object[]{3L, 100003L, "a3"});
+        database.addResult(SQL, COLUMNS, TYPES, new Object[]{1L, 100001L, "a1"});
+        try (Reader reader = Resources.getResourceAsReader("mybatis-config-fake.xml")) {
+            configuration = new XMLConfigBuilder(reader).parse();
+            sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        ((PooledDataSource) configuration.getEnvironment().getDataSource()).close();
+    }
+
+    @Test
+    public void test_iteratesAllPages() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            KeysetIterator<Activity> iterator = sqlSession.selectKeyset(QUERY_LIST, null, "id", 2);
+            List<Long> ids = new ArrayList<>();
+            while (iterator.hasNext()) {
+                ids.add(iterator.next().getId());
+            }
+            Assert.assertEquals(Arrays.asList(1L, 2L, 3L), ids);
+            Assert.assertTrue(iterator.isDone());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void test_prefetchDoesNotOverlapSessionStatements() {
+        database.setExecuteDelayMillis(50);
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            KeysetIterator<Activity> iterator = sqlSession.selectKeyset(QUERY_LIST, null, "id", 2);
+            while (iterator.hasNext()) {
+                iterator.next();
+                // 下一页正在预读时在同一会话上执行同步查询
+                Assert.assertEquals(1, sqlSession.selectList(QUERY_LIST, null).size());
+            }
+        } finally {
+            sqlSession.close();
+        }
+        Assert.assertEquals(0, database.concurrentExecutions.get());
+    }
+
+    @Test
+    public void test_sessionCloseClosesIterator() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        KeysetIterator<Activity> iterator = sqlSession.selectKeyset(QUERY_LIST, null, "id", 2);
+        Assert.assertTrue(iterator.hasNext());
+        sqlSession.close();
+        Assert.assertTrue(iterator.isDone());
+        Assert.assertEquals(0, ((PooledDataSource) configuration.getEnvironment().getDataSource()).getPoolState().getActiveConnectionCount());
+    }
+
+}
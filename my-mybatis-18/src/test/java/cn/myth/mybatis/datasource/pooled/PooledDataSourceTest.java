@@ -0,0 +1,266 @@
+package cn.myth.mybatis.datasource.pooled;
+
+import cn.myth.mybatis.test.jdbc.FakeDatabase;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 连接池并发测试：借出互斥、连接数上限、超时收回与归还竞争、后台建连与交接
+ */
+public class PooledDataSourceTest {
+
+    private FakeDatabase database;
+    private PooledDataSource dataSource;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        database = FakeDatabase.create("pool-" + System.nanoTime());
+        dataSource = new PooledDataSource();
+        dataSource.setUrl(database.getUrl());
+        dataSource.setPoolTimeToWait(5000);
+        executor = Executors.newFixedThreadPool(16);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        dataSource.close();
+    }
+
+    @Test
+    public void test_concurrentBorrowIsExclusiveAndBounded() throws Exception {
+        dataSource.setPoolMaximumActiveConnections(4);
+        // 每个物理连接同一时刻只能被一个线程持有
+        Map<Connection, AtomicBoolean> owners = new ConcurrentHashMap<>();
+        AtomicInteger violations = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            futures.add(executor.submit(() -> {
+                try (Connection connection = dataSource.getConnection()) {
+                    AtomicBoolean owner = owners.computeIfAbsent(PooledDataSource.unwrapConnection(connection), k -> new AtomicBoolean());
+                    if (!owner.compareAndSet(false, true)) {
+                        violations.incrementAndGet();
+                    }
+                    connection.createStatement().execute("update t set a = 1");
+                    owner.set(false);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        Assert.assertEquals(0, violations.get());
+        Assert.assertTrue(database.connectionsOpened.get() + " opened", database.getOpenConnectionCount() <= 4);
+        Assert.assertTrue(dataSource.getPoolState().getTotalConnectionCount() <= 4);
+        Assert.assertEquals(0, dataSource.getPoolState().getActiveConnectionCount());
+        Assert.assertEquals(0, dataSource.getPoolState().getWaitingThreadCount());
+    }
+
+    @Test
+    public void test_lateCloseAfterOverdueReclaimDoesNotReturnConnection() throws Exception {
+        dataSource.setPoolMaximumActiveConnections(1);
+        dataSource.setPoolMaximumCheckoutTime(5);
+        for (int i = 0; i < 200; i++) {
+            Connection owner = dataSource.getConnection();
+            Thread.sleep(7);
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            // 原使用方归还与新借用方收回超时连接同时进行
+            Future<?> close = executor.submit(() -> {
+                barrier.await();
+                owner.close();
+                return null;
+            });
+            Future<Connection> borrow = executor.submit(() -> {
+                barrier.await();
+                return dataSource.getConnection();
+            });
+            close.get(10, TimeUnit.SECONDS);
+            Connection borrower = borrow.get(10, TimeUnit.SECONDS);
+            // 无论哪一方先到，连接都只属于新的借用方，不会同时出现在空闲列表中
+            Assert.assertEquals("iteration " + i, 1, dataSource.getPoolState().getActiveConnectionCount());
+            Assert.assertEquals("iteration " + i, 0, dataSource.getPoolState().getIdleConnectionCount());
+            Assert.assertFalse(borrower.isClosed());
+            borrower.createStatement().close();
+            borrower.close();
+        }
+        Assert.assertEquals(1, database.connectionsOpened.get());
+    }
+
+    @Test
+    public void test_staleHandleReturnAfterReclaimIsIgnored() throws Exception {
+        dataSource.setPoolMaximumActiveConnections(1);
+        dataSource.setPoolMaximumCheckoutTime(5);
+        ProxyConnection owner = (ProxyConnection) dataSource.getConnection();
+        PooledConnection pooledConnection = owner.getPooledConnection();
+        Thread.sleep(10);
+        // 新借用方收回超时连接
+        Connection borrower = dataSource.getConnection();
+        Assert.assertSame(pooledConnection, ((ProxyConnection) borrower).getPooledConnection());
+        // 模拟原使用方在作废前已通过 close 检查、收回完成后才执行归还
+        dataSource.pushConnection(pooledConnection, owner);
+        Assert.assertEquals(PooledConnection.STATE_IN_USE, pooledConnection.getState());
+        Assert.assertEquals(0, dataSource.getPoolState().getIdleConnectionCount());
+        Assert.assertEquals(0, database.rollbacks.get());
+        borrower.createStatement().close();
+        borrower.close();
+        Assert.assertEquals(1, dataSource.getPoolState().getIdleConnectionCount());
+    }
+
+    @Test
+    public void test_concurrentCloseReturnsOnce() throws Exception {
+        dataSource.setPoolMaximumActiveConnections(2);
+        for (int i = 0; i < 100; i++) {
+            Connection connection = dataSource.getConnection();
+            CyclicBarrier barrier = new CyclicBarrier(4);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    connection.close();
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            Assert.assertEquals(0, dataSource.getPoolState().getActiveConnectionCount());
+            Assert.assertEquals(1, dataSource.getPoolState().getIdleConnectionCount());
+        }
+    }
+
+    @Test
+    public void test_waitersAreHandedConnectionsCreatedInBackground() throws Exception {
+        database.setConnectDelayMillis(50);
+        dataSource.setPoolMaximumActiveConnections(2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                try (Connection connection = dataSource.getConnection()) {
+                    Thread.sleep(20);
+                    connection.createStatement().execute("update t set a = 1");
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        Assert.assertTrue(database.connectionsOpened.get() <= 2);
+        Assert.assertEquals(8, database.getCommittedRows().size());
+    }
+
+    @Test
+    public void test_minimumIdlePrewarm() throws Exception {
+        dataSource.setMinimumIdle(3);
+        dataSource.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dataSource.getPoolState().getIdleConnectionCount() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(3, dataSource.getPoolState().getIdleConnectionCount());
+    }
+
+    @Test
+    public void test_minimumIdleIsClampedToMaximumIdle() throws Exception {
+        dataSource.setPoolMaximumIdleConnections(2);
+        dataSource.setMinimumIdle(4);
+        dataSource.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dataSource.getPoolState().getIdleConnectionCount() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        Assert.assertEquals(2, dataSource.getPoolState().getIdleConnectionCount());
+        // 借出再归还不会因空闲连接已满而关闭连接、再为补足 minimumIdle 重建
+        for (int i = 0; i < 5; i++) {
+            dataSource.getConnection().close();
+        }
+        Thread.sleep(50);
+        Assert.assertEquals(2, database.connectionsOpened.get());
+        Assert.assertEquals(0, database.connectionsClosed.get());
+    }
+
+    @Test
+    public void test_connectionsCreatedAfterCloseAreDiscarded() throws Exception {
+        database.setConnectDelayMillis(100);
+        dataSource.setMinimumIdle(3);
+        dataSource.start();
+        // 建连任务正在执行时关闭数据源
+        Thread.sleep(20);
+        dataSource.close();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (database.connectionsClosed.get() < database.connectionsOpened.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(150);
+        Assert.assertEquals(0, dataSource.getPoolState().getIdleConnectionCount());
+        Assert.assertEquals(0, dataSource.getPoolState().getTotalConnectionCount());
+        Assert.assertEquals(0, database.getOpenConnectionCount());
+    }
+
+    @Test
+    public void test_creationFailureIsReportedToWaiter() {
+        database.setRefuseConnections(true);
+        dataSource.setPoolTimeToWait(200);
+        try {
+            dataSource.getConnection();
+            Assert.fail("expected SQLException");
+        } catch (SQLException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("Could not create a connection"));
+        }
+        Assert.assertEquals(0, dataSource.getPoolState().getTotalConnectionCount());
+    }
+
+    @Test
+    public void test_abortedConnectionIsDiscarded() throws Exception {
+        Connection connection = dataSource.getConnection();
+        connection.abort(Runnable::run);
+        connection.close();
+        Assert.assertEquals(0, dataSource.getPoolState().getIdleConnectionCount());
+        Assert.assertEquals(0, dataSource.getPoolState().getActiveConnectionCount());
+        Assert.assertEquals(0, database.getOpenConnectionCount());
+        // 下一次借用拿到新的物理连接
+        try (Connection next = dataSource.getConnection()) {
+            Assert.assertFalse(next.isClosed());
+        }
+        Assert.assertEquals(2, database.connectionsOpened.get());
+    }
+
+    @Test
+    public void test_fatalSqlStateEvictsConnection() throws Exception {
+        database.failWith("select broken", "08S01");
+        database.failWith("select duplicate", "23000");
+        // 普通错误不影响连接复用
+        try (Connection connection = dataSource.getConnection()) {
+            connection.createStatement().execute("select duplicate");
+            Assert.fail();
+        } catch (SQLException expected) {
+            Assert.assertEquals("23000", expected.getSQLState());
+        }
+        Assert.assertEquals(1, dataSource.getPoolState().getIdleConnectionCount());
+        // 通信链路错误说明物理连接已断开，归还时丢弃
+        try (Connection connection = dataSource.getConnection()) {
+            connection.prepareStatement("select broken").execute();
+            Assert.fail();
+        } catch (SQLException expected) {
+            Assert.assertEquals("08S01", expected.getSQLState());
+        }
+        Assert.assertEquals(0, dataSource.getPoolState().getIdleConnectionCount());
+        Assert.assertEquals(0, database.getOpenConnectionCount());
+        Assert.assertEquals(1, database.connectionsOpened.get());
+    }
+
+}
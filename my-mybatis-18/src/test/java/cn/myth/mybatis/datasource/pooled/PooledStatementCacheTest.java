@@ -0,0 +1,101 @@
+package cn.myth.mybatis.datasource.pooled;
+
+import cn.myth.mybatis.test.jdbc.FakeDatabase;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.Collections;
+
+/**
+ * 语句缓存测试：放回缓存的语句不能把上一个使用方的批次、结果集和设置带给下一个使用方
+ */
+public class PooledStatementCacheTest {
+
+    private static final String INSERT = "insert into activity (id) values (?)";
+    private static final String SELECT = "select id from activity";
+
+    private FakeDatabase database;
+    private PooledDataSource dataSource;
+
+    @Before
+    public void setUp() {
+        database = FakeDatabase.create("cache-" + System.nanoTime());
+        database.addResult(SELECT, new String[]{"id"}, new int[]{Types.BIGINT}, new Object[]{1L}, new Object[]{2L});
+        dataSource = new PooledDataSource();
+        dataSource.setUrl(database.getUrl());
+        dataSource.setPoolMaximumActiveConnections(1);
+        dataSource.setStatementCacheSize(8);
+    }
+
+    @After
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    public void test_unexecutedBatchIsDiscardedOnRelease() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement(INSERT);
+            statement.setLong(1, 1L);
+            statement.addBatch();
+            // 未执行 executeBatch 就关闭
+            statement.close();
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement(INSERT);
+            statement.setLong(1, 2L);
+            statement.addBatch();
+            Assert.assertEquals(1, statement.executeBatch().length);
+            statement.close();
+        }
+        Assert.assertEquals(1, database.statementsPrepared.get());
+        Assert.assertEquals(Collections.singletonList(INSERT + "|2"), database.getCommittedRows());
+    }
+
+    @Test
+    public void test_settingsAreRestoredOnRelease() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement(INSERT);
+            statement.setFetchSize(500);
+            statement.setMaxRows(10);
+            statement.setQueryTimeout(3);
+            statement.close();
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement(INSERT);
+            Assert.assertEquals(1, database.statementsPrepared.get());
+            Assert.assertEquals(0, statement.getFetchSize());
+            Assert.assertEquals(0, statement.getMaxRows());
+            Assert.assertEquals(0, statement.getQueryTimeout());
+            statement.close();
+        }
+    }
+
+    @Test
+    public void test_openResultSetIsClosedOnRelease() throws Exception {
+        ResultSet resultSet;
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement(SELECT);
+            resultSet = statement.executeQuery();
+            Assert.assertTrue(resultSet.next());
+            statement.close();
+            Assert.assertTrue(resultSet.isClosed());
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement(SELECT);
+            Assert.assertEquals(1, database.statementsPrepared.get());
+            try (ResultSet fresh = statement.executeQuery()) {
+                Assert.assertTrue(fresh.next());
+                Assert.assertEquals(1L, fresh.getLong(1));
+            }
+            statement.close();
+        }
+    }
+
+}
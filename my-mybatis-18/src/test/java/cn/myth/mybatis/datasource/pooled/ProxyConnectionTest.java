@@ -0,0 +1,127 @@
+package cn.myth.mybatis.datasource.pooled;
+
+import cn.myth.mybatis.test.jdbc.FakeDatabase;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * 借出连接测试：归还时关闭未关闭的语句、会话状态设置去重、只在有未结束的事务时回滚
+ */
+public class ProxyConnectionTest {
+
+    private static final String INSERT = "insert into activity (id) values (?)";
+
+    private FakeDatabase database;
+    private PooledDataSource dataSource;
+
+    @Before
+    public void setUp() {
+        database = FakeDatabase.create("proxy-" + System.nanoTime());
+        dataSource = new PooledDataSource();
+        dataSource.setUrl(database.getUrl());
+        dataSource.setPoolMaximumActiveConnections(1);
+    }
+
+    @After
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    public void test_openStatementsAreClosedOnReturn() throws Exception {
+        Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement();
+        PreparedStatement preparedStatement = connection.prepareStatement(INSERT);
+        PreparedStatement closedStatement = connection.prepareStatement(INSERT);
+        closedStatement.close();
+        Assert.assertEquals(1, database.statementsClosed.get());
+        connection.close();
+        Assert.assertTrue(statement.isClosed());
+        Assert.assertTrue(preparedStatement.isClosed());
+        Assert.assertEquals(3, database.statementsClosed.get());
+    }
+
+    @Test
+    public void test_cachedStatementsGoBackToCacheOnReturn() throws Exception {
+        dataSource.setStatementCacheSize(8);
+        Connection connection = dataSource.getConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(INSERT);
+        connection.close();
+        // 使用方视角已关闭，真实语句放回了缓存
+        Assert.assertTrue(preparedStatement.isClosed());
+        Assert.assertEquals(0, database.statementsClosed.get());
+        try (Connection next = dataSource.getConnection()) {
+            next.prepareStatement(INSERT).close();
+        }
+        Assert.assertEquals(1, database.statementsPrepared.get());
+    }
+
+    @Test
+    public void test_sessionSettersSkipUnchangedValues() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            // 假驱动默认自动提交、REPEATABLE_READ
+            connection.setAutoCommit(true);
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            Assert.assertEquals(0, database.autoCommitChanges.get());
+            Assert.assertEquals(0, database.isolationChanges.get());
+            for (int i = 0; i < 3; i++) {
+                connection.setAutoCommit(false);
+                connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            }
+            Assert.assertEquals(1, database.autoCommitChanges.get());
+            Assert.assertEquals(1, database.isolationChanges.get());
+            Assert.assertFalse(connection.getAutoCommit());
+            Assert.assertEquals(Connection.TRANSACTION_READ_COMMITTED, connection.getTransactionIsolation());
+        }
+        // 归还后物理连接仍是同一个，记录的状态跟随它
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            Assert.assertEquals(1, database.isolationChanges.get());
+        }
+    }
+
+    @Test
+    public void test_rollbackOnReturnOnlyWhenDirty() throws Exception {
+        // 手动提交但没有执行语句：归还时不回滚
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+        }
+        Assert.assertEquals(0, database.rollbacks.get());
+        // 执行了语句但已提交：不回滚
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(INSERT)) {
+                ps.setLong(1, 1L);
+                ps.executeUpdate();
+            }
+            connection.commit();
+        }
+        Assert.assertEquals(0, database.rollbacks.get());
+        // 执行了语句未提交：回滚
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(INSERT)) {
+                ps.setLong(1, 2L);
+                ps.executeUpdate();
+            }
+        }
+        Assert.assertEquals(1, database.rollbacks.get());
+        // 自动提交模式下执行语句：不回滚
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            try (PreparedStatement ps = connection.prepareStatement(INSERT)) {
+                ps.setLong(1, 3L);
+                ps.executeUpdate();
+            }
+        }
+        Assert.assertEquals(1, database.rollbacks.get());
+        Assert.assertEquals(2, database.getCommittedRows().size());
+    }
+
+}
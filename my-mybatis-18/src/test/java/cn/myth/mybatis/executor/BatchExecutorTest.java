@@ -0,0 +1,101 @@
+package cn.myth.mybatis.executor;
+
+import cn.myth.mybatis.builder.xml.XMLConfigBuilder;
+import cn.myth.mybatis.datasource.pooled.PooledDataSource;
+import cn.myth.mybatis.io.Resources;
+import cn.myth.mybatis.session.Configuration;
+import cn.myth.mybatis.session.ExecutorType;
+import cn.myth.mybatis.session.SqlSession;
+import cn.myth.mybatis.session.SqlSessionFactory;
+import cn.myth.mybatis.session.SqlSessionFactoryBuilder;
+import cn.myth.mybatis.test.jdbc.FakeDatabase;
+import cn.myth.mybatis.test.po.Activity;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * 批量执行器测试：关闭会话时已达阈值执行的批次与剩余批次要么一起提交，要么一起回滚
+ */
+public class BatchExecutorTest {
+
+    private static final String INSERT = "INSERT INTO activity (activity_id, activity_name) VALUES (?, ?)";
+    private static final String INSERT_LOG = "INSERT INTO activity_log (activity_id) VALUES (?)";
+
+    private FakeDatabase database;
+    private Configuration configuration;
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Before
+    public void setUp() throws Exception {
+        database = FakeDatabase.create("session");
+        try (Reader reader = Resources.getResourceAsReader("mybatis-config-fake.xml")) {
+            configuration = new XMLConfigBuilder(reader).parse();
+            sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        ((PooledDataSource) configuration.getEnvironment().getDataSource()).close();
+    }
+
+    @Test
+    public void test_closeFlushesPendingBatchTail() {
+        SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+        // batchSize=2：前两条达到阈值先执行，第三条留在批次中直到关闭
+        for (long i = 1; i <= 3; i++) {
+            sqlSession.insert("cn.myth.mybatis.test.dao.IActivityDao.insert", activity(i));
+        }
+        sqlSession.close();
+        Assert.assertEquals(Arrays.asList(INSERT + "|1,a1", INSERT + "|2,a2", INSERT + "|3,a3"), database.getCommittedRows());
+    }
+
+    @Test
+    public void test_closeRollsBackWhenFlushFails() {
+        database.failWith(INSERT_LOG, "23000");
+        SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+        for (long i = 1; i <= 2; i++) {
+            sqlSession.insert("cn.myth.mybatis.test.dao.IActivityDao.insert", activity(i));
+        }
+        sqlSession.insert("cn.myth.mybatis.test.dao.IActivityDao.insertLog", activity(2));
+        try {
+            sqlSession.close();
+            Assert.fail("flush failure should be reported");
+        } catch (RuntimeException expected) {
+            // 剩余批次执行失败
+        }
+        // 已按阈值执行的前两条也随事务回滚
+        Assert.assertTrue(database.getCommittedRows().isEmpty());
+        Assert.assertEquals(1, database.rollbacks.get());
+    }
+
+    @Test
+    public void test_closeReportsCommitFailure() {
+        database.failCommitWith("40001");
+        SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+        sqlSession.insert("cn.myth.mybatis.test.dao.IActivityDao.insert", activity(1));
+        try {
+            sqlSession.close();
+            Assert.fail("commit failure should be reported");
+        } catch (RuntimeException expected) {
+            Assert.assertTrue(expected.getCause() instanceof SQLException);
+            Assert.assertEquals("40001", ((SQLException) expected.getCause()).getSQLState());
+        }
+        Assert.assertTrue(database.getCommittedRows().isEmpty());
+        Assert.assertEquals(1, database.rollbacks.get());
+    }
+
+    private static Activity activity(long id) {
+        Activity activity = new Activity();
+        activity.setActivityId(id);
+        activity.setActivityName("a" + id);
+        return activity;
+    }
+
+}
@@ -0,0 +1,82 @@
+package cn.myth.mybatis.executor.resulset;
+
+import cn.myth.mybatis.mapping.ResultFlag;
+import cn.myth.mybatis.mapping.ResultMap;
+import cn.myth.mybatis.mapping.ResultMapping;
+import cn.myth.mybatis.session.Configuration;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 构造函数映射测试：未保留参数名且未配置 <constructor> 时不按位置静默绑定，<arg> 的列不存在时报错
+ */
+public class ResultConstructorTest {
+
+    private final Configuration configuration = new Configuration();
+
+    @Test
+    public void test_singleConstructorWithoutParameterNamesIsRejected() {
+        ResultMap resultMap = new ResultMap.Builder(configuration, "immutable", ImmutableActivity.class, new ArrayList<>()).build();
+        Assert.assertTrue(ResultConstructor.isApplicable(resultMap));
+        try {
+            // 列数与参数个数相同，但列顺序与参数顺序相反
+            ResultConstructor.resolve(resultMap, Arrays.asList("ACTIVITY_NAME", "ACTIVITY_DESC"), configuration.getTypeHandlerRegistry());
+            Assert.fail("positional binding must not be used");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage().contains("<constructor>"));
+        }
+    }
+
+    @Test
+    public void test_constructorMappingBindsByColumnName() {
+        List<ResultFlag> flags = Collections.singletonList(ResultFlag.CONSTRUCTOR);
+        List<ResultMapping> mappings = new ArrayList<>();
+        mappings.add(new ResultMapping.Builder(configuration, null, "activity_desc", String.class).flags(flags).build());
+        mappings.add(new ResultMapping.Builder(configuration, null, "activity_name", String.class).flags(flags).build());
+        ResultMap resultMap = new ResultMap.Builder(configuration, "immutable", ImmutableActivity.class, mappings).build();
+        ResultConstructor resultConstructor = ResultConstructor.resolve(resultMap, Arrays.asList("ACTIVITY_NAME", "ACTIVITY_DESC"), configuration.getTypeHandlerRegistry());
+        Assert.assertArrayEquals(new int[]{2, 1}, resultConstructor.getColumnIndexes());
+    }
+
+    @Test
+    public void test_missingArgColumnIsRejected() {
+        List<ResultFlag> flags = Collections.singletonList(ResultFlag.CONSTRUCTOR);
+        List<ResultMapping> mappings = new ArrayList<>();
+        mappings.add(new ResultMapping.Builder(configuration, null, "activity_desc", String.class).flags(flags).build());
+        // 列名写错
+        mappings.add(new ResultMapping.Builder(configuration, null, "activity_nmae", String.class).flags(flags).build());
+        ResultMap resultMap = new ResultMap.Builder(configuration, "immutable", ImmutableActivity.class, mappings).build();
+        try {
+            ResultConstructor.resolve(resultMap, Arrays.asList("ACTIVITY_NAME", "ACTIVITY_DESC"), configuration.getTypeHandlerRegistry());
+            Assert.fail("missing column must not be passed as null");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("activity_nmae"));
+        }
+    }
+
+    public static final class ImmutableActivity {
+
+        private final String activityDesc;
+        private final String activityName;
+
+        public ImmutableActivity(String activityDesc, String activityName) {
+            this.activityDesc = activityDesc;
+            this.activityName = activityName;
+        }
+
+        public String getActivityDesc() {
+            return activityDesc;
+        }
+
+        public String getActivityName() {
+            return activityName;
+        }
+
+    }
+
+}
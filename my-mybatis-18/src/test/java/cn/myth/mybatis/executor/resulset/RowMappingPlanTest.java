@@ -0,0 +1,136 @@
+package cn.myth.mybatis.executor.resulset;
+
+import cn.myth.mybatis.builder.xml.XMLConfigBuilder;
+import cn.myth.mybatis.datasource.pooled.PooledDataSource;
+import cn.myth.mybatis.io.Resources;
+import cn.myth.mybatis.reflection.MetaClass;
+import cn.myth.mybatis.reflection.invoker.LambdaSetterInvoker;
+import cn.myth.mybatis.session.Configuration;
+import cn.myth.mybatis.session.SqlSession;
+import cn.myth.mybatis.session.SqlSessionFactory;
+import cn.myth.mybatis.session.SqlSessionFactoryBuilder;
+import cn.myth.mybatis.test.jdbc.FakeDatabase;
+import cn.myth.mybatis.test.po.ActivityStat;
+import cn.myth.mybatis.type.StringTypeHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * 行映射计划测试：结果与 MetaObject 通用流程的语义一致
+ * 自动映射的非基本类型属性遇到 NULL 设置为 null，基本类型属性和 ResultMap 映射的属性遇到 NULL 保持原值，
+ * 嵌套属性按需创建中间对象
+ */
+public class RowMappingPlanTest {
+
+    private static final String QUERY_STAT = "cn.myth.mybatis.test.dao.IActivityDao.queryActivityStat";
+    static final String SQL = "SELECT id, name_col, stock, takeCount, rate, remark, activity_desc FROM activity_stat";
+    static final String[] COLUMNS = {"id", "name_col", "stock", "takeCount", "rate", "remark", "activity_desc"};
+    static final int[] TYPES = {Types.BIGINT, Types.VARCHAR, Types.INTEGER, Types.BIGINT, Types.DOUBLE, Types.VARCHAR, Types.VARCHAR};
+
+    private FakeDatabase database;
+    private Configuration configuration;
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Before
+    public void setUp() throws Exception {
+        database = FakeDatabase.create("session");
+        database.addResult(SQL, COLUMNS, TYPES,
+                new Object[]{1L, "n1", 5, 20L, 0.25, "r1", "d1"},
+                new Object[]{2L, null, null, null, null, null, null});
+        try (Reader reader = Resources.getResourceAsReader("mybatis-config-fake.xml")) {
+            configuration = new XMLConfigBuilder(reader).parse();
+            sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        ((PooledDataSource) configuration.getEnvironment().getDataSource()).close();
+    }
+
+    @Test
+    public void test_planIsCompiledForJavaBean() throws Exception {
+        try (Connection connection = configuration.getEnvironment().getDataSource().getConnection();
+             ResultSet rs = connection.prepareStatement(SQL).executeQuery()) {
+            ResultSetWrapper rsw = new ResultSetWrapper(rs, configuration);
+            Assert.assertNotNull(rsw.getRowMappingPlan(configuration.getResultMap("cn.myth.mybatis.test.dao.IActivityDao.activityStatMap")));
+        }
+    }
+
+    @Test
+    public void test_publicSettersAreCalledDirectly() {
+        // 计划只对 LambdaSetterInvoker 取出 BiConsumer 直接调用，其余走 Invoker
+        MetaClass metaClass = MetaClass.forClass(ActivityStat.class);
+        Assert.assertTrue(metaClass.getSetInvoker("remark") instanceof LambdaSetterInvoker);
+        Assert.assertTrue(metaClass.getSetInvoker("id") instanceof LambdaSetterInvoker);
+        Assert.assertNotNull(((LambdaSetterInvoker) metaClass.getSetInvoker("remark")).getSetter());
+    }
+
+    @Test
+    public void test_planCacheIsInvalidatedByRuntimeRegistration() throws Exception {
+        Assert.assertEquals("r1", queryStats().get(0).getRemark());
+        // 配置解析完成后注册处理器，已缓存的计划中保存的是旧处理器，不能再命中
+        Assert.assertTrue(configuration.getTypeHandlerRegistry().isFrozen());
+        configuration.getTypeHandlerRegistry().register(String.class, new StringTypeHandler() {
+            @Override
+            public String getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+                String value = rs.getString(columnIndex);
+                return value == null ? null : value.toUpperCase();
+            }
+        });
+        Assert.assertEquals("R1", queryStats().get(0).getRemark());
+    }
+
+    @Test
+    public void test_mapsValuesThroughResultMapAndAutoMapping() {
+        ActivityStat stat = queryStats().get(0);
+        Assert.assertEquals(Long.valueOf(1L), stat.getId());
+        // ResultMap 映射：列名与属性名不同
+        Assert.assertEquals("n1", stat.getActivityName());
+        // 自动映射：基本类型与包装类型
+        Assert.assertEquals(5, stat.getStock());
+        Assert.assertEquals(20L, stat.getTakeCount());
+        Assert.assertEquals(0.25, stat.getRate(), 0);
+        Assert.assertEquals("r1", stat.getRemark());
+        // 嵌套属性：中间对象按需创建
+        Assert.assertNotNull(stat.getActivity());
+        Assert.assertEquals("d1", stat.getActivity().getActivityDesc());
+    }
+
+    @Test
+    public void test_nullColumns() {
+        ActivityStat stat = queryStats().get(1);
+        Assert.assertEquals(Long.valueOf(2L), stat.getId());
+        // ResultMap 映射的属性遇到 NULL 不设置
+        Assert.assertEquals("default", stat.getActivityName());
+        // 基本类型属性遇到 NULL 不设置
+        Assert.assertEquals(7, stat.getStock());
+        Assert.assertEquals(3L, stat.getTakeCount());
+        Assert.assertEquals(1.5, stat.getRate(), 0);
+        // 自动映射的非基本类型属性遇到 NULL 设置为 null
+        Assert.assertNull(stat.getRemark());
+        // 嵌套属性值为 NULL 时不创建中间对象
+        Assert.assertNull(stat.getActivity());
+    }
+
+    private List<ActivityStat> queryStats() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            List<ActivityStat> stats = sqlSession.selectList(QUERY_STAT, null);
+            Assert.assertEquals(2, stats.size());
+            return stats;
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+package cn.myth.mybatis.mapping;
+
+import cn.myth.mybatis.builder.xml.XMLConfigBuilder;
+import cn.myth.mybatis.datasource.pooled.PooledDataSource;
+import cn.myth.mybatis.executor.parameter.ParameterBinder;
+import cn.myth.mybatis.io.Resources;
+import cn.myth.mybatis.session.Configuration;
+import cn.myth.mybatis.test.po.Activity;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Reader;
+
+/**
+ * 参数绑定器缓存测试：动态 SQL 按分支组合复用绑定器
+ */
+public class MappedStatementTest {
+
+    private Configuration configuration;
+    private MappedStatement mappedStatement;
+
+    @Before
+    public void setUp() throws Exception {
+        try (Reader reader = Resources.getResourceAsReader("mybatis-config-fake.xml")) {
+            configuration = new XMLConfigBuilder(reader).parse();
+        }
+        mappedStatement = configuration.getMappedStatement("cn.myth.mybatis.test.dao.IActivityDao.queryActivityByCondition");
+    }
+
+    @After
+    public void tearDown() {
+        ((PooledDataSource) configuration.getEnvironment().getDataSource()).close();
+    }
+
+    @Test
+    public void test_dynamicSqlReusesBinderForSameBranches() {
+        ParameterBinder first = binderOf(activity(100001L));
+        Assert.assertSame(first, binderOf(activity(100002L)));
+        Assert.assertEquals(1, first.size());
+        // 走了不同的分支，占位符不同
+        ParameterBinder none = binderOf(activity(null));
+        Assert.assertNotSame(first, none);
+        Assert.assertEquals(0, none.size());
+        Assert.assertSame(none, binderOf(activity(null)));
+    }
+
+    @Test
+    public void test_dynamicSqlBinderKeyedOnParameterType() {
+        ParameterBinder activityBinder = binderOf(activity(100001L));
+        ParameterBinder subclassBinder = binderOf(new Activity() {
+            {
+                setActivityId(100001L);
+            }
+        });
+        Assert.assertNotSame(activityBinder, subclassBinder);
+    }
+
+    private ParameterBinder binderOf(Object parameterObject) {
+        BoundSql boundSql = mappedStatement.getBoundSql(parameterObject);
+        return mappedStatement.getParameterBinder(boundSql, parameterObject);
+    }
+
+    private static Activity activity(Long activityId) {
+        Activity activity = new Activity();
+        activity.setActivityId(activityId);
+        return activity;
+    }
+
+}
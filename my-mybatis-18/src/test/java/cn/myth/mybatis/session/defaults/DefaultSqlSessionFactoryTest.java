@@ -0,0 +1,74 @@
+package cn.myth.mybatis.session.defaults;
+
+import cn.myth.mybatis.builder.xml.XMLConfigBuilder;
+import cn.myth.mybatis.datasource.pooled.PooledDataSource;
+import cn.myth.mybatis.io.Resources;
+import cn.myth.mybatis.session.Configuration;
+import cn.myth.mybatis.session.ParallelQuery;
+import cn.myth.mybatis.session.SqlSession;
+import cn.myth.mybatis.session.SqlSessionFactory;
+import cn.myth.mybatis.session.SqlSessionFactoryBuilder;
+import cn.myth.mybatis.test.jdbc.FakeDatabase;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 会话生命周期测试：关闭会话（包括并行查询内部的会话）后连接归还连接池
+ */
+public class DefaultSqlSessionFactoryTest {
+
+    private static final String QUERY_LIST = "cn.myth.mybatis.test.dao.IActivityDao.queryActivityList";
+
+    private FakeDatabase database;
+    private Configuration configuration;
+    private PooledDataSource dataSource;
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Before
+    public void setUp() throws Exception {
+        database = FakeDatabase.create("session");
+        database.addResult("SELECT id, activity_id, activity_name FROM activity",
+                new String[]{"id", "activity_id", "activity_name"}, new int[]{Types.BIGINT, Types.BIGINT, Types.VARCHAR},
+                new Object[]{1L, 100001L, "a1"}, new Object[]{2L, 100002L, "a2"});
+        try (Reader reader = Resources.getResourceAsReader("mybatis-config-fake.xml")) {
+            configuration = new XMLConfigBuilder(reader).parse();
+            sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+        }
+        dataSource = (PooledDataSource) configuration.getEnvironment().getDataSource();
+    }
+
+    @After
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    public void test_closeReturnsConnectionToPool() {
+        for (int i = 0; i < 50; i++) {
+            SqlSession sqlSession = sqlSessionFactory.openSession();
+            Assert.assertEquals(2, sqlSession.selectList(QUERY_LIST, null).size());
+            sqlSession.close();
+            Assert.assertEquals(0, dataSource.getPoolState().getActiveConnectionCount());
+        }
+        Assert.assertEquals(1, database.connectionsOpened.get());
+    }
+
+    @Test
+    public void test_parallelQueryReturnsConnectionsToPool() {
+        ParallelQuery query = new ParallelQuery().add(QUERY_LIST).add(QUERY_LIST).add(QUERY_LIST);
+        for (int i = 0; i < 20; i++) {
+            List<List<Object>> results = sqlSessionFactory.parallelQuery(query, 5, TimeUnit.SECONDS);
+            Assert.assertEquals(3, results.size());
+            Assert.assertEquals(0, dataSource.getPoolState().getActiveConnectionCount());
+        }
+        Assert.assertTrue(database.connectionsOpened.get() + " opened", database.connectionsOpened.get() <= 3);
+    }
+
+}
@@ -0,0 +1,587 @@
+package cn.myth.mybatis.test.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 内存中的假数据库，用于不依赖真实数据库的单元测试
+ * 写语句（没有登记查询结果的 SQL）按 "sql|参数1,参数2" 记录为一行，自动提交或 commit 后进入已提交列表，rollback 或关闭连接时丢弃；
+ * 查询语句返回通过 addResult 登记的结果集。连接、语句、结果集都是 JDK 动态代理，并记录各种调用次数供断言使用。
+ */
+public class FakeDatabase {
+
+    private static final Map<String, FakeDatabase> DATABASES = new ConcurrentHashMap<>();
+
+    public final AtomicInteger connectionsOpened = new AtomicInteger();
+    public final AtomicInteger connectionsClosed = new AtomicInteger();
+    public final AtomicInteger commits = new AtomicInteger();
+    public final AtomicInteger rollbacks = new AtomicInteger();
+    public final AtomicInteger autoCommitChanges = new AtomicInteger();
+    public final AtomicInteger isolationChanges = new AtomicInteger();
+    public final AtomicInteger statementsPrepared = new AtomicInteger();
+    public final AtomicInteger statementsClosed = new AtomicInteger();
+    public final AtomicInteger validations = new AtomicInteger();
+    // 同一连接上有两个语句同时执行的次数，JDBC 连接不支持并发使用
+    public final AtomicInteger concurrentExecutions = new AtomicInteger();
+
+    private final String name;
+    private final List<String> committedRows = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, Result> results = new ConcurrentHashMap<>();
+    private final Map<String, String> failures = new ConcurrentHashMap<>();
+    private volatile long connectDelayMillis;
+    private volatile boolean refuseConnections;
+    private volatile String commitFailure;
+    private volatile long executeDelayMillis;
+
+    private FakeDatabase(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 新建（或重置）一个数据库，返回其 url
+     */
+    public static FakeDatabase create(String name) {
+        FakeDriver.register();
+        FakeDatabase database = new FakeDatabase(name);
+        DATABASES.put(name, database);
+        return database;
+    }
+
+    static FakeDatabase get(String name) throws SQLException {
+        FakeDatabase database = DATABASES.get(name);
+        if (database == null) {
+            throw new SQLException("Unknown fake database " + name, "08001");
+        }
+        return database;
+    }
+
+    public String getUrl() {
+        return FakeDriver.URL_PREFIX + name;
+    }
+
+    /**
+     * 登记查询结果，执行 sql 完全相同的语句时返回
+     */
+    public void addResult(String sql, String[] columns, int[] sqlTypes, Object[]... rows) {
+        results.put(normalize(sql), new Result(columns, sqlTypes, Arrays.asList(rows)));
+    }
+
+    /**
+     * 执行 sql 完全相同的语句时抛出带有指定 SQLState 的异常
+     */
+    public void failWith(String sql, String sqlState) {
+        failures.put(normalize(sql), sqlState);
+    }
+
+    /**
+     * 提交时抛出带有指定 SQLState 的异常，null 表示正常提交
+     */
+    public void failCommitWith(String sqlState) {
+        this.commitFailure = sqlState;
+    }
+
+    public void setConnectDelayMillis(long connectDelayMillis) {
+        this.connectDelayMillis = connectDelayMillis;
+    }
+
+    public void setExecuteDelayMillis(long executeDelayMillis) {
+        this.executeDelayMillis = executeDelayMillis;
+    }
+
+    public void setRefuseConnections(boolean refuseConnections) {
+        this.refuseConnections = refuseConnections;
+    }
+
+    public List<String> getCommittedRows() {
+        synchronized (committedRows) {
+            return new ArrayList<>(committedRows);
+        }
+    }
+
+    public int getOpenConnectionCount() {
+        return connectionsOpened.get() - connectionsClosed.get();
+    }
+
+    private static String normalize(String sql) {
+        return sql.trim().replaceAll("\\s+", " ");
+    }
+
+    Connection connect() throws SQLException {
+        if (refuseConnections) {
+            throw new SQLException("Connection refused", "08001");
+        }
+        if (connectDelayMillis > 0) {
+            try {
+                Thread.sleep(connectDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException(e);
+            }
+        }
+        connectionsOpened.incrementAndGet();
+        return new FakeConnection().proxy;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        return null;
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(FakeDatabase.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static final class Result {
+        private final String[] columns;
+        private final int[] sqlTypes;
+        private final List<Object[]> rows;
+
+        Result(String[] columns, int[] sqlTypes, List<Object[]> rows) {
+            this.columns = columns;
+            this.sqlTypes = sqlTypes;
+            this.rows = rows;
+        }
+    }
+
+    private final class FakeConnection implements InvocationHandler {
+
+        private final Connection proxy = FakeDatabase.proxy(Connection.class, this);
+        private final List<String> pendingRows = new ArrayList<>();
+        private boolean autoCommit = true;
+        private int isolation = Connection.TRANSACTION_REPEATABLE_READ;
+        private boolean readOnly;
+        private String catalog = "fake";
+        private volatile boolean closed;
+        private final AtomicInteger executing = new AtomicInteger();
+
+        @Override
+        public Object invoke(Object p, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(p);
+                case "equals":
+                    return p == args[0];
+                case "toString":
+                    return "FakeConnection@" + Integer.toHexString(System.identityHashCode(p));
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        pendingRows.clear();
+                        connectionsClosed.incrementAndGet();
+                    }
+                    return null;
+                case "abort":
+                    return invoke(p, Connection.class.getMethod("close"), null);
+                case "isClosed":
+                    return closed;
+                case "isValid":
+                    validations.incrementAndGet();
+                    return !closed;
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection is closed", "08003");
+            }
+            switch (method.getName()) {
+                case "getAutoCommit":
+                    return autoCommit;
+                case "setAutoCommit":
+                    autoCommitChanges.incrementAndGet();
+                    if ((Boolean) args[0] && !autoCommit) {
+                        commitPending();
+                    }
+                    autoCommit = (Boolean) args[0];
+                    return null;
+                case "getTransactionIsolation":
+                    return isolation;
+                case "setTransactionIsolation":
+                    isolationChanges.incrementAndGet();
+                    isolation = (Integer) args[0];
+                    return null;
+                case "isReadOnly":
+                    return readOnly;
+                case "setReadOnly":
+                    readOnly = (Boolean) args[0];
+                    return null;
+                case "getCatalog":
+                    return catalog;
+                case "setCatalog":
+                    catalog = (String) args[0];
+                    return null;
+                case "commit":
+                    if (commitFailure != null) {
+                        throw new SQLException("Fake commit failure", commitFailure);
+                    }
+                    commits.incrementAndGet();
+                    commitPending();
+                    return null;
+                case "rollback":
+                    rollbacks.incrementAndGet();
+                    pendingRows.clear();
+                    return null;
+                case "prepareStatement":
+                case "prepareCall":
+                    statementsPrepared.incrementAndGet();
+                    return new FakeStatement(this, (String) args[0]).proxy(method.getReturnType());
+                case "createStatement":
+                    statementsPrepared.incrementAndGet();
+                    return new FakeStatement(this, null).proxy(Statement.class);
+                case "unwrap":
+                    return p;
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(p);
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+
+        private void write(String row) {
+            synchronized (this) {
+                if (autoCommit) {
+                    committedRows.add(row);
+                } else {
+                    pendingRows.add(row);
+                }
+            }
+        }
+
+        private synchronized void commitPending() {
+            committedRows.addAll(pendingRows);
+            pendingRows.clear();
+        }
+    }
+
+    private final class FakeStatement implements InvocationHandler {
+
+        private final FakeConnection connection;
+        private final String sql;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+        private final List<String> batch = new ArrayList<>();
+        private final Map<String, Object> settings = new HashMap<>();
+        private Object proxy;
+        private ResultSet resultSet;
+        private int updateCount = -1;
+        private boolean closed;
+
+        FakeStatement(FakeConnection connection, String sql) {
+            this.connection = connection;
+            this.sql = sql;
+            settings.put("FetchSize", 0);
+            settings.put("MaxRows", 0);
+            settings.put("QueryTimeout", 0);
+        }
+
+        Object proxy(Class<?> type) {
+            proxy = FakeDatabase.proxy(type, this);
+            return proxy;
+        }
+
+        @Override
+        public Object invoke(Object p, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "hashCode":
+                    return System.identityHashCode(p);
+                case "equals":
+                    return p == args[0];
+                case "toString":
+                    return "FakeStatement[" + sql + "]";
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        statementsClosed.incrementAndGet();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                default:
+                    break;
+            }
+            if (closed || connection.closed) {
+                throw new SQLException("Statement is closed", "HY000");
+            }
+            switch (name) {
+                case "execute":
+                case "executeQuery":
+                case "executeUpdate":
+                case "executeLargeUpdate": {
+                    boolean query = execute(args != null && args.length > 0 ? (String) args[0] : sql);
+                    if ("executeQuery".equals(name)) {
+                        return resultSet;
+                    }
+                    if ("execute".equals(name)) {
+                        return query;
+                    }
+                    if ("executeLargeUpdate".equals(name)) {
+                        return (long) updateCount;
+                    }
+                    return updateCount;
+                }
+                case "addBatch":
+                    batch.add(row(args != null && args.length > 0 ? (String) args[0] : sql));
+                    return null;
+                case "executeBatch": {
+                    String failure = failures.get(normalize(sql));
+                    if (failure != null) {
+                        batch.clear();
+                        throw new BatchUpdateException("Simulated failure of " + normalize(sql), failure, new int[0]);
+                    }
+                    int[] counts = new int[batch.size()];
+                    for (int i = 0; i < counts.length; i++) {
+                        connection.write(batch.get(i));
+                        counts[i] = 1;
+                    }
+                    batch.clear();
+                    return counts;
+                }
+                case "clearBatch":
+                    batch.clear();
+                    return null;
+                case "clearParameters":
+                    parameters.clear();
+                    return null;
+                case "getResultSet":
+                    return resultSet;
+                case "getUpdateCount":
+                    return updateCount;
+                case "getMoreResults":
+                    resultSet = null;
+                    updateCount = -1;
+                    return false;
+                case "getGeneratedKeys":
+                    return new FakeResultSet(new Result(new String[0], new int[0], Collections.emptyList()), p).proxy;
+                case "getConnection":
+                    return connection.proxy;
+                default:
+                    break;
+            }
+            if (name.startsWith("set") && args != null && args.length >= 1) {
+                String setting = name.substring(3);
+                if (settings.containsKey(setting)) {
+                    settings.put(setting, args[0]);
+                    return null;
+                }
+                if (args[0] instanceof Integer && args.length >= 2) {
+                    parameters.put((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+                }
+                return null;
+            }
+            if (name.startsWith("get") && args == null && settings.containsKey(name.substring(3))) {
+                return settings.get(name.substring(3));
+            }
+            return defaultValue(method.getReturnType());
+        }
+
+        private String row(String statementSql) {
+            StringBuilder builder = new StringBuilder(normalize(statementSql)).append('|');
+            boolean first = true;
+            for (Object value : parameters.values()) {
+                if (!first) {
+                    builder.append(',');
+                }
+                builder.append(value);
+                first = false;
+            }
+            return builder.toString();
+        }
+
+        private boolean execute(String statementSql) throws SQLException {
+            if (connection.executing.incrementAndGet() > 1) {
+                concurrentExecutions.incrementAndGet();
+            }
+            try {
+                if (executeDelayMillis > 0) {
+                    Thread.sleep(executeDelayMillis);
+                }
+                return doExecute(statementSql);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException(e);
+            } finally {
+                connection.executing.decrementAndGet();
+            }
+        }
+
+        private boolean doExecute(String statementSql) throws SQLException {
+            String key = normalize(statementSql);
+            String failure = failures.get(key);
+            if (failure != null) {
+                throw new SQLException("Simulated failure of " + key, failure);
+            }
+            Result result = results.get(key);
+            if (result != null) {
+                resultSet = new FakeResultSet(result, proxy).proxy;
+                updateCount = -1;
+                return true;
+            }
+            connection.write(row(statementSql));
+            resultSet = null;
+            updateCount = 1;
+            return false;
+        }
+    }
+
+    private static final class FakeResultSet implements InvocationHandler {
+
+        private final ResultSet proxy = FakeDatabase.proxy(ResultSet.class, this);
+        private final Result result;
+        private final Object statement;
+        private int row = -1;
+        private boolean wasNull;
+        private boolean closed;
+
+        FakeResultSet(Result result, Object statement) {
+            this.result = result;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object p, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "hashCode":
+                    return System.identityHashCode(p);
+                case "equals":
+                    return p == args[0];
+                case "toString":
+                    return "FakeResultSet";
+                case "next":
+                    return ++row < result.rows.size();
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "wasNull":
+                    return wasNull;
+                case "getType":
+                    return ResultSet.TYPE_FORWARD_ONLY;
+                case "getStatement":
+                    return statement;
+                case "getMetaData":
+                    return FakeDatabase.proxy(ResultSetMetaData.class, (mp, m, a) -> metaData(m, a));
+                default:
+                    break;
+            }
+            if (name.startsWith("get") && args != null && args.length >= 1) {
+                int index = args[0] instanceof Integer ? (Integer) args[0] : indexOf((String) args[0]);
+                Object value = result.rows.get(row)[index - 1];
+                wasNull = value == null;
+                return convert(value, method.getReturnType());
+            }
+            return defaultValue(method.getReturnType());
+        }
+
+        private Object metaData(Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return result.columns.length;
+                case "getColumnLabel":
+                case "getColumnName":
+                    return result.columns[(Integer) args[0] - 1];
+                case "getColumnType":
+                    return result.sqlTypes[(Integer) args[0] - 1];
+                case "getColumnClassName":
+                    return javaClassName(result.sqlTypes[(Integer) args[0] - 1]);
+                case "hashCode":
+                    return 0;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+
+        private int indexOf(String column) throws SQLException {
+            for (int i = 0; i < result.columns.length; i++) {
+                if (result.columns[i].equalsIgnoreCase(column)) {
+                    return i + 1;
+                }
+            }
+            throw new SQLException("Column not found: " + column);
+        }
+
+        private static String javaClassName(int sqlType) {
+            switch (sqlType) {
+                case Types.INTEGER:
+                    return Integer.class.getName();
+                case Types.BIGINT:
+                    return Long.class.getName();
+                case Types.DOUBLE:
+                    return Double.class.getName();
+                case Types.DECIMAL:
+                    return BigDecimal.class.getName();
+                case Types.BOOLEAN:
+                    return Boolean.class.getName();
+                case Types.TIMESTAMP:
+                    return Timestamp.class.getName();
+                default:
+                    return String.class.getName();
+            }
+        }
+
+        private static Object convert(Object value, Class<?> type) {
+            if (value == null) {
+                return defaultValue(type);
+            }
+            if (type == Object.class || type.isInstance(value)) {
+                return value;
+            }
+            if (type == String.class) {
+                return String.valueOf(value);
+            }
+            Number number = value instanceof Number ? (Number) value : new BigDecimal(value.toString());
+            if (type == int.class) {
+                return number.intValue();
+            }
+            if (type == long.class) {
+                return number.longValue();
+            }
+            if (type == short.class) {
+                return number.shortValue();
+            }
+            if (type == byte.class) {
+                return number.byteValue();
+            }
+            if (type == double.class) {
+                return number.doubleValue();
+            }
+            if (type == float.class) {
+                return number.floatValue();
+            }
+            if (type == BigDecimal.class) {
+                return new BigDecimal(number.toString());
+            }
+            if (type == boolean.class) {
+                return number.intValue() != 0;
+            }
+            return value;
+        }
+    }
+
+}
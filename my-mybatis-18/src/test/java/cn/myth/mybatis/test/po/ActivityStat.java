@@ -0,0 +1,99 @@
+package cn.myth.mybatis.test.po;
+
+/**
+ * 活动统计，字段带默认值，用于检查列值为 NULL 时哪些属性会被覆盖
+ */
+public class ActivityStat {
+
+    /**
+     * 自增ID
+     */
+    private Long id;
+
+    /**
+     * 活动名称，ResultMap 映射
+     */
+    private String activityName = "default";
+
+    /**
+     * 库存，基本类型自动映射
+     */
+    private int stock = 7;
+
+    /**
+     * 参与次数，基本类型自动映射
+     */
+    private long takeCount = 3L;
+
+    /**
+     * 中奖率，基本类型自动映射
+     */
+    private double rate = 1.5;
+
+    /**
+     * 备注，自动映射
+     */
+    private String remark = "none";
+
+    /**
+     * 所属活动，ResultMap 中通过嵌套属性 activity.activityDesc 映射
+     */
+    private Activity activity;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getActivityName() {
+        return activityName;
+    }
+
+    public void setActivityName(String activityName) {
+        this.activityName = activityName;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public void setStock(int stock) {
+        this.stock = stock;
+    }
+
+    public long getTakeCount() {
+        return takeCount;
+    }
+
+    public void setTakeCount(long takeCount) {
+        this.takeCount = takeCount;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public void setRate(double rate) {
+        this.rate = rate;
+    }
+
+    public String getRemark() {
+        return remark;
+    }
+
+    public void setRemark(String remark) {
+        this.remark = remark;
+    }
+
+    public Activity getActivity() {
+        return activity;
+    }
+
+    public void setActivity(Activity activity) {
+        this.activity = activity;
+    }
+
+}
@@ -0,0 +1,48 @@
+package cn.myth.mybatis.type;
+
+import cn.myth.mybatis.mapping.ResultMapping;
+import cn.myth.mybatis.session.Configuration;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 字符串去重测试：每个 intern 映射一张表，高基数列填满自己的表不影响其他列
+ */
+public class StringInternTableTest {
+
+    @Test
+    public void test_fullTableReturnsOriginalValue() {
+        StringInternTable table = new StringInternTable(2);
+        String a = table.intern(new String("a"));
+        Assert.assertSame(a, table.intern(new String("a")));
+        table.intern("b");
+        String c = new String("c");
+        Assert.assertSame(c, table.intern(c));
+        Assert.assertEquals(2, table.size());
+        Assert.assertEquals(1, table.getHitCount());
+        Assert.assertEquals(3, table.getMissCount());
+    }
+
+    @Test
+    public void test_highCardinalityMappingDoesNotDisableOtherMappings() {
+        Configuration configuration = new Configuration();
+        configuration.setStringInternTableSize(16);
+        StringInternTable orderNo = internTableOf(configuration, "orderNo", "order_no");
+        StringInternTable status = internTableOf(configuration, "status", "status");
+        Assert.assertNotSame(orderNo, status);
+        // 高基数列填满自己的表
+        for (int i = 0; i < 1000; i++) {
+            orderNo.intern("NO" + i);
+        }
+        Assert.assertEquals(16, orderNo.size());
+        // 低基数列仍然去重
+        String open = status.intern(new String("OPEN"));
+        Assert.assertSame(open, status.intern(new String("OPEN")));
+    }
+
+    private static StringInternTable internTableOf(Configuration configuration, String property, String column) {
+        ResultMapping resultMapping = new ResultMapping.Builder(configuration, property, column, String.class).intern(true).build();
+        return ((InterningStringTypeHandler) resultMapping.getTypeHandler()).getInternTable();
+    }
+
+}